@@ -36,7 +36,7 @@ import com.badlogic.gdx.utils.JsonValue;
  *
  * @author Raymond
  */
-public class FreetypeSkin extends Skin {
+public class FreetypeSkin extends UBJsonSkin {
 
     public FreetypeSkin() {
     }
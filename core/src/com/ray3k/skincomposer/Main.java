@@ -70,8 +70,10 @@ import com.badlogic.gdx.scenes.scene2d.ui.Window.WindowStyle;
 import com.badlogic.gdx.utils.viewport.ScreenViewport;
 import com.kotcrab.vis.ui.VisUI;
 import com.ray3k.skincomposer.data.AtlasData;
+import com.ray3k.skincomposer.data.ImageMetadataCache;
 import com.ray3k.skincomposer.data.JsonData;
 import com.ray3k.skincomposer.data.ProjectData;
+import com.ray3k.skincomposer.data.StyleAccessor;
 import com.ray3k.skincomposer.dialog.DialogListener;
 import com.ray3k.skincomposer.utils.Utils;
 
@@ -96,6 +98,7 @@ public class Main extends ApplicationAdapter {
     private DesktopWorker desktopWorker;
     private AnimatedDrawable loadingAnimation;
     private UndoableManager undoableManager;
+    private RefreshScheduler refreshScheduler;
     private ProjectData projectData;
     private RootTable rootTable;
     private IbeamListener ibeamListener;
@@ -177,6 +180,8 @@ public class Main extends ApplicationAdapter {
         
         dialogFactory = new DialogFactory(this);
         undoableManager = new UndoableManager(this);
+        refreshScheduler = new RefreshScheduler(this);
+        StyleAccessor.prepare(STYLE_CLASSES);
         
         desktopWorker.attachLogListener();
         desktopWorker.sizeWindowToFit(800, 800, 50, Gdx.graphics);
@@ -246,6 +251,7 @@ public class Main extends ApplicationAdapter {
 
         loadingAnimation.update(Gdx.graphics.getDeltaTime());
         stage.act(Gdx.graphics.getDeltaTime());
+        refreshScheduler.update();
         stage.draw();
     }
 
@@ -257,8 +263,12 @@ public class Main extends ApplicationAdapter {
 
     @Override
     public void dispose() {
+        projectData.foldJournal();
         stage.dispose();
         skin.dispose();
+        projectData.getAtlasData().getRegistry().dispose();
+        projectData.getFontCache().dispose();
+        ImageMetadataCache.get().save();
     }
 
     public DesktopWorker getDesktopWorker() {
@@ -285,6 +295,10 @@ public class Main extends ApplicationAdapter {
         return undoableManager;
     }
 
+    public RefreshScheduler getRefreshScheduler() {
+        return refreshScheduler;
+    }
+
     public ProjectData getProjectData() {
         return projectData;
     }
@@ -332,7 +332,6 @@ public class MainListener extends RootTableListener {
                     dialogFactory.showDialogPathErrors(drawableErrors, fontErrors);
                 }
                 projectData.setLastOpenSavePath(fileHandle.parent().path() + "/");
-                root.populate();
                 root.setRecentFilesDisabled(projectData.getRecentFiles().size == 0);
             }
         };
@@ -382,7 +381,6 @@ public class MainListener extends RootTableListener {
                     dialogFactory.showDialogPathErrors(drawableErrors, fontErrors);
                 }
                 projectData.setLastOpenSavePath(fileHandle.parent().path() + "/");
-                root.populate();
                 root.setRecentFilesDisabled(projectData.getRecentFiles().size == 0);
             }
         };
@@ -486,6 +484,7 @@ public class MainListener extends RootTableListener {
             dialogFactory.showDialogFonts(styleProperty, dialogListener);
         } else if (styleProperty.type == Float.TYPE) {
             main.getUndoableManager().addUndoable(new UndoableManager.DoubleUndoable(main, styleProperty, ((Spinner) styleActor).getValue()), false);
+            root.refreshPreviewProperty(styleProperty);
         } else if (styleProperty.type == ScrollPaneStyle.class) {
             main.getUndoableManager().addUndoable(new UndoableManager.SelectBoxUndoable(root, styleProperty, (SelectBox) styleActor), true);
         } else if (styleProperty.type == LabelStyle.class) {
@@ -517,9 +516,9 @@ public class MainListener extends RootTableListener {
                 root.setStyleRenameButtonDisabled(!styleData.deletable);
 
                 root.setStyleProperties(styleData.properties.values().toArray());
-                root.refreshStyleProperties(false);
+                main.getRefreshScheduler().invalidateStyleProperties(false);
                 root.refreshPreviewProperties();
-                root.refreshPreview();
+                main.getRefreshScheduler().invalidatePreview();
             }
         } else {
             main.getRootTable().setClassDuplicateButtonDisabled(false);
@@ -535,9 +534,9 @@ public class MainListener extends RootTableListener {
                 main.getRootTable().setStyleRenameButtonDisabled(!customStyle.isDeletable());
                 
                 root.setCustomStyleProperties(customStyle.getProperties());
-                root.refreshStyleProperties(false);
+                main.getRefreshScheduler().invalidateStyleProperties(false);
                 root.refreshPreviewProperties();
-                root.refreshPreview();
+                main.getRefreshScheduler().invalidatePreview();
             }
         }
     }
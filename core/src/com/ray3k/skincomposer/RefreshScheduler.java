@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * MIT License
+ * 
+ * Copyright (c) 2018 Raymond Buckley
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.ray3k.skincomposer;
+
+/**
+ * Collects requests to rebuild parts of the RootTable and performs each
+ * rebuild at most once per frame. Callers mark what is out of date and
+ * {@link #update()} runs the pending rebuilds from {@link Main#render()} in
+ * dependency order: the atlas, the class and style lists, the style
+ * properties panel and finally the preview. Rebuilds requested while
+ * updating are handled in the same frame if their step has not run yet.
+ */
+public class RefreshScheduler {
+    private final Main main;
+    private boolean atlasDirty;
+    private boolean classesDirty;
+    private boolean stylesDirty;
+    private boolean scrollToNewest;
+    private boolean stylePropertiesDirty;
+    private boolean preserveScroll;
+    private boolean previewDirty;
+
+    public RefreshScheduler(Main main) {
+        this.main = main;
+    }
+    
+    public void invalidateAtlas() {
+        atlasDirty = true;
+    }
+    
+    /**
+     * Repopulates the root table with the class list selection kept.
+     * @param scrollToNewest Selects the last class instead if any request
+     * asks for it.
+     */
+    public void invalidateClasses(boolean scrollToNewest) {
+        classesDirty = true;
+        this.scrollToNewest |= scrollToNewest;
+    }
+    
+    /**
+     * Repopulates the root table with the class selection kept.
+     * @param scrollToNewest Selects the last style if any request asks for
+     * it.
+     */
+    public void invalidateStyles(boolean scrollToNewest) {
+        stylesDirty = true;
+        this.scrollToNewest |= scrollToNewest;
+    }
+    
+    /**
+     * Rebuilds the style properties panel.
+     * @param preserveScroll The scroll position is kept only if every request
+     * since the last update asked for it.
+     */
+    public void invalidateStyleProperties(boolean preserveScroll) {
+        if (stylePropertiesDirty) {
+            this.preserveScroll &= preserveScroll;
+        } else {
+            stylePropertiesDirty = true;
+            this.preserveScroll = preserveScroll;
+        }
+    }
+    
+    public void invalidatePreview() {
+        previewDirty = true;
+    }
+
+    public boolean isAtlasPending() {
+        return atlasDirty;
+    }
+    
+    public boolean isPreviewPending() {
+        return previewDirty;
+    }
+    
+    public void update() {
+        RootTable rootTable = main.getRootTable();
+        
+        if (atlasDirty) {
+            atlasDirty = false;
+            rootTable.produceAtlas();
+        }
+        
+        if (classesDirty || stylesDirty) {
+            boolean classes = classesDirty;
+            boolean newest = scrollToNewest;
+            classesDirty = false;
+            stylesDirty = false;
+            scrollToNewest = false;
+            
+            if (classes) {
+                rootTable.refreshClasses(newest);
+            } else {
+                rootTable.refreshStyles(newest);
+            }
+        }
+        
+        if (stylePropertiesDirty) {
+            stylePropertiesDirty = false;
+            rootTable.refreshStyleProperties(preserveScroll);
+        }
+        
+        if (previewDirty) {
+            previewDirty = false;
+            rootTable.refreshPreview();
+        }
+    }
+}
@@ -74,17 +74,14 @@ import com.badlogic.gdx.scenes.scene2d.ui.Tree;
 import com.badlogic.gdx.scenes.scene2d.ui.Window;
 import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener;
 import com.badlogic.gdx.scenes.scene2d.utils.Drawable;
-import com.badlogic.gdx.scenes.scene2d.utils.NinePatchDrawable;
-import com.badlogic.gdx.scenes.scene2d.utils.SpriteDrawable;
-import com.badlogic.gdx.scenes.scene2d.utils.TiledDrawable;
 import com.badlogic.gdx.utils.Align;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.ObjectMap;
 import com.badlogic.gdx.utils.OrderedMap;
 import com.badlogic.gdx.utils.reflect.ClassReflection;
-import com.badlogic.gdx.utils.reflect.Field;
 import com.badlogic.gdx.utils.reflect.ReflectionException;
 import com.ray3k.skincomposer.MenuButton.MenuButtonListener;
+import com.ray3k.skincomposer.data.AtlasRegistry;
 import com.ray3k.skincomposer.data.ColorData;
 import com.ray3k.skincomposer.data.CustomClass;
 import com.ray3k.skincomposer.data.CustomProperty;
@@ -94,9 +91,12 @@ import com.ray3k.skincomposer.data.DrawableData;
 import com.ray3k.skincomposer.data.FontData;
 import com.ray3k.skincomposer.data.FreeTypeFontData;
 import com.ray3k.skincomposer.data.PreviewActorCreator;
+import com.ray3k.skincomposer.data.StyleAccessor;
+import com.ray3k.skincomposer.data.StyleAccessor.FieldAccessor;
 import com.ray3k.skincomposer.data.StyleData;
 import com.ray3k.skincomposer.data.StyleProperty;
 import com.ray3k.skincomposer.dialog.DialogColorPicker;
+import com.ray3k.skincomposer.dialog.DialogLoading;
 import com.ray3k.skincomposer.utils.Utils;
 
 public class RootTable extends Table {
@@ -136,8 +136,10 @@ public class RootTable extends Table {
             + "\n\n\n" + PARAGRAPH_SAMPLE + "\n\n\n" + PARAGRAPH_SAMPLE + "\n\n\n"
             + PARAGRAPH_SAMPLE;
     private final Array<BitmapFont> previewFonts;
-    private final ObjectMap<String, Drawable> drawablePairs;
-    private TextureAtlas atlas;
+    private Actor previewWidget;
+    private Object previewStyle;
+    private StyleData previewStyleData;
+    private TextureAtlas previewAtlas;
     private MenuItem undoButton;
     private MenuItem redoButton;
     private MenuItem recentFilesButton;
@@ -162,8 +164,8 @@ public class RootTable extends Table {
         
         scrollPaneListener = new ScrollPaneListener();
         previewFonts = new Array<>();
-        drawablePairs = new ObjectMap<>();
         
+        main.getAtlasData().getRegistry().obtain();
         produceAtlas();
         
         main.getStage().addListener(new ShortcutListener(this));
@@ -2117,9 +2119,15 @@ public class RootTable extends Table {
             previewTable.setBackground("white");
             previewTable.setColor((Color) getPreviewProperties().get("bgcolor"));
 
+            //the fonts stay loaded in the cache if they are used again
             for (BitmapFont font : getPreviewFonts()) {
-                font.dispose();
+                main.getProjectData().getFontCache().free(font);
             }
+            getPreviewFonts().clear();
+            
+            previewWidget = null;
+            previewStyle = null;
+            previewStyleData = null;
 
             if (classSelectBox.getSelectedIndex() >= 0 && classSelectBox.getSelectedIndex() < Main.BASIC_CLASSES.length) {
                 StyleData styleData = getSelectedStyle();
@@ -2312,6 +2320,14 @@ public class RootTable extends Table {
                     if (widget != null) {
 
                         updateSize(widget);
+                        
+                        //Window previews alter their style and TextTooltip previews show a skin Label
+                        previewStyle = clazz.equals(TextTooltip.class) ? null : getWidgetStyle(widget);
+                        if (previewStyle != null) {
+                            previewWidget = widget;
+                            previewStyleData = styleData;
+                            previewAtlas = getMain().getAtlasData().getRegistry().getAtlas();
+                        }
                     }
                 }
             } else {
@@ -2526,7 +2542,7 @@ public class RootTable extends Table {
                         for (FontData fd : getMain().getJsonData().getFonts()) {
                             if (fd.getName().equals(fontName)) {
                                 fontData = fd;
-                                font = new BitmapFont(fd.file);
+                                font = getMain().getProjectData().getFontCache().obtain(fd.file);
                                 getPreviewFonts().add(font);
                                 break;
                             }
@@ -2567,7 +2583,7 @@ public class RootTable extends Table {
                         }
 
                         if (drawable != null) {
-                            Image image = new Image(drawablePairs.get(drawable.name));
+                            Image image = new Image(getDrawablePairs().get(drawable.name));
                             container.setActor(image);
                         }
                         break;
@@ -2576,129 +2592,180 @@ public class RootTable extends Table {
         }
     }
     
-    @SuppressWarnings("finally")
-	public <T> T createPreviewStyle(Class<T> clazz, StyleData styleData) {
-        T returnValue = null;
+    /**
+     * Applies a single changed style property to the widget in the preview
+     * without rebuilding the widget or its layout. The full
+     * {@link #refreshPreview()} is used instead if the property is not a
+     * field of the previewed style, if it references another style or if
+     * the change alters what is displayed in place of the widget. Nothing is
+     * done here while a full refresh or an atlas update is already scheduled.
+     * @param styleProperty 
+     */
+    public void refreshPreviewProperty(StyleProperty styleProperty) {
+        RefreshScheduler refreshScheduler = main.getRefreshScheduler();
+        if (refreshScheduler.isPreviewPending() || refreshScheduler.isAtlasPending()
+                || previewWidget == null || previewStyleData != getSelectedStyle()
+                || !previewStyleData.properties.containsValue(styleProperty, true)
+                || previewAtlas != getMain().getAtlasData().getRegistry().getAtlas()
+                || !previewStyleData.hasMandatoryFields() || previewStyleData.hasAllNullFields()
+                || !(styleProperty.type == Drawable.class || styleProperty.type == Color.class
+                || styleProperty.type == BitmapFont.class || styleProperty.type == Float.TYPE)) {
+            refreshScheduler.invalidatePreview();
+            return;
+        }
+        
+        FieldAccessor field = StyleAccessor.get(previewStyle.getClass()).getField(styleProperty.name);
+        if (field == null) {
+            refreshScheduler.invalidatePreview();
+            return;
+        }
+        
         try {
-            returnValue = ClassReflection.newInstance(clazz);
-            Field[] fields = ClassReflection.getFields(clazz);
-            for (Field field : fields) {
-                Object value = styleData.getInheritedValue(field.getName());
-                if (value != null) {
-                    if (field.getType().equals(Drawable.class)) {
-                        field.set(returnValue, drawablePairs.get((String) value));
-                    } else if (field.getType().equals(Color.class)) {
-                        for (ColorData data : getMain().getProjectData().getJsonData().getColors()) {
-                            if (value.equals(data.getName())) {
-                                field.set(returnValue, data.color);
-                                break;
-                            }
-                        }
-                    } else if (field.getType().equals(BitmapFont.class)) {
-                        for (FontData data : getMain().getProjectData().getJsonData().getFonts()) {
-                            if (value.equals(data.getName())) {
-                                BitmapFont font = new BitmapFont(data.file);
-                                getPreviewFonts().add(font);
-                                field.set(returnValue, font);
-                            }
-                        }
-                        
-                        for (FreeTypeFontData data : getMain().getJsonData().getFreeTypeFonts()) {
-                            if (value.equals(data.name)) {
-                                field.set(returnValue, data.bitmapFont);
-                            }
-                        }
-                    } else if (field.getType().equals(Float.TYPE)) {
-                        field.set(returnValue, (float) value);
-                    } else if (field.getType().equals(ListStyle.class)) {
-                        Array<StyleData> datas = getMain().getProjectData().getJsonData().getClassStyleMap().get(List.class);
-
-                        for (StyleData data : datas) {
-                            if (value.equals(data.name)) {
-                                ListStyle style = createPreviewStyle(ListStyle.class, data);
-                                field.set(returnValue, style);
-                                break;
-                            }
-                        }
-                    } else if (field.getType().equals(ScrollPaneStyle.class)) {
-                        Array<StyleData> datas = getMain().getProjectData().getJsonData().getClassStyleMap().get(ScrollPane.class);
-
-                        for (StyleData data : datas) {
-                            if (value.equals(data.name)) {
-                                ScrollPaneStyle style = createPreviewStyle(ScrollPaneStyle.class, data);
-                                field.set(returnValue, style);
-                                break;
-                            }
-                        }
-                    } else if (field.getType().equals(LabelStyle.class)) {
-                        Array<StyleData> datas = getMain().getProjectData().getJsonData().getClassStyleMap().get(Label.class);
-
-                        for (StyleData data : datas) {
-                            if (value.equals(data.name)) {
-                                LabelStyle style = createPreviewStyle(LabelStyle.class, data);
-                                field.set(returnValue, style);
-                                break;
-                            }
-                        }
-                    }
-                }
+            Object oldValue = field.get(previewStyle);
+            field.set(previewStyle, field.getDefaultValue());
+            applyPreviewField(previewStyle, field, previewStyleData);
+            
+            if (oldValue instanceof BitmapFont && getPreviewFonts().removeValue((BitmapFont) oldValue, true)) {
+                main.getProjectData().getFontCache().free((BitmapFont) oldValue);
             }
-        } finally {
-            return returnValue;
+            
+            setWidgetStyle(previewWidget, previewStyle);
+        } catch (RuntimeException e) {
+            refreshScheduler.invalidatePreview();
+        }
+    }
+    
+    private Object getWidgetStyle(Actor widget) {
+        if (widget instanceof Button) {
+            return ((Button) widget).getStyle();
+        } else if (widget instanceof Label) {
+            return ((Label) widget).getStyle();
+        } else if (widget instanceof List) {
+            return ((List) widget).getStyle();
+        } else if (widget instanceof ProgressBar) {
+            return ((ProgressBar) widget).getStyle();
+        } else if (widget instanceof ScrollPane) {
+            return ((ScrollPane) widget).getStyle();
+        } else if (widget instanceof SelectBox) {
+            return ((SelectBox) widget).getStyle();
+        } else if (widget instanceof SplitPane) {
+            return ((SplitPane) widget).getStyle();
+        } else if (widget instanceof TextField) {
+            return ((TextField) widget).getStyle();
+        } else if (widget instanceof Touchpad) {
+            return ((Touchpad) widget).getStyle();
+        } else if (widget instanceof Tree) {
+            return ((Tree) widget).getStyle();
+        } else {
+            return null;
         }
     }
     
     /**
-     * Writes a TextureAtlas based on drawables list. Creates drawables to be
-     * displayed on screen
-     * @return 
+     * Sets the style again so that the widget picks up the changed field and
+     * invalidates its layout. Items and text of the widget are kept.
      */
-    public boolean produceAtlas() {
-        try {
-            if (atlas != null) {
-                atlas.dispose();
-                atlas = null;
-            }
-            
-            if (!getMain().getProjectData().getAtlasData().atlasCurrent) {
-                getMain().getProjectData().getAtlasData().writeAtlas();
-                getMain().getProjectData().getAtlasData().atlasCurrent = true;
+    private void setWidgetStyle(Actor widget, Object style) {
+        if (widget instanceof Button) {
+            ((Button) widget).setStyle((Button.ButtonStyle) style);
+        } else if (widget instanceof Label) {
+            ((Label) widget).setStyle((LabelStyle) style);
+        } else if (widget instanceof List) {
+            ((List) widget).setStyle((ListStyle) style);
+        } else if (widget instanceof ProgressBar) {
+            ((ProgressBar) widget).setStyle((ProgressBar.ProgressBarStyle) style);
+        } else if (widget instanceof ScrollPane) {
+            ((ScrollPane) widget).setStyle((ScrollPaneStyle) style);
+        } else if (widget instanceof SelectBox) {
+            ((SelectBox) widget).setStyle((SelectBox.SelectBoxStyle) style);
+        } else if (widget instanceof SplitPane) {
+            ((SplitPane) widget).setStyle((SplitPane.SplitPaneStyle) style);
+        } else if (widget instanceof TextField) {
+            ((TextField) widget).setStyle((TextFieldStyle) style);
+        } else if (widget instanceof Touchpad) {
+            ((Touchpad) widget).setStyle((Touchpad.TouchpadStyle) style);
+        } else if (widget instanceof Tree) {
+            ((Tree) widget).setStyle((Tree.TreeStyle) style);
+        }
+        widget.invalidateHierarchy();
+    }
+    
+    @SuppressWarnings("unchecked")
+	public <T> T createPreviewStyle(Class<T> clazz, StyleData styleData) {
+        StyleAccessor accessor = StyleAccessor.get(clazz);
+        T returnValue = (T) accessor.newInstance();
+        if (returnValue != null) {
+            try {
+                for (FieldAccessor field : accessor.getFields()) {
+                    applyPreviewField(returnValue, field, styleData);
+                }
+            } catch (RuntimeException e) {
+                Gdx.app.error(getClass().getName(), "Error creating preview style for " + styleData.name, e);
             }
-            atlas = getMain().getProjectData().getAtlasData().getAtlas();
-
-            for (DrawableData data : getMain().getProjectData().getAtlasData().getDrawables()) {
-                Drawable drawable;
-                if (data.customized) {
-                    drawable = getSkin().getDrawable("custom-drawable-skincomposer-image");
-                } else if (data.tiled) {
-                    String name = data.file.name();
-                    name = DrawableData.proper(name);
-                    drawable = new TiledDrawable(atlas.findRegion(name));
-                    drawable.setMinWidth(data.minWidth);
-                    drawable.setMinHeight(data.minHeight);
-                    ((TiledDrawable) drawable).getColor().set(getMain().getJsonData().getColorByName(data.tintName).color);
-                } else if (data.file.name().matches(".*\\.9\\.[a-zA-Z0-9]*$")) {
-                    String name = data.file.name();
-                    name = DrawableData.proper(name);
-                    drawable = new NinePatchDrawable(atlas.createPatch(name));
-                    if (data.tint != null) {
-                        drawable = ((NinePatchDrawable) drawable).tint(data.tint);
-                    } else if (data.tintName != null) {
-                        drawable = ((NinePatchDrawable) drawable).tint(getMain().getProjectData().getJsonData().getColorByName(data.tintName).color);
-                    }
-                } else {
-                    String name = data.file.name();
-                    name = DrawableData.proper(name);
-                    drawable = new SpriteDrawable(atlas.createSprite(name));
-                    if (data.tint != null) {
-                        drawable = ((SpriteDrawable) drawable).tint(data.tint);
-                    } else if (data.tintName != null) {
-                        drawable = ((SpriteDrawable) drawable).tint(getMain().getProjectData().getJsonData().getColorByName(data.tintName).color);
-                    }
+        }
+        return returnValue;
+    }
+    
+    /**
+     * Sets a field of a preview style to the value of the matching style
+     * property, taking inherited values into account.
+     */
+    private void applyPreviewField(Object target, FieldAccessor field, StyleData styleData) {
+        Object value = styleData.getInheritedValue(field.getName());
+        if (value != null) {
+            if (field.getType().equals(Drawable.class)) {
+                field.set(target, getDrawablePairs().get((String) value));
+            } else if (field.getType().equals(Color.class)) {
+                ColorData data = getMain().getProjectData().getJsonData().getColorByName((String) value);
+                if (data != null) {
+                    field.set(target, data.color);
+                }
+            } else if (field.getType().equals(BitmapFont.class)) {
+                FontData data = getMain().getProjectData().getJsonData().getFont((String) value);
+                if (data != null) {
+                    BitmapFont font = getMain().getProjectData().getFontCache().obtain(data.file);
+                    getPreviewFonts().add(font);
+                    field.set(target, font);
                 }
                 
-                drawablePairs.put(data.name, drawable);
+                FreeTypeFontData freeTypeData = getMain().getJsonData().getFreeTypeFont((String) value);
+                if (freeTypeData != null) {
+                    field.set(target, freeTypeData.bitmapFont);
+                }
+            } else if (field.getType().equals(Float.TYPE)) {
+                field.set(target, ((Number) value).floatValue());
+            } else if (field.getType().equals(ListStyle.class)) {
+                StyleData data = getMain().getProjectData().getJsonData().getStyle(List.class, (String) value);
+                if (data != null) {
+                    ListStyle style = createPreviewStyle(ListStyle.class, data);
+                    field.set(target, style);
+                }
+            } else if (field.getType().equals(ScrollPaneStyle.class)) {
+                StyleData data = getMain().getProjectData().getJsonData().getStyle(ScrollPane.class, (String) value);
+                if (data != null) {
+                    ScrollPaneStyle style = createPreviewStyle(ScrollPaneStyle.class, data);
+                    field.set(target, style);
+                }
+            } else if (field.getType().equals(LabelStyle.class)) {
+                StyleData data = getMain().getProjectData().getJsonData().getStyle(Label.class, (String) value);
+                if (data != null) {
+                    LabelStyle style = createPreviewStyle(LabelStyle.class, data);
+                    field.set(target, style);
+                }
             }
+        }
+    }
+    
+    /**
+     * Writes a TextureAtlas based on drawables list if the images have
+     * changed. Recreates the drawables to be displayed on screen.
+     * @return 
+     */
+    public boolean produceAtlas() {
+        try {
+            AtlasRegistry registry = getMain().getProjectData().getAtlasData().getRegistry();
+            registry.invalidate();
+            registry.update();
             return true;
         } catch (Exception e) {
             Gdx.app.error(getClass().getName(), "Error while attempting to generate drawables.", e);
@@ -2707,6 +2774,54 @@ public class RootTable extends Table {
         }
     }
     
+    /**
+     * Packs the preview atlas on a worker thread and populates the table once
+     * the drawables are ready. Used after loading a project so the editor
+     * stays responsive while large projects are packed. A progress dialog
+     * covers the table until then, so nothing is shown or edited with the
+     * drawables of the previous project.
+     */
+    public void produceAtlasAsync() {
+        AtlasRegistry registry = getMain().getProjectData().getAtlasData().getRegistry();
+        DialogLoading dialog = getMain().getDialogFactory().showDialogProgress();
+        registry.invalidate();
+        registry.updateAsync(new AtlasRegistry.AtlasListener() {
+            @Override
+            public void progress(String message) {
+                dialog.setProgress(message);
+            }
+
+            @Override
+            public void completed() {
+                dialog.finish();
+                populate();
+            }
+
+            @Override
+            public void cancelled() {
+                dialog.finish();
+                populate();
+            }
+
+            @Override
+            public void failed(Exception e) {
+                dialog.finish();
+                populate();
+                Gdx.app.error(getClass().getName(), "Error while attempting to generate drawables.", e);
+                getMain().getDialogFactory().showDialogError("Atlas Error...", "Error while attempting to generate drawables.\n\nOpen log?");
+            }
+
+            @Override
+            public void superseded() {
+                dialog.finish();
+                //a synchronous update has already replaced the atlas, a newer async one populates when it is done
+                if (!registry.isUpdating()) {
+                    populate();
+                }
+            }
+        });
+    }
+    
     private void addStatusBar() {
         Table table = new Table();
         table.setBackground(getSkin().getDrawable("status-bar"));
@@ -3009,7 +3124,7 @@ public class RootTable extends Table {
     }
 
     public ObjectMap<String, Drawable> getDrawablePairs() {
-        return drawablePairs;
+        return main.getAtlasData().getRegistry().getDrawablesByName();
     }
 
 	public Array<BitmapFont> getPreviewFonts() {
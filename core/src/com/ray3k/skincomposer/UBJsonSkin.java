@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * MIT License
+ * 
+ * Copyright (c) 2018 Raymond Buckley
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.ray3k.skincomposer;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.scenes.scene2d.ui.Skin;
+import com.badlogic.gdx.utils.SerializationException;
+import com.badlogic.gdx.utils.UBJsonReader;
+
+/**
+ * A Skin that also loads skins exported in the binary UBJSON format. Files
+ * with the "ubj" extension are read with UBJsonReader, anything else is read
+ * as JSON. Copy this class into your project to load binary skins.
+ * @author Raymond
+ */
+public class UBJsonSkin extends Skin {
+
+    public UBJsonSkin() {
+    }
+
+    public UBJsonSkin(FileHandle skinFile) {
+        super(skinFile);
+    }
+
+    public UBJsonSkin(FileHandle skinFile, TextureAtlas atlas) {
+        super(skinFile, atlas);
+    }
+
+    public UBJsonSkin(TextureAtlas atlas) {
+        super(atlas);
+    }
+
+    @Override
+    public void load(FileHandle skinFile) {
+        if (skinFile.extension().equalsIgnoreCase("ubj")) {
+            try {
+                getJsonLoader(skinFile).readValue(Skin.class, new UBJsonReader().parse(skinFile));
+            } catch (SerializationException ex) {
+                throw new SerializationException("Error reading file: " + skinFile, ex);
+            }
+        } else {
+            super.load(skinFile);
+        }
+    }
+}
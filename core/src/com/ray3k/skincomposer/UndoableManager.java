@@ -143,21 +143,21 @@ public class UndoableManager {
             this.newValue = newValue;
             this.main = main;
             
-            property.value = newValue;
+            property.setValue(newValue);
         }
         
         @Override
         public void undo() {
-            property.value = oldValue;
-            main.getRootTable().refreshStyleProperties(true);
-            main.getRootTable().refreshPreview();
+            property.setValue(oldValue);
+            main.getRefreshScheduler().invalidateStyleProperties(true);
+            main.getRootTable().refreshPreviewProperty(property);
         }
 
         @Override
         public void redo() {
-            property.value = newValue;
-            main.getRootTable().refreshStyleProperties(true);
-            main.getRootTable().refreshPreview();
+            property.setValue(newValue);
+            main.getRefreshScheduler().invalidateStyleProperties(true);
+            main.getRootTable().refreshPreviewProperty(property);
         }
 
         @Override
@@ -179,21 +179,21 @@ public class UndoableManager {
             this.main = main;
             
             property.setValue(newValue);
-            main.getRootTable().refreshPreview();
+            main.getRefreshScheduler().invalidatePreview();
         }
         
         @Override
         public void undo() {
             property.setValue(oldValue);
-            main.getRootTable().refreshStyleProperties(true);
-            main.getRootTable().refreshPreview();
+            main.getRefreshScheduler().invalidateStyleProperties(true);
+            main.getRefreshScheduler().invalidatePreview();
         }
 
         @Override
         public void redo() {
             property.setValue(newValue);
-            main.getRootTable().refreshStyleProperties(true);
-            main.getRootTable().refreshPreview();
+            main.getRefreshScheduler().invalidateStyleProperties(true);
+            main.getRefreshScheduler().invalidatePreview();
         }
 
         @Override
@@ -215,21 +215,21 @@ public class UndoableManager {
             this.main = main;
             
             property.setValue(newValue);
-            main.getRootTable().refreshPreview();
+            main.getRefreshScheduler().invalidatePreview();
         }
         
         @Override
         public void undo() {
             property.setValue(oldValue);
-            main.getRootTable().refreshStyleProperties(true);
-            main.getRootTable().refreshPreview();
+            main.getRefreshScheduler().invalidateStyleProperties(true);
+            main.getRefreshScheduler().invalidatePreview();
         }
 
         @Override
         public void redo() {
             property.setValue(newValue);
-            main.getRootTable().refreshStyleProperties(true);
-            main.getRootTable().refreshPreview();
+            main.getRefreshScheduler().invalidateStyleProperties(true);
+            main.getRefreshScheduler().invalidatePreview();
         }
 
         @Override
@@ -251,21 +251,21 @@ public class UndoableManager {
             this.main = main;
             
             property.setValue(newValue);
-            main.getRootTable().refreshPreview();
+            main.getRefreshScheduler().invalidatePreview();
         }
         
         @Override
         public void undo() {
             property.setValue(oldValue);
-            main.getRootTable().refreshStyleProperties(true);
-            main.getRootTable().refreshPreview();
+            main.getRefreshScheduler().invalidateStyleProperties(true);
+            main.getRefreshScheduler().invalidatePreview();
         }
 
         @Override
         public void redo() {
             property.setValue(newValue);
-            main.getRootTable().refreshStyleProperties(true);
-            main.getRootTable().refreshPreview();
+            main.getRefreshScheduler().invalidateStyleProperties(true);
+            main.getRefreshScheduler().invalidatePreview();
         }
 
         @Override
@@ -289,15 +289,15 @@ public class UndoableManager {
         @Override
         public void undo() {
             property.setValue(oldValue);
-            main.getRootTable().refreshStyleProperties(true);
-            main.getRootTable().refreshPreview();
+            main.getRefreshScheduler().invalidateStyleProperties(true);
+            main.getRefreshScheduler().invalidatePreview();
         }
     
         @Override
         public void redo() {
             property.setValue(newValue);
-            main.getRootTable().refreshStyleProperties(true);
-            main.getRootTable().refreshPreview();
+            main.getRefreshScheduler().invalidateStyleProperties(true);
+            main.getRefreshScheduler().invalidatePreview();
         }
 
         @Override
@@ -322,22 +322,22 @@ public class UndoableManager {
 
         @Override
         public void undo() {
-            rootTable.produceAtlas();
+            rootTable.getMain().getRefreshScheduler().invalidateAtlas();
             if (oldValue == null || atlasData.getDrawable((String) oldValue) != null) {
-                property.value = oldValue;
+                property.setValue(oldValue);
             }
-            rootTable.refreshStyleProperties(true);
-            rootTable.refreshPreview();
+            rootTable.getMain().getRefreshScheduler().invalidateStyleProperties(true);
+            rootTable.refreshPreviewProperty(property);
         }
 
         @Override
         public void redo() {
-            rootTable.produceAtlas();
+            rootTable.getMain().getRefreshScheduler().invalidateAtlas();
             if (newValue == null || atlasData.getDrawable((String) newValue) != null) {
-                property.value = newValue;
+                property.setValue(newValue);
             }
-            rootTable.refreshStyleProperties(true);
-            rootTable.refreshPreview();
+            rootTable.getMain().getRefreshScheduler().invalidateStyleProperties(true);
+            rootTable.refreshPreviewProperty(property);
         }
 
         @Override
@@ -361,22 +361,22 @@ public class UndoableManager {
 
         @Override
         public void undo() {
-            main.getRootTable().produceAtlas();
+            main.getRefreshScheduler().invalidateAtlas();
             if (oldValue == null || main.getAtlasData().getDrawable(oldValue) != null) {
                 property.setValue(oldValue);
             }
-            main.getRootTable().refreshStyleProperties(true);
-            main.getRootTable().refreshPreview();
+            main.getRefreshScheduler().invalidateStyleProperties(true);
+            main.getRefreshScheduler().invalidatePreview();
         }
 
         @Override
         public void redo() {
-            main.getRootTable().produceAtlas();
+            main.getRefreshScheduler().invalidateAtlas();
             if (newValue == null || main.getAtlasData().getDrawable(newValue) != null) {
                 property.setValue(newValue);
             }
-            main.getRootTable().refreshStyleProperties(true);
-            main.getRootTable().refreshPreview();
+            main.getRefreshScheduler().invalidateStyleProperties(true);
+            main.getRefreshScheduler().invalidatePreview();
         }
 
         @Override
@@ -403,33 +403,33 @@ public class UndoableManager {
         @Override
         public void undo() {
             if (oldValue == null) {
-                property.value = oldValue;
+                property.setValue(oldValue);
             } else {
                 for (ColorData color : jsonData.getColors()) {
                     if (color.getName().equals((String) oldValue)) {
-                        property.value = oldValue;
+                        property.setValue(oldValue);
                         break;
                     }
                 }
             }
-            rootTable.refreshStyleProperties(true);
-            rootTable.refreshPreview();
+            rootTable.getMain().getRefreshScheduler().invalidateStyleProperties(true);
+            rootTable.refreshPreviewProperty(property);
         }
 
         @Override
         public void redo() {
             if (newValue == null) {
-                property.value = newValue;
+                property.setValue(newValue);
             } else {
                 for (ColorData color : jsonData.getColors()) {
                     if (color.getName().equals((String) newValue)) {
-                        property.value = newValue;
+                        property.setValue(newValue);
                         break;
                     }
                 }
             }
-            rootTable.refreshStyleProperties(true);
-            rootTable.refreshPreview();
+            rootTable.getMain().getRefreshScheduler().invalidateStyleProperties(true);
+            rootTable.refreshPreviewProperty(property);
         }
 
         @Override
@@ -462,8 +462,8 @@ public class UndoableManager {
                     }
                 }
             }
-            main.getRootTable().refreshStyleProperties(true);
-            main.getRootTable().refreshPreview();
+            main.getRefreshScheduler().invalidateStyleProperties(true);
+            main.getRefreshScheduler().invalidatePreview();
         }
 
         @Override
@@ -478,8 +478,8 @@ public class UndoableManager {
                     }
                 }
             }
-            main.getRootTable().refreshStyleProperties(true);
-            main.getRootTable().refreshPreview();
+            main.getRefreshScheduler().invalidateStyleProperties(true);
+            main.getRefreshScheduler().invalidatePreview();
         }
 
         @Override
@@ -505,47 +505,47 @@ public class UndoableManager {
         @Override
         public void undo() {
             if (oldValue == null) {
-                property.value = oldValue;
+                property.setValue(oldValue);
             } else {
                 for (FontData font : jsonData.getFonts()) {
                     if (font.getName().equals((String) oldValue)) {
-                        property.value = oldValue;
+                        property.setValue(oldValue);
                         break;
                     }
                 }
                 
                 for (FreeTypeFontData font : jsonData.getFreeTypeFonts()) {
                     if (font.name.equals((String) oldValue)) {
-                        property.value = oldValue;
+                        property.setValue(oldValue);
                         break;
                     }
                 }
             }
-            rootTable.refreshStyleProperties(true);
-            rootTable.refreshPreview();
+            rootTable.getMain().getRefreshScheduler().invalidateStyleProperties(true);
+            rootTable.refreshPreviewProperty(property);
         }
     
         @Override
         public void redo() {
             if (newValue == null) {
-                property.value = newValue;
+                property.setValue(newValue);
             } else {
                 for (FontData font : jsonData.getFonts()) {
                     if (font.getName().equals((String) newValue)) {
-                        property.value = newValue;
+                        property.setValue(newValue);
                         break;
                     }
                 }
                 
                 for (FreeTypeFontData font : jsonData.getFreeTypeFonts()) {
                     if (font.name.equals((String) newValue)) {
-                        property.value = newValue;
+                        property.setValue(newValue);
                         break;
                     }
                 }
             }
-            rootTable.refreshStyleProperties(true);
-            rootTable.refreshPreview();
+            rootTable.getMain().getRefreshScheduler().invalidateStyleProperties(true);
+            rootTable.refreshPreviewProperty(property);
         }
 
         @Override
@@ -585,8 +585,8 @@ public class UndoableManager {
                     }
                 }
             }
-            main.getRootTable().refreshStyleProperties(true);
-            main.getRootTable().refreshPreview();
+            main.getRefreshScheduler().invalidateStyleProperties(true);
+            main.getRefreshScheduler().invalidatePreview();
         }
     
         @Override
@@ -608,8 +608,8 @@ public class UndoableManager {
                     }
                 }
             }
-            main.getRootTable().refreshStyleProperties(true);
-            main.getRootTable().refreshPreview();
+            main.getRefreshScheduler().invalidateStyleProperties(true);
+            main.getRefreshScheduler().invalidatePreview();
         }
 
         @Override
@@ -635,16 +635,16 @@ public class UndoableManager {
 
         @Override
         public void undo() {
-            property.value = oldValue;
-            rootTable.refreshStyleProperties(true);
-            rootTable.refreshPreview();
+            property.setValue(oldValue);
+            rootTable.getMain().getRefreshScheduler().invalidateStyleProperties(true);
+            rootTable.getMain().getRefreshScheduler().invalidatePreview();
         }
 
         @Override
         public void redo() {
-            property.value = newValue;
-            rootTable.refreshStyleProperties(true);
-            rootTable.refreshPreview();
+            property.setValue(newValue);
+            rootTable.getMain().getRefreshScheduler().invalidateStyleProperties(true);
+            rootTable.getMain().getRefreshScheduler().invalidatePreview();
         }
 
         @Override
@@ -673,16 +673,16 @@ public class UndoableManager {
 
         @Override
         public void undo() {
-            style.parent = oldValue;
-            rootTable.refreshStyleProperties(true);
-            rootTable.refreshPreview();
+            style.setParent(oldValue);
+            rootTable.getMain().getRefreshScheduler().invalidateStyleProperties(true);
+            rootTable.getMain().getRefreshScheduler().invalidatePreview();
         }
 
         @Override
         public void redo() {
-            style.parent = newValue;
-            rootTable.refreshStyleProperties(true);
-            rootTable.refreshPreview();
+            style.setParent(newValue);
+            rootTable.getMain().getRefreshScheduler().invalidateStyleProperties(true);
+            rootTable.getMain().getRefreshScheduler().invalidatePreview();
         }
 
         @Override
@@ -706,13 +706,13 @@ public class UndoableManager {
         @Override
         public void undo() {
             main.getJsonData().deleteStyle(styleData);
-            main.getRootTable().refreshStyles(true);
+            main.getRefreshScheduler().invalidateStyles(true);
         }
 
         @Override
         public void redo() {
             styleData = main.getJsonData().newStyle(selectedClass, name);
-            main.getRootTable().refreshStyles(true);
+            main.getRefreshScheduler().invalidateStyles(true);
         }
 
         @Override
@@ -736,13 +736,13 @@ public class UndoableManager {
         @Override
         public void undo() {
             main.getJsonData().deleteStyle(styleData);
-            main.getRootTable().refreshStyles(true);
+            main.getRefreshScheduler().invalidateStyles(true);
         }
 
         @Override
         public void redo() {
             styleData = main.getJsonData().copyStyle(originalStyle, name);
-            main.getRootTable().refreshStyles(true);
+            main.getRefreshScheduler().invalidateStyles(true);
         }
 
         @Override
@@ -763,13 +763,13 @@ public class UndoableManager {
         @Override
         public void undo() {
             main.getJsonData().copyStyle(styleData, styleData.name);
-            main.getRootTable().refreshStyles(true);
+            main.getRefreshScheduler().invalidateStyles(true);
         }
 
         @Override
         public void redo() {
             main.getJsonData().deleteStyle(styleData);
-            main.getRootTable().refreshStyles(true);
+            main.getRefreshScheduler().invalidateStyles(true);
         }
 
         @Override
@@ -794,17 +794,11 @@ public class UndoableManager {
         
         @Override
         public void undo() {
-            styleData.name = oldName;
+            styleData.invalidate();
+            main.getJsonData().renameStyle(styleData, oldName);
+            styleData.invalidate();
             
-            for (Array<StyleData> styles : main.getJsonData().getClassStyleMap().values()) {
-                for (StyleData style : styles) {
-                    for (StyleProperty styleProperty : style.properties.values()) {
-                        if (styleProperty.type.equals(Main.basicToStyleClass(styleData.clazz)) && styleProperty.value.equals(newName)) {
-                            styleProperty.value = oldName;
-                        }
-                    }
-                }
-            }
+            main.getJsonData().getReferenceIndex().rename(Main.basicToStyleClass(styleData.clazz), newName, oldName);
             
             main.getRootTable().refreshStyles(false);
             main.getRootTable().getStyleSelectBox().setSelected(styleData);
@@ -812,17 +806,11 @@ public class UndoableManager {
 
         @Override
         public void redo() {
-            styleData.name = newName;
+            styleData.invalidate();
+            main.getJsonData().renameStyle(styleData, newName);
+            styleData.invalidate();
             
-            for (Array<StyleData> styles : main.getJsonData().getClassStyleMap().values()) {
-                for (StyleData style : styles) {
-                    for (StyleProperty styleProperty : style.properties.values()) {
-                        if (styleProperty.type.equals(Main.basicToStyleClass(styleData.clazz)) && styleProperty.value.equals(oldName)) {
-                            styleProperty.value = newName;
-                        }
-                    }
-                }
-            }
+            main.getJsonData().getReferenceIndex().rename(Main.basicToStyleClass(styleData.clazz), oldName, newName);
             
             main.getRootTable().refreshStyles(false);
             main.getRootTable().getStyleSelectBox().setSelected(styleData);
@@ -851,15 +839,15 @@ public class UndoableManager {
         
         @Override
         public void undo() {
-            main.getJsonData().getCustomClasses().removeValue(customClass, true);
-            main.getRootTable().refreshPreview();
+            main.getJsonData().removeCustomClass(customClass);
+            main.getRefreshScheduler().invalidatePreview();
         }
 
         @Override
         public void redo() {
-            main.getJsonData().getCustomClasses().add(customClass);
-            main.getRootTable().refreshClasses(true);
-            main.getRootTable().refreshPreview();
+            main.getJsonData().addCustomClass(customClass);
+            main.getRefreshScheduler().invalidateClasses(true);
+            main.getRefreshScheduler().invalidatePreview();
         }
 
         @Override
@@ -894,8 +882,8 @@ public class UndoableManager {
             customClass.setDisplayName(oldName);
             customClass.setFullyQualifiedName(oldFullyQualifiedName);
             customClass.setDeclareAfterUIclasses(oldDeclareAfterUIclasses);
-            main.getRootTable().refreshClasses(false);
-            main.getRootTable().refreshPreview();
+            main.getRefreshScheduler().invalidateClasses(false);
+            main.getRefreshScheduler().invalidatePreview();
         }
 
         @Override
@@ -903,8 +891,8 @@ public class UndoableManager {
             customClass.setDisplayName(displayName);
             customClass.setFullyQualifiedName(fullyQualifiedName);
             customClass.setDeclareAfterUIclasses(declareAfterUIclasses);
-            main.getRootTable().refreshClasses(false);
-            main.getRootTable().refreshPreview();
+            main.getRefreshScheduler().invalidateClasses(false);
+            main.getRefreshScheduler().invalidatePreview();
         }
 
         @Override
@@ -925,16 +913,16 @@ public class UndoableManager {
         
         @Override
         public void undo() {
-            main.getJsonData().getCustomClasses().add(customClass);
-            main.getRootTable().refreshClasses(false);
-            main.getRootTable().refreshPreview();
+            main.getJsonData().addCustomClass(customClass);
+            main.getRefreshScheduler().invalidateClasses(false);
+            main.getRefreshScheduler().invalidatePreview();
         }
 
         @Override
         public void redo() {
-            main.getJsonData().getCustomClasses().removeValue(customClass, true);
-            main.getRootTable().refreshClasses(false);
-            main.getRootTable().refreshPreview();
+            main.getJsonData().removeCustomClass(customClass);
+            main.getRefreshScheduler().invalidateClasses(false);
+            main.getRefreshScheduler().invalidatePreview();
         }
 
         @Override
@@ -963,16 +951,16 @@ public class UndoableManager {
         
         @Override
         public void undo() {
-            main.getJsonData().getCustomClasses().removeValue(customClass, true);
-            main.getRootTable().refreshClasses(true);
-            main.getRootTable().refreshPreview();
+            main.getJsonData().removeCustomClass(customClass);
+            main.getRefreshScheduler().invalidateClasses(true);
+            main.getRefreshScheduler().invalidatePreview();
         }
 
         @Override
         public void redo() {
-            main.getJsonData().getCustomClasses().add(customClass);
-            main.getRootTable().refreshClasses(true);
-            main.getRootTable().refreshPreview();
+            main.getJsonData().addCustomClass(customClass);
+            main.getRefreshScheduler().invalidateClasses(true);
+            main.getRefreshScheduler().invalidatePreview();
         }
 
         @Override
@@ -998,33 +986,29 @@ public class UndoableManager {
         
         @Override
         public void undo() {
-            customClass.getTemplateStyle().getProperties().removeValue(customProperty, true);
+            customClass.getTemplateStyle().removeProperty(customProperty);
 
             for (CustomStyle style : customClass.getStyles()) {
-                Iterator<CustomProperty> iter = style.getProperties().iterator();
-                while (iter.hasNext()) {
-                    CustomProperty property = iter.next();
+                for (CustomProperty property : new Array<>(style.getProperties())) {
                     if (property.getName().equals(customProperty.getName())) {
-                        iter.remove();
+                        style.removeProperty(property);
                     }
                 }
             }
             
-            main.getRootTable().refreshStyleProperties(true);
-            main.getRootTable().refreshPreview();
+            main.getRefreshScheduler().invalidateStyleProperties(true);
+            main.getRefreshScheduler().invalidatePreview();
         }
 
         @Override
         public void redo() {
-            customClass.getTemplateStyle().getProperties().add(customProperty);
+            customClass.getTemplateStyle().addProperty(customProperty);
 
             for (CustomStyle style : customClass.getStyles()) {
-                CustomProperty property = customProperty.copy();
-                property.setParentStyle(style);
-                style.getProperties().add(property);
+                style.addProperty(customProperty.copy());
             }
-            main.getRootTable().refreshStyleProperties(true);
-            main.getRootTable().refreshPreview();
+            main.getRefreshScheduler().invalidateStyleProperties(true);
+            main.getRefreshScheduler().invalidatePreview();
         }
 
         @Override
@@ -1051,32 +1035,30 @@ public class UndoableManager {
         
         @Override
         public void undo() {
-            customClass.getTemplateStyle().getProperties().removeValue(customProperty, true);
+            customClass.getTemplateStyle().removeProperty(customProperty);
 
             for (com.ray3k.skincomposer.data.CustomStyle style : customClass.getStyles()) {
-                Iterator<CustomProperty> iter = style.getProperties().iterator();
-                while (iter.hasNext()) {
-                    CustomProperty property = iter.next();
+                for (CustomProperty property : new Array<>(style.getProperties())) {
                     if (property.getName().equals(customProperty.getName())) {
-                        iter.remove();
+                        style.removeProperty(property);
                     }
                 }
             }
             
-            main.getRootTable().refreshStyleProperties(true);
-            main.getRootTable().refreshPreview();
+            main.getRefreshScheduler().invalidateStyleProperties(true);
+            main.getRefreshScheduler().invalidatePreview();
         }
 
         @Override
         public void redo() {
-            customClass.getTemplateStyle().getProperties().add(customProperty);
+            customClass.getTemplateStyle().addProperty(customProperty);
 
             for (com.ray3k.skincomposer.data.CustomStyle style : customClass.getStyles()) {
-                style.getProperties().add(customProperty.copy());
+                style.addProperty(customProperty.copy());
             }
             
-            main.getRootTable().refreshStyleProperties(true);
-            main.getRootTable().refreshPreview();
+            main.getRefreshScheduler().invalidateStyleProperties(true);
+            main.getRefreshScheduler().invalidatePreview();
         }
 
         @Override
@@ -1122,8 +1104,8 @@ public class UndoableManager {
                 }
             }
             
-            main.getRootTable().refreshStyleProperties(true);
-            main.getRootTable().refreshPreview();
+            main.getRefreshScheduler().invalidateStyleProperties(true);
+            main.getRefreshScheduler().invalidatePreview();
         }
 
         @Override
@@ -1141,8 +1123,8 @@ public class UndoableManager {
                 }
             }
 
-            main.getRootTable().refreshStyleProperties(true);
-            main.getRootTable().refreshPreview();
+            main.getRefreshScheduler().invalidateStyleProperties(true);
+            main.getRefreshScheduler().invalidatePreview();
         }
 
         @Override
@@ -1166,14 +1148,14 @@ public class UndoableManager {
         
         @Override
         public void undo() {
-            customClass.getTemplateStyle().getProperties().add(customProperty);
+            customClass.getTemplateStyle().addProperty(customProperty);
 
             for (com.ray3k.skincomposer.data.CustomStyle style : customClass.getStyles()) {
-                style.getProperties().add(customProperty.copy());
+                style.addProperty(customProperty.copy());
             }
             
-            main.getRootTable().refreshStyleProperties(true);
-            main.getRootTable().refreshPreview();
+            main.getRefreshScheduler().invalidateStyleProperties(true);
+            main.getRefreshScheduler().invalidatePreview();
         }
         
         @Override
@@ -1182,17 +1164,15 @@ public class UndoableManager {
             styles.add(customClass.getTemplateStyle());
 
             for (com.ray3k.skincomposer.data.CustomStyle style : styles) {
-                Iterator<CustomProperty> iter = style.getProperties().iterator();
-                while (iter.hasNext()) {
-                    CustomProperty property = iter.next();
+                for (CustomProperty property : new Array<>(style.getProperties())) {
                     if (property.getName().equals(customProperty.getName())) {
-                        iter.remove();
+                        style.removeProperty(property);
                     }
                 }
             }
             
-            main.getRootTable().refreshStyleProperties(true);
-            main.getRootTable().refreshPreview();
+            main.getRefreshScheduler().invalidateStyleProperties(true);
+            main.getRefreshScheduler().invalidatePreview();
         }
 
         @Override
@@ -1216,17 +1196,17 @@ public class UndoableManager {
         
         @Override
         public void undo() {
-            parent.getStyles().removeValue(style, true);
-            main.getRootTable().refreshStyles(true);
-            main.getRootTable().refreshPreview();
+            parent.removeStyle(style);
+            main.getRefreshScheduler().invalidateStyles(true);
+            main.getRefreshScheduler().invalidatePreview();
         }
 
         @Override
         public void redo() {
-            parent.getStyles().add(style);
+            parent.addStyle(style);
             main.getRootTable().getClassSelectBox().setSelected(parent);
-            main.getRootTable().refreshStyles(true);
-            main.getRootTable().refreshPreview();
+            main.getRefreshScheduler().invalidateStyles(true);
+            main.getRefreshScheduler().invalidatePreview();
         }
 
         @Override
@@ -1249,17 +1229,17 @@ public class UndoableManager {
         
         @Override
         public void undo() {
-            style.getParentClass().getStyles().removeValue(style, true);
-            main.getRootTable().refreshStyles(true);
-            main.getRootTable().refreshPreview();
+            style.getParentClass().removeStyle(style);
+            main.getRefreshScheduler().invalidateStyles(true);
+            main.getRefreshScheduler().invalidatePreview();
         }
 
         @Override
         public void redo() {
-            style.getParentClass().getStyles().add(style);
+            style.getParentClass().addStyle(style);
             main.getRootTable().getClassSelectBox().setSelected(style.getParentClass());
-            main.getRootTable().refreshStyles(true);
-            main.getRootTable().refreshPreview();
+            main.getRefreshScheduler().invalidateStyles(true);
+            main.getRefreshScheduler().invalidatePreview();
         }
 
         @Override
@@ -1280,17 +1260,17 @@ public class UndoableManager {
         
         @Override
         public void undo() {
-            style.getParentClass().getStyles().add(style);
+            style.getParentClass().addStyle(style);
             main.getRootTable().getClassSelectBox().setSelected(style.getParentClass());
-            main.getRootTable().refreshStyles(true);
-            main.getRootTable().refreshPreview();
+            main.getRefreshScheduler().invalidateStyles(true);
+            main.getRefreshScheduler().invalidatePreview();
         }
 
         @Override
         public void redo() {
-            style.getParentClass().getStyles().removeValue(style, true);
-            main.getRootTable().refreshStyles(true);
-            main.getRootTable().refreshPreview();
+            style.getParentClass().removeStyle(style);
+            main.getRefreshScheduler().invalidateStyles(true);
+            main.getRefreshScheduler().invalidatePreview();
         }
 
         @Override
@@ -1315,17 +1295,17 @@ public class UndoableManager {
         @Override
         public void undo() {
             style.setName(oldName);
-            style.getParentClass().getStyles().removeValue(style, true);
-            main.getRootTable().refreshStyles(true);
-            main.getRootTable().refreshPreview();
+            style.getParentClass().removeStyle(style);
+            main.getRefreshScheduler().invalidateStyles(true);
+            main.getRefreshScheduler().invalidatePreview();
         }
 
         @Override
         public void redo() {
             style.setName(name);
             main.getRootTable().getClassSelectBox().setSelected(style.getParentClass());
-            main.getRootTable().refreshStyles(true);
-            main.getRootTable().refreshPreview();
+            main.getRefreshScheduler().invalidateStyles(true);
+            main.getRefreshScheduler().invalidatePreview();
         }
 
         @Override
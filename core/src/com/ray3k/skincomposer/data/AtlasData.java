@@ -25,52 +25,99 @@ package com.ray3k.skincomposer.data;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.files.FileHandle;
-import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.graphics.PixmapIO;
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.TextureAtlas;
-import com.badlogic.gdx.graphics.g2d.TextureAtlas.AtlasRegion;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas.TextureAtlasData;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas.TextureAtlasData.Page;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas.TextureAtlasData.Region;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectMap;
 import com.ray3k.skincomposer.Main;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FilenameFilter;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class AtlasData implements Json.Serializable {
     public boolean atlasCurrent = false;
     private Array<DrawableData> drawables;
     private Main main;
+    private final IncrementalAtlasPacker packer;
+    private final Object packerLock = new Object();
+    private final AtlasRegistry registry;
+    private volatile int atlasVersion;
+    private final NameIndex<DrawableData> drawableIndex = new NameIndex<>(drawable -> drawable.name);
     
     public AtlasData() {
         drawables = new Array<>();
+        packer = new IncrementalAtlasPacker();
+        registry = new AtlasRegistry(this);
     }
 
     public void setMain(Main main) {
         this.main = main;
+        registry.setMain(main);
     }
     
     public void clear() {
         drawables.clear();
+        drawableIndex.invalidate();
         atlasCurrent = false;
     }
 
+    /**
+     * The drawables of the project. Add, remove and rename drawables through
+     * the methods of AtlasData so that they can be found by name.
+     * @return 
+     */
     public Array<DrawableData> getDrawables() {
         return drawables;
     }
     
-    public DrawableData getDrawable(String name) {
-        DrawableData returnValue = null;
-        for (DrawableData data : drawables) {
-            if (data.name.equals(name)) {
-                returnValue = data;
-                break;
-            }
+    /**
+     * Replaces the drawables, for example when restoring a backup.
+     * @param drawables 
+     */
+    public void setDrawables(Array<DrawableData> drawables) {
+        this.drawables.clear();
+        this.drawables.addAll(drawables);
+        drawableIndex.invalidate();
+    }
+    
+    /**
+     * Rebuilds the name lookup on its next use. Called after the drawables
+     * were changed in bulk.
+     */
+    void invalidateNameIndex() {
+        drawableIndex.invalidate();
+    }
+    
+    public void addDrawable(DrawableData drawable) {
+        drawables.add(drawable);
+        drawableIndex.added(drawable);
+    }
+    
+    public void removeDrawable(DrawableData drawable) {
+        if (drawables.removeValue(drawable, true)) {
+            drawableIndex.removed(drawable);
         }
-        
-        return returnValue;
+    }
+    
+    public void renameDrawable(DrawableData drawable, String name) {
+        String oldName = drawable.name;
+        drawable.name = name;
+        drawableIndex.renamed(drawable, oldName);
+    }
+    
+    public DrawableData getDrawable(String name) {
+        return drawableIndex.get(drawables, name);
     }
     
     public void readAtlas(FileHandle fileHandle) throws Exception {
@@ -85,131 +132,227 @@ public class AtlasData implements Json.Serializable {
             
             targetDirectory.mkdirs();
             
-            TextureAtlas atlas = new TextureAtlas(fileHandle);
-            Array<AtlasRegion> regions = atlas.getRegions();
+            //read the atlas description without uploading any textures
+            TextureAtlasData atlasData = new TextureAtlasData(fileHandle, fileHandle.parent(), false);
+            ObjectMap<Page, Pixmap> pagePixmaps = new ObjectMap<>();
             
-            for (AtlasRegion region : regions) {
-                Texture texture = region.getTexture();
-                if (!texture.getTextureData().isPrepared()) {
-                    texture.getTextureData().prepare();
-                }
-                
-                Pixmap pixmap = texture.getTextureData().consumePixmap();
-                pixmap.setBlending(Pixmap.Blending.None);
-                Pixmap savePixmap;
-                String name;
-                
-                if (region.splits == null && region.pads == null) {
-                    name = region.name + ".png";
-                    savePixmap = new Pixmap(region.getRegionWidth(), region.getRegionHeight(), Pixmap.Format.RGBA8888);
-                    savePixmap.setBlending(Pixmap.Blending.None);
-                    for (int x = 0; x < region.getRegionWidth(); x++) {
-                        for (int y = 0; y < region.getRegionHeight(); y++) {
-                            int colorInt = pixmap.getPixel(region.getRegionX() + x, region.getRegionY() + y);
-                            savePixmap.drawPixel(x, y, colorInt);
-                        }
+            //regions are copied on this thread, PNG encoding is done in parallel
+            ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+            Array<Future<DrawableData>> futures = new Array<>();
+            
+            try {
+                for (Region region : atlasData.getRegions()) {
+                    //decode every page only once
+                    Pixmap pixmap = pagePixmaps.get(region.page);
+                    if (pixmap == null) {
+                        pixmap = loadPagePixmap(region.page.textureFile);
+                        pagePixmaps.put(region.page, pixmap);
                     }
-                } else {
-                    name = region.name + ".9.png";
-                    savePixmap = new Pixmap(region.getRegionWidth() + 2, region.getRegionHeight() + 2, pixmap.getFormat());
-                    savePixmap.setBlending(Pixmap.Blending.None);
-                    int x;
-                    int y;
+
+                    Pixmap savePixmap;
+                    String name;
                     
-                    //draw 9 patch lines
-                    savePixmap.setColor(Color.BLACK);
+                    //rotated regions occupy the swapped size on the page, as in TextureAtlas
+                    int width = region.rotate ? region.height : region.width;
+                    int height = region.rotate ? region.width : region.height;
+
+                    if (region.splits == null && region.pads == null) {
+                        name = region.name + ".png";
+                        savePixmap = new Pixmap(width, height, Pixmap.Format.RGBA8888);
+                        copyRows(pixmap, region.left, region.top, width, height, savePixmap, 0, 0);
+                    } else {
+                        name = region.name + ".9.png";
+                        savePixmap = new Pixmap(width + 2, height + 2, Pixmap.Format.RGBA8888);
 
-                    if (region.splits != null) {
-                        x = 0;
-                        for (y = region.splits[2] + 1; y < savePixmap.getHeight() - region.splits[3] - 1; y++) {
-                            savePixmap.drawPixel(x, y);
+                        //draw 9 patch lines
+                        if (region.splits != null) {
+                            drawGuideColumn(savePixmap, 0, region.splits[2] + 1, savePixmap.getHeight() - region.splits[3] - 1);
+                            drawGuideRow(savePixmap, 0, region.splits[0] + 1, savePixmap.getWidth() - region.splits[1] - 1);
                         }
-                        
-                        y = 0;
-                        for (x = region.splits[0] + 1; x < savePixmap.getWidth() - region.splits[1] - 1; x++) {
-                            savePixmap.drawPixel(x, y);
+
+                        if (region.pads != null) {
+                            drawGuideColumn(savePixmap, savePixmap.getWidth() - 1, region.pads[2] + 1, savePixmap.getHeight() - region.pads[3] - 1);
+                            drawGuideRow(savePixmap, savePixmap.getHeight() - 1, region.pads[0] + 1, savePixmap.getWidth() - region.pads[1] - 1);
                         }
+
+                        copyRows(pixmap, region.left, region.top, width, height, savePixmap, 1, 1);
                     }
                     
-                    if (region.pads != null) {
-                        x = savePixmap.getWidth() - 1;
-                        for (y = region.pads[2] + 1; y < savePixmap.getHeight() - region.pads[3] - 1; y++) {
-                            savePixmap.drawPixel(x, y);
-                        }
-                        
-                        y = savePixmap.getHeight() - 1;
-                        for (x = region.pads[0] + 1; x < savePixmap.getWidth() - region.pads[1] - 1; x++) {
-                            savePixmap.drawPixel(x, y);
-                        }
-                    }
-
-                    for (x = 0; x < region.getRegionWidth(); x++) {
-                        for (y = 0; y < region.getRegionHeight(); y++) {
-                            int colorInt = pixmap.getPixel(region.getRegionX() + x, region.getRegionY() + y);
-                            savePixmap.drawPixel(x + 1, y + 1, colorInt);
+                    FileHandle outputFile = targetDirectory.child(name);
+                    futures.add(executor.submit(() -> {
+                        try {
+                            PixmapIO.writePNG(outputFile, savePixmap);
+                            //the image is still in memory, the drawable must not decode it again
+                            ImageMetadataCache.get().putMetadata(outputFile, savePixmap);
+                        } finally {
+                            savePixmap.dispose();
                         }
+                        return new DrawableData(outputFile);
+                    }));
+                }
+            } finally {
+                executor.shutdown();
+                for (Pixmap pixmap : pagePixmaps.values()) {
+                    pixmap.dispose();
+                }
+            }
+            
+            //add the drawables in atlas order as the encoders finish
+            for (Future<DrawableData> future : futures) {
+                DrawableData drawable;
+                try {
+                    drawable = future.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof Exception) {
+                        throw (Exception) e.getCause();
+                    } else {
+                        throw e;
                     }
                 }
-                FileHandle outputFile = targetDirectory.child(name);
-                PixmapIO.writePNG(outputFile, savePixmap);
-                DrawableData drawable = new DrawableData(outputFile);
-                
+
                 //delete drawables with the same name
-                for (DrawableData originalData : new Array<>(main.getProjectData().getAtlasData().getDrawables())) {
-                    if (originalData.name.equals(drawable.name)) {
-                        main.getProjectData().getAtlasData().getDrawables().removeValue(originalData, true);
-                    }
+                for (DrawableData originalData = getDrawable(drawable.name); originalData != null; originalData = getDrawable(drawable.name)) {
+                    removeDrawable(originalData);
                 }
-                    
-                drawables.add(drawable);
+
+                addDrawable(drawable);
             }
-            
-            
         } else {
             throw new FileNotFoundException();
         }
     }
     
-    public void writeAtlas() throws Exception {
-        FileHandle targetFile = Main.appFolder.child("temp/" + main.getProjectData().getId() + ".atlas");
-        targetFile.parent().mkdirs();
-        FileHandle[] oldFiles = targetFile.parent().list(new FilenameFilter() {
-            @Override
-            public boolean accept(File file, String string) {
-                return string.matches(targetFile.nameWithoutExtension() + "\\d*\\.(?i)png");
-            }
-        });
-        for (FileHandle fileHandle : oldFiles) {
-            fileHandle.delete();
+    /**
+     * Decodes an atlas page into an RGBA8888 Pixmap so that rows can be copied
+     * directly between buffers.
+     * @param file
+     * @return 
+     */
+    private Pixmap loadPagePixmap(FileHandle file) {
+        Pixmap pixmap = new Pixmap(file);
+        if (pixmap.getFormat() != Pixmap.Format.RGBA8888) {
+            Pixmap converted = new Pixmap(pixmap.getWidth(), pixmap.getHeight(), Pixmap.Format.RGBA8888);
+            converted.setBlending(Pixmap.Blending.None);
+            converted.drawPixmap(pixmap, 0, 0);
+            pixmap.dispose();
+            pixmap = converted;
         }
-        targetFile.sibling(targetFile.nameWithoutExtension() + ".atlas").delete();
+        return pixmap;
+    }
+    
+    /**
+     * Copies a rectangle between two RGBA8888 Pixmaps one row at a time.
+     */
+    private static void copyRows(Pixmap source, int x, int y, int width, int height, Pixmap target, int targetX, int targetY) {
+        ByteBuffer sourceBuffer = source.getPixels().duplicate();
+        ByteBuffer targetBuffer = target.getPixels().duplicate();
+        int rowLength = width * 4;
         
+        for (int row = 0; row < height; row++) {
+            int sourceIndex = ((y + row) * source.getWidth() + x) * 4;
+            sourceBuffer.limit(sourceIndex + rowLength).position(sourceIndex);
+            targetBuffer.position(((targetY + row) * target.getWidth() + targetX) * 4);
+            targetBuffer.put(sourceBuffer);
+        }
+    }
+    
+    /**
+     * Draws a horizontal black nine patch guide from start inclusive to end
+     * exclusive.
+     */
+    private static void drawGuideRow(Pixmap pixmap, int y, int start, int end) {
+        ByteBuffer buffer = pixmap.getPixels();
+        int rowOffset = y * pixmap.getWidth();
+        for (int x = start; x < end; x++) {
+            putGuidePixel(buffer, (rowOffset + x) * 4);
+        }
+    }
+    
+    /**
+     * Draws a vertical black nine patch guide from start inclusive to end
+     * exclusive.
+     */
+    private static void drawGuideColumn(Pixmap pixmap, int x, int start, int end) {
+        ByteBuffer buffer = pixmap.getPixels();
+        for (int y = start; y < end; y++) {
+            putGuidePixel(buffer, (y * pixmap.getWidth() + x) * 4);
+        }
+    }
+    
+    private static void putGuidePixel(ByteBuffer buffer, int index) {
+        buffer.put(index, (byte) 0);
+        buffer.put(index + 1, (byte) 0);
+        buffer.put(index + 2, (byte) 0);
+        buffer.put(index + 3, (byte) 255);
+    }
+    
+    /**
+     * Updates the in-memory preview atlas. Only images that were added or
+     * changed since the last call are packed. Nothing is written to disk, see
+     * {@link #writeAtlas(com.badlogic.gdx.files.FileHandle)} for exporting.
+     * @throws Exception 
+     */
+    public void writeAtlas() throws Exception {
+        writeAtlas(getAtlasFiles(), main.getProjectData().getSaveFile(), null);
+    }
+    
+    /**
+     * Updates the in-memory preview atlas from a list of files gathered with
+     * {@link #getAtlasFiles()}. Safe to call from a worker thread as long as
+     * only one pack runs at a time. Only the packer is locked while packing,
+     * the drawables remain available to the GL thread.
+     * @param files
+     * @param saveFile The project save file, used to locate relative images.
+     * @param listener Notified of the packing progress. May be null.
+     * @throws Exception 
+     */
+    public void writeAtlas(Array<FileHandle> files, FileHandle saveFile, IncrementalAtlasPacker.PackListener listener) throws Exception {
+        synchronized (packerLock) {
+            packer.pack(files, saveFile, listener);
+            atlasVersion++;
+        }
+    }
+    
+    /**
+     * Lists the image files that make up the preview atlas.
+     * @return 
+     */
+    public Array<FileHandle> getAtlasFiles() {
         Array<FileHandle> files = new Array<>();
-        for (DrawableData drawable : drawables) {
+        for (DrawableData drawable : getDrawables()) {
             if (!drawable.customized && !files.contains(drawable.file, false)) {
                 files.add(drawable.file);
             }
         }
-        
-        main.getDesktopWorker().texturePack(files, main.getProjectData().getSaveFile(), targetFile);
+        return files;
+    }
+    
+    /**
+     * Incremented every time the preview atlas is written.
+     * @return 
+     */
+    public int getAtlasVersion() {
+        return atlasVersion;
+    }
+
+    public AtlasRegistry getRegistry() {
+        return registry;
     }
     
     public Array<String> writeAtlas(FileHandle targetFile) throws Exception {
         Array<String> warnings = new Array<>();
-        targetFile.parent().mkdirs();
-        FileHandle[] oldFiles = targetFile.parent().list(new FilenameFilter() {
-            @Override
-            public boolean accept(File file, String string) {
-                return string.matches(targetFile.nameWithoutExtension() + "\\d*\\.(?i)png");
-            }
-        });
-        for (FileHandle fileHandle : oldFiles) {
-            fileHandle.delete();
-        }
-        targetFile.sibling(targetFile.nameWithoutExtension() + ".atlas").delete();
-        
+        exportAtlas(getExportFiles(warnings), main.getProjectData().getSaveFile(), targetFile);
+        return warnings;
+    }
+    
+    /**
+     * Lists the image files to be packed into an exported atlas.
+     * @param warnings Receives a warning for every missing image.
+     * @return 
+     */
+    public Array<FileHandle> getExportFiles(Array<String> warnings) {
         Array<FileHandle> files = new Array<>();
-        for (DrawableData drawable : drawables) {
+        for (DrawableData drawable : getDrawables()) {
             if (!drawable.customized) {
                 if (!files.contains(drawable.file, false)) {
                     files.add(drawable.file);
@@ -220,18 +363,51 @@ public class AtlasData implements Json.Serializable {
                 }
             }
         }
+        return files;
+    }
+    
+    /**
+     * Packs the given files into an atlas next to targetFile, replacing any
+     * previous export. Does not read the project, so it can run on a worker
+     * thread.
+     * @param files Gathered with {@link #getExportFiles(Array)}.
+     * @param saveFile The project save file, used to locate relative images.
+     * @param targetFile
+     * @throws Exception 
+     */
+    public void exportAtlas(Array<FileHandle> files, FileHandle saveFile, FileHandle targetFile) throws Exception {
+        targetFile.parent().mkdirs();
+        FileHandle[] oldFiles = targetFile.parent().list(new FilenameFilter() {
+            @Override
+            public boolean accept(File file, String string) {
+                return string.matches(targetFile.nameWithoutExtension() + "\\d*\\.(?i)png");
+            }
+        });
+        for (FileHandle fileHandle : oldFiles) {
+            fileHandle.delete();
+        }
+        targetFile.sibling(targetFile.nameWithoutExtension() + ".atlas").delete();
         
-        main.getDesktopWorker().texturePack(files, main.getProjectData().getSaveFile(), targetFile);
-        return warnings;
+        main.getDesktopWorker().texturePack(files, saveFile, targetFile);
     }
     
+    /**
+     * Creates a TextureAtlas from the preview pages last packed by
+     * {@link #writeAtlas()}. Must be called on the GL thread. The page
+     * textures are shared between atlases and are released by
+     * {@link #disposeAtlasTextures()}.
+     * @return 
+     */
     public TextureAtlas getAtlas() {
-        TextureAtlas atlas = null;
-        FileHandle atlasFile = Main.appFolder.child("temp/" + main.getProjectData().getId() + ".atlas");
-        if (atlasFile.exists()) {
-            atlas = new TextureAtlas(atlasFile);
+        synchronized (packerLock) {
+            return packer.createAtlas();
+        }
+    }
+    
+    public void disposeAtlasTextures() {
+        synchronized (packerLock) {
+            packer.disposeTextures();
         }
-        return atlas;
     }
     
     public void clearTempData() {
@@ -240,8 +416,7 @@ public class AtlasData implements Json.Serializable {
     }
     
     public void set(AtlasData atlasData) {
-        drawables.clear();
-        drawables.addAll(atlasData.drawables);
+        setDrawables(atlasData.getDrawables());
     }
 
     @Override
@@ -0,0 +1,383 @@
+/*******************************************************************************
+ * MIT License
+ * 
+ * Copyright (c) 2018 Raymond Buckley
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.ray3k.skincomposer.data;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.scenes.scene2d.utils.Drawable;
+import com.badlogic.gdx.scenes.scene2d.utils.NinePatchDrawable;
+import com.badlogic.gdx.scenes.scene2d.utils.SpriteDrawable;
+import com.badlogic.gdx.scenes.scene2d.utils.TiledDrawable;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.ray3k.skincomposer.Main;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Holds the preview TextureAtlas of the project and the Drawables created from
+ * it. The main window and the Drawables and Fonts dialogs share this registry,
+ * so the atlas pages are only uploaded to the GPU after the drawable images
+ * have actually changed. Users call {@link #obtain()} when they start using
+ * the registry and {@link #free()} when they are done with it. The atlas is
+ * disposed when the last user frees it. Large changes can be packed on a
+ * worker thread with {@link #updateAsync(AtlasListener)}.
+ */
+public class AtlasRegistry implements Disposable {
+    private final AtlasData atlasData;
+    private Main main;
+    private TextureAtlas atlas;
+    private int atlasVersion;
+    private boolean drawablesCurrent;
+    private int references;
+    private AtlasTask runningTask;
+    private final ObjectMap<String, Drawable> drawablesByName;
+    private final ObjectMap<DrawableData, Drawable> drawablesByData;
+
+    public AtlasRegistry(AtlasData atlasData) {
+        this.atlasData = atlasData;
+        drawablesByName = new ObjectMap<>();
+        drawablesByData = new ObjectMap<>();
+        atlasVersion = -1;
+    }
+
+    public void setMain(Main main) {
+        this.main = main;
+    }
+    
+    public void obtain() {
+        references++;
+    }
+    
+    public void free() {
+        if (references > 0) {
+            references--;
+            if (references == 0) {
+                dispose();
+            }
+        }
+    }
+    
+    /**
+     * Marks the drawables as out of date. They are recreated on the next call
+     * to {@link #update()}. The atlas itself is only reloaded if the images
+     * were repacked.
+     */
+    public void invalidate() {
+        drawablesCurrent = false;
+    }
+    
+    /**
+     * Repacks the atlas if the drawable images have changed and recreates the
+     * drawables if they have been invalidated. Does nothing if everything is
+     * current. A running {@link #updateAsync(AtlasListener)} is superseded:
+     * it is cancelled and the atlas is packed on the calling thread as soon
+     * as the worker lets go of the packer.
+     * @throws Exception 
+     */
+    public void update() throws Exception {
+        if (runningTask != null) {
+            runningTask.cancel();
+            runningTask = null;
+        }
+        
+        if (!atlasData.atlasCurrent) {
+            atlasData.writeAtlas();
+            atlasData.atlasCurrent = true;
+        }
+        
+        if (atlas == null || atlasVersion != atlasData.getAtlasVersion()) {
+            if (atlas != null) {
+                atlas.dispose();
+            }
+            atlas = atlasData.getAtlas();
+            atlasVersion = atlasData.getAtlasVersion();
+            drawablesCurrent = false;
+        }
+        
+        if (drawablesByData.size != atlasData.getDrawables().size) {
+            drawablesCurrent = false;
+        }
+        
+        if (!drawablesCurrent) {
+            createDrawables();
+            drawablesCurrent = true;
+        }
+    }
+    
+    /**
+     * Repacks the atlas on a worker thread. The previous atlas and drawables
+     * remain usable until the pages are ready, then the textures are uploaded
+     * and the drawables recreated on the GL thread. If the task is cancelled
+     * or fails, the previous atlas is kept and the listener is expected to
+     * roll back the project changes that triggered the update. Starting
+     * another update or disposing the registry supersedes the running task:
+     * its results are discarded, only {@link AtlasListener#superseded()} is
+     * called and the newest task alone reports the outcome. Listener methods
+     * are always called on the GL thread.
+     * @param listener
+     * @return The running task, which may be used to cancel the update.
+     */
+    public AtlasTask updateAsync(AtlasListener listener) {
+        if (runningTask != null) {
+            runningTask.cancel();
+        }
+        
+        AtlasTask task = new AtlasTask(listener);
+        
+        if (atlasData.atlasCurrent) {
+            try {
+                update();
+                listener.completed();
+            } catch (Exception e) {
+                listener.failed(e);
+            }
+            return task;
+        }
+        
+        runningTask = task;
+        Array<FileHandle> files = atlasData.getAtlasFiles();
+        FileHandle saveFile = main.getProjectData().getSaveFile();
+        
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    atlasData.writeAtlas(files, saveFile, task);
+                    Gdx.app.postRunnable(() -> {
+                        if (isSuperseded(task)) {
+                            return;
+                        }
+                        
+                        if (task.isCancelled()) {
+                            atlasData.atlasCurrent = false;
+                            listener.cancelled();
+                        } else {
+                            atlasData.atlasCurrent = true;
+                            try {
+                                update();
+                                listener.completed();
+                            } catch (Exception e) {
+                                listener.failed(e);
+                            }
+                        }
+                    });
+                } catch (CancellationException e) {
+                    Gdx.app.postRunnable(() -> {
+                        if (isSuperseded(task)) {
+                            return;
+                        }
+                        
+                        atlasData.atlasCurrent = false;
+                        listener.cancelled();
+                    });
+                } catch (Exception e) {
+                    Gdx.app.error(getClass().getName(), "Error while packing preview atlas", e);
+                    Gdx.app.postRunnable(() -> {
+                        if (isSuperseded(task)) {
+                            return;
+                        }
+                        
+                        atlasData.atlasCurrent = false;
+                        listener.failed(e);
+                    });
+                }
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        
+        return task;
+    }
+    
+    /**
+     * Called on the GL thread when a worker finishes. Clears the running task
+     * if it is the given one.
+     * @param task
+     * @return true if a newer update or {@link #dispose()} replaced the task,
+     * in which case its listener has been told and nothing else may be done.
+     */
+    private boolean isSuperseded(AtlasTask task) {
+        if (runningTask != task) {
+            //the worker has let go of the packer, release the textures dispose() left behind
+            if (task.disposeTextures && runningTask == null) {
+                atlasData.disposeAtlasTextures();
+            }
+            task.listener.superseded();
+            return true;
+        }
+        
+        runningTask = null;
+        return false;
+    }
+    
+    /**
+     * @return true if an atlas is being packed on a worker thread.
+     */
+    public boolean isUpdating() {
+        return runningTask != null;
+    }
+    
+    private void createDrawables() {
+        drawablesByName.clear();
+        drawablesByData.clear();
+        
+        for (DrawableData data : atlasData.getDrawables()) {
+            Drawable drawable;
+            if (data.customized) {
+                drawable = main.getSkin().getDrawable("custom-drawable-skincomposer-image");
+            } else if (data.tiled) {
+                String name = data.file.name();
+                name = DrawableData.proper(name);
+                drawable = new TiledDrawable(atlas.findRegion(name));
+                drawable.setMinWidth(data.minWidth);
+                drawable.setMinHeight(data.minHeight);
+                ((TiledDrawable) drawable).getColor().set(main.getJsonData().getColorByName(data.tintName).color);
+            } else if (data.file.name().matches(".*\\.9\\.[a-zA-Z0-9]*$")) {
+                String name = data.file.name();
+                name = DrawableData.proper(name);
+                drawable = new NinePatchDrawable(atlas.createPatch(name));
+                if (data.tint != null) {
+                    drawable = ((NinePatchDrawable) drawable).tint(data.tint);
+                } else if (data.tintName != null) {
+                    drawable = ((NinePatchDrawable) drawable).tint(main.getJsonData().getColorByName(data.tintName).color);
+                }
+            } else {
+                String name = data.file.name();
+                name = DrawableData.proper(name);
+                drawable = new SpriteDrawable(atlas.createSprite(name));
+                if (data.tint != null) {
+                    drawable = ((SpriteDrawable) drawable).tint(data.tint);
+                } else if (data.tintName != null) {
+                    drawable = ((SpriteDrawable) drawable).tint(main.getJsonData().getColorByName(data.tintName).color);
+                }
+            }
+            
+            drawablesByName.put(data.name, drawable);
+            drawablesByData.put(data, drawable);
+        }
+    }
+
+    public TextureAtlas getAtlas() {
+        return atlas;
+    }
+
+    public ObjectMap<String, Drawable> getDrawablesByName() {
+        return drawablesByName;
+    }
+
+    public ObjectMap<DrawableData, Drawable> getDrawablesByData() {
+        return drawablesByData;
+    }
+
+    @Override
+    public void dispose() {
+        //the worker's results are ignored once it is no longer the running task
+        //it still holds the packer until it notices the cancellation, so the GL thread does not wait for it here
+        if (runningTask != null) {
+            runningTask.cancel();
+            runningTask.disposeTextures = true;
+            runningTask = null;
+        } else {
+            atlasData.disposeAtlasTextures();
+        }
+        
+        if (atlas != null) {
+            atlas.dispose();
+            atlas = null;
+        }
+        atlasVersion = -1;
+        drawablesByName.clear();
+        drawablesByData.clear();
+        drawablesCurrent = false;
+    }
+    
+    /**
+     * Receives the progress of {@link #updateAsync(AtlasListener)} on the GL
+     * thread.
+     */
+    public static interface AtlasListener {
+        public void progress(String message);
+        public void completed();
+        public void cancelled();
+        public void failed(Exception e);
+        
+        /**
+         * Called instead of the other methods when a newer update was started
+         * or the registry was disposed before this update finished. The
+         * project changes must not be rolled back, the newer update includes
+         * them.
+         */
+        public default void superseded() {
+        }
+    }
+    
+    /**
+     * A running atlas update. Progress messages are forwarded to the listener
+     * at most a few times per second.
+     */
+    public class AtlasTask implements IncrementalAtlasPacker.PackListener {
+        private static final long PROGRESS_INTERVAL = 100;
+        private volatile boolean cancelled;
+        private boolean disposeTextures;
+        private final AtlasListener listener;
+        private long lastProgress;
+
+        public AtlasTask(AtlasListener listener) {
+            this.listener = listener;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public void imageLoaded(int loaded, int count) {
+            progress("Loading image " + loaded + " of " + count, loaded == count);
+        }
+
+        @Override
+        public void imagePlaced(int placed, int count, int pages) {
+            progress("Packing image " + placed + " of " + count + " (" + pages + (pages == 1 ? " page)" : " pages)"), placed == count);
+        }
+        
+        private void progress(String message, boolean force) {
+            long time = System.currentTimeMillis();
+            if (force || time - lastProgress >= PROGRESS_INTERVAL) {
+                lastProgress = time;
+                Gdx.app.postRunnable(() -> {
+                    if (!cancelled) {
+                        listener.progress(message);
+                    }
+                });
+            }
+        }
+    }
+}
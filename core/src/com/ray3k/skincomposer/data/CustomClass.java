@@ -33,6 +33,7 @@ public class CustomClass implements Json.Serializable {
     private String displayName;
     private boolean declareAfterUIclasses;
     private Array<CustomStyle> styles;
+    private final NameIndex<CustomStyle> styleIndex = new NameIndex<>(CustomStyle::getName);
     private CustomStyle templateStyle;
     private Main main;
 
@@ -54,13 +55,7 @@ public class CustomClass implements Json.Serializable {
     }
 
     public CustomStyle getStyle(String name) {
-        for (CustomStyle style : styles) {
-            if (style.getName().equals(name)) {
-                return style;
-            }
-        }
-        
-        return null;
+        return styleIndex.get(styles, name);
     }
     
     public String getFullyQualifiedName() {
@@ -69,6 +64,7 @@ public class CustomClass implements Json.Serializable {
 
     public void setFullyQualifiedName(String fullyQualifiedName) {
         this.fullyQualifiedName = fullyQualifiedName;
+        recordChanged();
     }
 
     public String getDisplayName() {
@@ -76,12 +72,51 @@ public class CustomClass implements Json.Serializable {
     }
 
     public void setDisplayName(String displayName) {
+        String oldName = this.displayName;
         this.displayName = displayName;
+        if (main != null) {
+            main.getJsonData().customClassRenamed(this, oldName);
+        }
+        recordChanged();
     }
 
+    /**
+     * The styles of the class. Add and remove styles through
+     * {@link #addStyle(CustomStyle)} and {@link #removeStyle(CustomStyle)}.
+     * @return 
+     */
     public Array<CustomStyle> getStyles() {
         return styles;
     }
+    
+    public void addStyle(CustomStyle style) {
+        style.setParentClass(this);
+        styles.add(style);
+        styleIndex.added(style);
+        if (main != null) {
+            main.getJsonData().getReferenceIndex().add(style);
+        }
+        recordChanged();
+    }
+    
+    public void removeStyle(CustomStyle style) {
+        if (styles.removeValue(style, true)) {
+            styleIndex.removed(style);
+            if (main != null) {
+                main.getJsonData().getReferenceIndex().remove(style);
+            }
+            recordChanged();
+        }
+    }
+
+    /**
+     * Called by {@link CustomStyle#setName(String)}.
+     * @param style
+     * @param oldName 
+     */
+    void styleRenamed(CustomStyle style, String oldName) {
+        styleIndex.renamed(style, oldName);
+    }
 
     public CustomStyle getTemplateStyle() {
         return templateStyle;
@@ -105,6 +140,17 @@ public class CustomClass implements Json.Serializable {
 
     public void setDeclareAfterUIclasses(boolean declareAfterUIclasses) {
         this.declareAfterUIclasses = declareAfterUIclasses;
+        recordChanged();
+    }
+    
+    /**
+     * Marks the saved record of this class as out of date. Called by the
+     * class, its styles and their properties whenever they change.
+     */
+    void recordChanged() {
+        if (main != null) {
+            main.getJsonData().recordChanged(this);
+        }
     }
 
     @Override
@@ -123,13 +169,25 @@ public class CustomClass implements Json.Serializable {
 
     @Override
     public void read(Json json, JsonValue jsonData) {
+        read(jsonData);
+    }
+    
+    /**
+     * Reads the fields written by {@link #write(Json)} without reflection.
+     * @param jsonData 
+     */
+    public void read(JsonValue jsonData) {
         fullyQualifiedName = jsonData.getString("fullyQualifiedName");
         displayName = jsonData.getString("displayName");
-        styles = json.readValue("styles", Array.class, CustomStyle.class, jsonData);
-        for (CustomStyle style : styles) {
+        styles = new Array<>();
+        for (JsonValue child = jsonData.get("styles").child; child != null; child = child.next) {
+            CustomStyle style = new CustomStyle();
+            style.read(child);
             style.setParentClass(this);
+            styles.add(style);
         }
-        templateStyle = json.readValue("templateStyle", CustomStyle.class, jsonData);
+        templateStyle = new CustomStyle();
+        templateStyle.read(jsonData.get("templateStyle"));
         templateStyle.setParentClass(this);
         declareAfterUIclasses = jsonData.getBoolean("declareAfterUIclasses", false);
     }
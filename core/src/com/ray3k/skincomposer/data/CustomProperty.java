@@ -77,6 +77,9 @@ public class CustomProperty implements Json.Serializable {
 
     public void setName(String name) {
         this.name = name;
+        if (parentStyle != null) {
+            parentStyle.recordChanged();
+        }
     }
 
     public Object getValue() {
@@ -84,7 +87,11 @@ public class CustomProperty implements Json.Serializable {
     }
 
     public void setValue(Object value) {
+        Object oldValue = this.value;
         this.value = value;
+        if (parentStyle != null) {
+            parentStyle.propertyChanged(this, type, oldValue);
+        }
     }
 
     public CustomStyle getParentStyle() {
@@ -100,7 +107,11 @@ public class CustomProperty implements Json.Serializable {
     }
 
     public void setType(PropertyType type) {
+        PropertyType oldType = this.type;
         this.type = type;
+        if (parentStyle != null) {
+            parentStyle.propertyChanged(this, oldType, value);
+        }
     }
 
     public Main getMain() {
@@ -179,8 +190,16 @@ public class CustomProperty implements Json.Serializable {
 
     @Override
     public void read(Json json, JsonValue jsonData) {
+        read(jsonData);
+    }
+    
+    /**
+     * Reads the fields written by {@link #write(Json)} without reflection.
+     * @param jsonData 
+     */
+    public void read(JsonValue jsonData) {
         name = jsonData.getString("name");
-        value = json.readValue("value", null, jsonData);
-        type = json.readValue("type", PropertyType.class, jsonData);
+        value = ProjectSerializer.readUntypedValue(jsonData.get("value"));
+        type = PropertyType.valueOf(jsonData.getString("type"));
     }
 }
@@ -27,6 +27,7 @@ import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
 import com.ray3k.skincomposer.Main;
+import com.ray3k.skincomposer.data.CustomProperty.PropertyType;
 
 public class CustomStyle implements Json.Serializable {
     private String name;
@@ -34,6 +35,8 @@ public class CustomStyle implements Json.Serializable {
     private CustomClass parentClass;
     private boolean deletable;
     private Main main;
+    boolean validated;
+    boolean hasFields;
 
     public CustomStyle() {
         
@@ -68,12 +71,73 @@ public class CustomStyle implements Json.Serializable {
     }
 
     public void setName(String name) {
+        String oldName = this.name;
         this.name = name;
+        if (parentClass != null) {
+            parentClass.styleRenamed(this, oldName);
+        }
+        recordChanged();
     }
 
+    /**
+     * The properties of the style. Add and remove properties through
+     * {@link #addProperty(CustomProperty)} and
+     * {@link #removeProperty(CustomProperty)}.
+     * @return 
+     */
     public Array<CustomProperty> getProperties() {
         return properties;
     }
+    
+    public void addProperty(CustomProperty property) {
+        property.setParentStyle(this);
+        properties.add(property);
+        if (main != null) {
+            main.getJsonData().getReferenceIndex().add(property);
+        }
+        invalidate();
+    }
+    
+    public void removeProperty(CustomProperty property) {
+        if (properties.removeValue(property, true)) {
+            if (main != null) {
+                main.getJsonData().getReferenceIndex().remove(property);
+            }
+            invalidate();
+        }
+    }
+    
+    /**
+     * Called by {@link CustomProperty#setValue(Object)} and
+     * {@link CustomProperty#setType(PropertyType)}.
+     * @param property
+     * @param oldType
+     * @param oldValue 
+     */
+    void propertyChanged(CustomProperty property, PropertyType oldType, Object oldValue) {
+        if (main != null) {
+            main.getJsonData().getReferenceIndex().valueChanged(property, oldType, oldValue);
+        }
+        invalidate();
+    }
+    
+    /**
+     * Marks the cached export check of this style as out of date. Called when
+     * a property is added or removed or its value or type changes.
+     */
+    void invalidate() {
+        validated = false;
+        recordChanged();
+    }
+    
+    /**
+     * Styles are saved as part of the record of their class.
+     */
+    void recordChanged() {
+        if (parentClass != null) {
+            parentClass.recordChanged();
+        }
+    }
 
     public boolean isDeletable() {
         return deletable;
@@ -81,6 +145,7 @@ public class CustomStyle implements Json.Serializable {
 
     public void setDeletable(boolean deletable) {
         this.deletable = deletable;
+        recordChanged();
     }
 
     public Main getMain() {
@@ -103,7 +168,7 @@ public class CustomStyle implements Json.Serializable {
         CustomStyle returnValue = new CustomStyle(name);
 
         for (CustomProperty property : properties) {
-            returnValue.properties.add(property.copy());
+            returnValue.addProperty(property.copy());
         }
         
         returnValue.parentClass = parentClass;
@@ -122,10 +187,21 @@ public class CustomStyle implements Json.Serializable {
 
     @Override
     public void read(Json json, JsonValue jsonData) {
+        read(jsonData);
+    }
+    
+    /**
+     * Reads the fields written by {@link #write(Json)} without reflection.
+     * @param jsonData 
+     */
+    public void read(JsonValue jsonData) {
         name = jsonData.getString("name");
-        properties = json.readValue("properties", Array.class, CustomProperty.class, jsonData);
-        for (CustomProperty property : properties) {
+        properties = new Array<>();
+        for (JsonValue child = jsonData.get("properties").child; child != null; child = child.next) {
+            CustomProperty property = new CustomProperty();
+            property.read(child);
             property.setParentStyle(this);
+            properties.add(property);
         }
         deletable = jsonData.getBoolean("deletable");
     }
@@ -52,7 +52,7 @@ public class DrawableData implements Json.Serializable {
 
     public DrawableData(FileHandle file) {
         this.file = file;
-        Color temp = Utils.averageEdgeColor(file);
+        Color temp = ImageMetadataCache.get().getMetadata(file).edgeColor;
         if (Utils.brightness(temp) > .5f) {
             bgColor = Color.BLACK;
         } else {
@@ -114,17 +114,25 @@ public class DrawableData implements Json.Serializable {
 
     @Override
     public void read(Json json, JsonValue jsonData) {
+        read(jsonData);
+    }
+    
+    /**
+     * Reads the fields written by {@link #write(Json)} without reflection.
+     * @param jsonData 
+     */
+    public void read(JsonValue jsonData) {
         if (!jsonData.get("file").isNull()) {
             file = new FileHandle(jsonData.getString("file"));
         }
-        bgColor = json.readValue("bgColor", Color.class, jsonData);
-        visible = json.readValue("visible", Boolean.TYPE, jsonData);
-        tint = json.readValue("tint", Color.class, jsonData);
-        tintName = json.readValue("tintName", String.class, jsonData);
-        name = json.readValue("name", String.class, jsonData);
-        tiled = json.readValue("tiled", Boolean.class, false, jsonData);
-        minWidth = json.readValue("minWidth", Float.class, 0.0f, jsonData);
-        minHeight = json.readValue("minHeight", Float.class, 0.0f, jsonData);
-        customized = json.readValue("customized", Boolean.class, false, jsonData);
+        bgColor = ProjectSerializer.readColor(jsonData.get("bgColor"));
+        visible = jsonData.getBoolean("visible", false);
+        tint = ProjectSerializer.readColor(jsonData.get("tint"));
+        tintName = jsonData.getString("tintName", null);
+        name = jsonData.getString("name", null);
+        tiled = jsonData.getBoolean("tiled", false);
+        minWidth = jsonData.getFloat("minWidth", 0.0f);
+        minHeight = jsonData.getFloat("minHeight", 0.0f);
+        customized = jsonData.getBoolean("customized", false);
     }
 }
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * MIT License
+ * 
+ * Copyright (c) 2018 Raymond Buckley
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.ray3k.skincomposer.data;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Shares the BitmapFonts of a project between the preview and the fonts
+ * dialog. Fonts are keyed by file and checked against the modification time
+ * of the font file and its page images, so that a font is only loaded again
+ * after one of them changes, for example when the font is imported again. Every {@link #obtain(FileHandle)}
+ * must be matched by a {@link #free(BitmapFont)}. Fonts that are no longer
+ * used stay loaded for reuse until more than {@link #MAX_UNUSED_FONTS} are
+ * unused, after which the least recently used is disposed.
+ */
+public class FontCache implements Disposable {
+    public static final int MAX_UNUSED_FONTS = 16;
+    private final ObjectMap<String, Entry> entries;
+    private final ObjectMap<BitmapFont, Entry> entriesByFont;
+    private final Array<Entry> unused;
+
+    public FontCache() {
+        entries = new ObjectMap<>();
+        entriesByFont = new ObjectMap<>();
+        unused = new Array<>();
+    }
+    
+    /**
+     * Returns the font for the file, loading it if it is not cached or if the
+     * file was modified since it was loaded.
+     * @param file
+     * @return 
+     */
+    public BitmapFont obtain(FileHandle file) {
+        String key = file.path();
+        
+        Entry entry = entries.get(key);
+        if (entry != null && entry.isModified(file)) {
+            //fonts still in use are disposed once they are freed
+            entries.remove(key);
+            entry.stale = true;
+            if (entry.references == 0) {
+                unused.removeValue(entry, true);
+                dispose(entry);
+            }
+            entry = null;
+        }
+        
+        if (entry == null) {
+            entry = new Entry();
+            entry.key = key;
+            entry.lastModified = file.lastModified();
+            entry.font = new BitmapFont(file);
+            String[] imagePaths = entry.font.getData().imagePaths;
+            entry.pages = new FileHandle[imagePaths.length];
+            entry.pagesLastModified = new long[imagePaths.length];
+            for (int i = 0; i < imagePaths.length; i++) {
+                entry.pages[i] = Gdx.files.getFileHandle(imagePaths[i], file.type());
+                entry.pagesLastModified[i] = entry.pages[i].lastModified();
+            }
+            entries.put(key, entry);
+            entriesByFont.put(entry.font, entry);
+        } else if (entry.references == 0) {
+            unused.removeValue(entry, true);
+        }
+        
+        entry.references++;
+        return entry.font;
+    }
+    
+    /**
+     * Releases a font returned by {@link #obtain(FileHandle)}. Fonts that
+     * were not obtained from this cache are ignored.
+     * @param font 
+     */
+    public void free(BitmapFont font) {
+        Entry entry = entriesByFont.get(font);
+        if (entry == null || entry.references == 0) {
+            return;
+        }
+        
+        entry.references--;
+        if (entry.references == 0) {
+            if (entry.stale) {
+                dispose(entry);
+            } else {
+                unused.add(entry);
+                while (unused.size > MAX_UNUSED_FONTS) {
+                    Entry evicted = unused.removeIndex(0);
+                    entries.remove(evicted.key);
+                    dispose(evicted);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Disposes every font that is not currently in use, for example after a
+     * project is loaded.
+     */
+    public void evictUnused() {
+        for (Entry entry : unused) {
+            entries.remove(entry.key);
+            dispose(entry);
+        }
+        unused.clear();
+    }
+    
+    private void dispose(Entry entry) {
+        entriesByFont.remove(entry.font);
+        entry.font.dispose();
+    }
+
+    @Override
+    public void dispose() {
+        for (Entry entry : entriesByFont.values()) {
+            entry.font.dispose();
+        }
+        entries.clear();
+        entriesByFont.clear();
+        unused.clear();
+    }
+    
+    private static class Entry {
+        String key;
+        long lastModified;
+        FileHandle[] pages;
+        long[] pagesLastModified;
+        BitmapFont font;
+        int references;
+        boolean stale;
+        
+        boolean isModified(FileHandle file) {
+            if (file.lastModified() != lastModified) {
+                return true;
+            }
+            
+            for (int i = 0; i < pages.length; i++) {
+                if (pages[i].lastModified() != pagesLastModified[i]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
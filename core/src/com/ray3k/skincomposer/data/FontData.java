@@ -64,6 +64,14 @@ public class FontData implements Json.Serializable {
 
     @Override
     public void read(Json json, JsonValue jsonData) {
+        read(jsonData);
+    }
+    
+    /**
+     * Reads the fields written by {@link #write(Json)} without reflection.
+     * @param jsonData 
+     */
+    public void read(JsonValue jsonData) {
         name = jsonData.getString("name");
         if (!jsonData.get("file").isNull()) {
             file = new FileHandle(jsonData.getString("file"));
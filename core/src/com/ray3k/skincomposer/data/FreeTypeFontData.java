@@ -266,6 +266,14 @@ public class FreeTypeFontData implements Json.Serializable {
 
     @Override
     public void read(Json json, JsonValue jsonData) {
+        read(jsonData);
+    }
+    
+    /**
+     * Reads the fields written by {@link #write(Json)} without reflection.
+     * @param jsonData 
+     */
+    public void read(JsonValue jsonData) {
         name = jsonData.getString("name");
         file = jsonData.has("file") ? Gdx.files.absolute(jsonData.getString("file")) : null;
         previewTTF = jsonData.getString("previewTTF");
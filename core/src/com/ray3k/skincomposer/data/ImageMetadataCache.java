@@ -0,0 +1,221 @@
+/*******************************************************************************
+ * MIT License
+ * 
+ * Copyright (c) 2018 Raymond Buckley
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.ray3k.skincomposer.data;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.utils.Json;
+import com.badlogic.gdx.utils.JsonWriter;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.ray3k.skincomposer.Main;
+import com.ray3k.skincomposer.utils.PixelStatistics;
+import com.ray3k.skincomposer.utils.Utils;
+
+/**
+ * Remembers the properties of drawable images between sessions so they do not
+ * have to be decoded again. Entries are keyed by the absolute path of the
+ * image and are reused as long as the file size and modification time match.
+ * If only the modification time changed, the content hash decides. The cache
+ * is stored in the app folder under cache/ and may be used from any thread.
+ */
+public class ImageMetadataCache {
+    private static ImageMetadataCache instance;
+    private final FileHandle cacheFile;
+    private ObjectMap<String, ImageMetadata> entries;
+    private boolean dirty;
+    
+    private ImageMetadataCache(FileHandle cacheFile) {
+        this.cacheFile = cacheFile;
+        entries = new ObjectMap<>();
+        load();
+    }
+    
+    public static synchronized ImageMetadataCache get() {
+        if (instance == null) {
+            instance = new ImageMetadataCache(Main.appFolder.child("cache/image-metadata.json"));
+        }
+        return instance;
+    }
+    
+    /**
+     * Returns the metadata of the given image, decoding it only if it is not
+     * in the cache or has changed.
+     * @param file
+     * @return 
+     */
+    public ImageMetadata getMetadata(FileHandle file) {
+        String key = file.file().getAbsolutePath();
+        long length = file.length();
+        long lastModified = file.lastModified();
+        
+        ImageMetadata metadata;
+        synchronized (this) {
+            metadata = entries.get(key);
+        }
+        
+        if (metadata != null && metadata.length == length && metadata.lastModified == lastModified) {
+            return metadata;
+        }
+        
+        long hash = Utils.checksum(file);
+        if (metadata != null && metadata.length == length && metadata.hash == hash) {
+            //touched but not changed
+            metadata.lastModified = lastModified;
+        } else {
+            metadata = createMetadata(file);
+            metadata.length = length;
+            metadata.lastModified = lastModified;
+            metadata.hash = hash;
+        }
+        
+        synchronized (this) {
+            entries.put(key, metadata);
+            dirty = true;
+        }
+        return metadata;
+    }
+    
+    /**
+     * Stores the metadata of an image that was just written from the given
+     * Pixmap so that it does not have to be decoded again.
+     * @param file
+     * @param pixmap The decoded contents of the file.
+     */
+    public void putMetadata(FileHandle file, Pixmap pixmap) {
+        ImageMetadata metadata = createMetadata(file, pixmap);
+        metadata.length = file.length();
+        metadata.lastModified = file.lastModified();
+        metadata.hash = Utils.checksum(file);
+        
+        synchronized (this) {
+            entries.put(file.file().getAbsolutePath(), metadata);
+            dirty = true;
+        }
+    }
+    
+    private ImageMetadata createMetadata(FileHandle file) {
+        Pixmap pixmap = new Pixmap(file);
+        try {
+            return createMetadata(file, pixmap);
+        } finally {
+            pixmap.dispose();
+        }
+    }
+    
+    private ImageMetadata createMetadata(FileHandle file, Pixmap pixmap) {
+        ImageMetadata metadata = new ImageMetadata();
+        boolean ninePatch = file.name().matches("(?i).*\\.9\\.png$");
+        metadata.ninePatch = ninePatch;
+        if (ninePatch) {
+            metadata.width = Math.max(pixmap.getWidth() - 2, 0);
+            metadata.height = Math.max(pixmap.getHeight() - 2, 0);
+            metadata.splits = IncrementalAtlasPacker.readGuides(pixmap, 0, 0);
+            metadata.pads = IncrementalAtlasPacker.readGuides(pixmap, pixmap.getHeight() - 1, pixmap.getWidth() - 1);
+        } else {
+            metadata.width = pixmap.getWidth();
+            metadata.height = pixmap.getHeight();
+        }
+        PixelStatistics statistics = PixelStatistics.compute(pixmap, ninePatch);
+        metadata.edgeColor = statistics.getEdgeColor();
+        metadata.averageColor = statistics.getAverageColor();
+        return metadata;
+    }
+    
+    private void load() {
+        if (cacheFile.exists()) {
+            try {
+                Json json = new Json();
+                entries = json.fromJson(ObjectMap.class, ImageMetadata.class, cacheFile);
+                if (entries == null) {
+                    entries = new ObjectMap<>();
+                }
+            } catch (Exception e) {
+                Gdx.app.error(getClass().getName(), "Error while reading image metadata cache, starting with an empty cache.", e);
+                entries = new ObjectMap<>();
+            }
+        }
+    }
+    
+    /**
+     * Writes the cache to disk if any entries changed. Entries for files that
+     * no longer exist are dropped.
+     */
+    public synchronized void save() {
+        if (!dirty) {
+            return;
+        }
+        
+        ObjectMap.Keys<String> keys = entries.keys();
+        while (keys.hasNext()) {
+            if (!Gdx.files.absolute(keys.next()).exists()) {
+                keys.remove();
+            }
+        }
+        
+        try {
+            Json json = new Json(JsonWriter.OutputType.minimal);
+            cacheFile.writeString(json.toJson(entries, ObjectMap.class, ImageMetadata.class), false, "UTF8");
+            dirty = false;
+        } catch (Exception e) {
+            Gdx.app.error(getClass().getName(), "Error while writing image metadata cache.", e);
+        }
+    }
+    
+    /**
+     * The cached properties of a single image. Dimensions exclude the nine
+     * patch border.
+     */
+    public static class ImageMetadata {
+        public long length;
+        public long lastModified;
+        public long hash;
+        public int width;
+        public int height;
+        public boolean ninePatch;
+        public int[] splits;
+        public int[] pads;
+        public Color edgeColor;
+        public Color averageColor;
+        
+        /**
+         * Tinting multiplies every channel, so the tinted edge average is the
+         * edge average multiplied by the tint, including its alpha.
+         * @param tint
+         * @return The edge color of the image after tinting.
+         */
+        public Color getEdgeColor(Color tint) {
+            return new Color(edgeColor.r * tint.r, edgeColor.g * tint.g, edgeColor.b * tint.b, edgeColor.a * tint.a);
+        }
+        
+        /**
+         * @param tint
+         * @return The average color of the image after tinting.
+         */
+        public Color getAverageColor(Color tint) {
+            return new Color(averageColor.r * tint.r, averageColor.g * tint.g, averageColor.b * tint.b, averageColor.a * tint.a);
+        }
+    }
+}
@@ -0,0 +1,603 @@
+/*******************************************************************************
+ * MIT License
+ * 
+ * Copyright (c) 2018 Raymond Buckley
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.ray3k.skincomposer.data;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.Texture.TextureFilter;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas.AtlasRegion;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.OrderedMap;
+import com.ray3k.skincomposer.Main;
+import com.ray3k.skincomposer.utils.Utils;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Packs the preview texture atlas in memory while remembering the layout of
+ * the previous pack. Images whose content has not changed keep their position
+ * on the page. Only new or modified images are placed into free space or onto
+ * a new page and only the pages that were touched are uploaded again. The
+ * whole atlas is packed from scratch when the space left behind by removed
+ * images exceeds {@link #FRAGMENTATION_THRESHOLD}. Nothing is written to disk,
+ * exported atlases are created by the TexturePacker instead.
+ */
+public class IncrementalAtlasPacker implements Disposable {
+    public static final float FRAGMENTATION_THRESHOLD = .5f;
+    
+    /**
+     * Notified of the progress of a pack. Methods are called on the packing
+     * thread.
+     */
+    public static interface PackListener {
+        public void imageLoaded(int loaded, int count);
+        public void imagePlaced(int placed, int count, int pages);
+        public boolean isCancelled();
+    }
+    
+    private static final int MIN_PAGE_SIZE = 16;
+    private final Array<Page> pages;
+    private final ObjectMap<String, Entry> entries;
+    private final Array<Texture> retiredTextures;
+    private boolean packed;
+    private long releasedArea;
+    private long usedArea;
+    private int maxWidth;
+    private int maxHeight;
+    private int paddingX;
+    private int paddingY;
+    private String filterMin = "Linear";
+    private String filterMag = "Linear";
+    
+    public IncrementalAtlasPacker() {
+        pages = new Array<>();
+        entries = new OrderedMap<>();
+        retiredTextures = new Array<>();
+    }
+    
+    /**
+     * Brings the page pixmaps up to date with the given image files. Call
+     * {@link #createAtlas()} afterwards to upload the changes.
+     * @param files The images to be included in the atlas.
+     * @param localFile The project save file. Used to locate images that have
+     * been moved to the project's data folder. May be null.
+     */
+    public void pack(Array<FileHandle> files, FileHandle localFile) {
+        pack(files, localFile, null);
+    }
+    
+    /**
+     * Brings the page pixmaps up to date with the given image files. Call
+     * {@link #createAtlas()} afterwards to upload the changes. May be called
+     * from a thread other than the GL thread.
+     * @param files The images to be included in the atlas.
+     * @param localFile The project save file. Used to locate images that have
+     * been moved to the project's data folder. May be null.
+     * @param listener Notified of the progress. May be null.
+     * @throws CancellationException If the listener cancelled the pack. The
+     * next pack will be done from scratch.
+     */
+    public void pack(Array<FileHandle> files, FileHandle localFile, PackListener listener) {
+        loadSettings();
+        
+        boolean fullPack = !packed;
+        packed = true;
+        
+        Array<Pixmap> pixmaps = new Array<>();
+        try {
+            OrderedMap<String, FileHandle> sources = new OrderedMap<>();
+            for (FileHandle file : files) {
+                FileHandle source = resolveSource(file, localFile);
+                if (source != null) {
+                    sources.put(DrawableData.proper(source.name()), source);
+                }
+            }
+            
+            Array<Entry> pending = new Array<>();
+            Array<Entry> kept = new Array<>();
+            for (Entry entry : entries.values().toArray()) {
+                checkCancelled(listener);
+                FileHandle source = sources.get(entry.name);
+                if (source != null && entry.matches(source)) {
+                    kept.add(entry);
+                } else {
+                    if (source != null) {
+                        Gdx.app.debug(getClass().getName(), "Image changed: " + source.path());
+                    }
+                    release(entry);
+                    entries.remove(entry.name);
+                }
+            }
+            
+            for (ObjectMap.Entry<String, FileHandle> source : sources) {
+                if (!entries.containsKey(source.key)) {
+                    checkCancelled(listener);
+                    pending.add(new Entry(source.key, source.value));
+                }
+            }
+            
+            if (!fullPack && fragmentation() > FRAGMENTATION_THRESHOLD) {
+                fullPack = true;
+            }
+            
+            if (fullPack) {
+                clearPages();
+                pending.addAll(kept);
+                entries.clear();
+            }
+            
+            //load pending images and place the largest ones first
+            ObjectMap<Entry, Pixmap> pixmapMap = new ObjectMap<>();
+            for (int i = 0; i < pending.size; i++) {
+                checkCancelled(listener);
+                Entry entry = pending.get(i);
+                Pixmap pixmap = new Pixmap(entry.file);
+                pixmaps.add(pixmap);
+                pixmapMap.put(entry, pixmap);
+                entry.readPixmap(pixmap);
+                if (listener != null) {
+                    listener.imageLoaded(i + 1, pending.size);
+                }
+            }
+            pending.sort((Entry o1, Entry o2) -> o2.height != o1.height ? o2.height - o1.height : o2.width - o1.width);
+            
+            for (int i = 0; i < pending.size; i++) {
+                checkCancelled(listener);
+                Entry entry = pending.get(i);
+                place(entry);
+                entry.draw(pixmapMap.get(entry));
+                entries.put(entry.name, entry);
+                if (listener != null) {
+                    listener.imagePlaced(i + 1, pending.size, pages.size);
+                }
+            }
+        } catch (RuntimeException e) {
+            //the layout is incomplete, start over on the next pack
+            packed = false;
+            throw e;
+        } finally {
+            for (Pixmap pixmap : pixmaps) {
+                pixmap.dispose();
+            }
+        }
+    }
+    
+    /**
+     * Reads the nine patch guide lines from the given border row and column of
+     * an image that still includes its one pixel border.
+     * @param pixmap
+     * @param row
+     * @param column
+     * @return The guides as left, right, top, bottom or null if there are no
+     * guide lines.
+     */
+    static int[] readGuides(Pixmap pixmap, int row, int column) {
+        int width = pixmap.getWidth() - 2;
+        int height = pixmap.getHeight() - 2;
+        
+        int firstX = -1, lastX = -1;
+        for (int x = 1; x < pixmap.getWidth() - 1; x++) {
+            if ((pixmap.getPixel(x, row) & 0x000000ff) != 0) {
+                if (firstX == -1) firstX = x;
+                lastX = x;
+            }
+        }
+        
+        int firstY = -1, lastY = -1;
+        for (int y = 1; y < pixmap.getHeight() - 1; y++) {
+            if ((pixmap.getPixel(column, y) & 0x000000ff) != 0) {
+                if (firstY == -1) firstY = y;
+                lastY = y;
+            }
+        }
+        
+        if (firstX == -1 && firstY == -1) {
+            return null;
+        }
+        
+        int[] guides = new int[4];
+        if (firstX != -1) {
+            guides[0] = firstX - 1;
+            guides[1] = width - lastX;
+        }
+        if (firstY != -1) {
+            guides[2] = firstY - 1;
+            guides[3] = height - lastY;
+        }
+        return guides;
+    }
+    
+    private void checkCancelled(PackListener listener) {
+        if (listener != null && listener.isCancelled()) {
+            throw new CancellationException("Atlas packing cancelled");
+        }
+    }
+    
+    /**
+     * Uploads the pages that changed since the last call and creates a
+     * TextureAtlas referencing all packed images. The textures are owned by
+     * the packer, disposing the returned atlas does not dispose them.
+     * @return 
+     */
+    public TextureAtlas createAtlas() {
+        TextureFilter minFilter = TextureFilter.valueOf(filterMin);
+        TextureFilter magFilter = TextureFilter.valueOf(filterMag);
+        
+        for (Texture texture : retiredTextures) {
+            texture.dispose();
+        }
+        retiredTextures.clear();
+        
+        TextureAtlas atlas = new TextureAtlas();
+        for (Page page : pages) {
+            if (page.entries.size == 0) {
+                continue;
+            }
+            
+            page.upload(minFilter, magFilter);
+            for (Entry entry : page.entries) {
+                AtlasRegion region = new AtlasRegion(page.texture, entry.x, entry.y, entry.width, entry.height);
+                region.name = entry.name;
+                region.index = -1;
+                region.splits = entry.splits;
+                region.pads = entry.pads;
+                atlas.getRegions().add(region);
+            }
+        }
+        return atlas;
+    }
+    
+    /**
+     * Releases the page textures. They are uploaded again by the next call to
+     * {@link #createAtlas()}.
+     */
+    public void disposeTextures() {
+        for (Texture texture : retiredTextures) {
+            texture.dispose();
+        }
+        retiredTextures.clear();
+        
+        for (Page page : pages) {
+            page.disposeTexture();
+        }
+    }
+    
+    @Override
+    public void dispose() {
+        disposeTextures();
+        for (Page page : pages) {
+            page.dispose();
+        }
+        pages.clear();
+        entries.clear();
+        packed = false;
+        usedArea = 0;
+        releasedArea = 0;
+    }
+    
+    /**
+     * The fraction of the allocated page area that is held by images which
+     * have since been removed or replaced.
+     * @return 
+     */
+    public float fragmentation() {
+        long total = usedArea + releasedArea;
+        return total == 0 ? 0.0f : (float) releasedArea / total;
+    }
+    
+    private void loadSettings() {
+        maxWidth = 1024;
+        maxHeight = 1024;
+        paddingX = 2;
+        paddingY = 2;
+        filterMin = "Linear";
+        filterMag = "Linear";
+        
+        FileHandle settingsFile = Main.appFolder.child("texturepacker/defaults.json");
+        if (settingsFile.exists()) {
+            JsonValue settings = new JsonReader().parse(settingsFile);
+            maxWidth = settings.getInt("maxWidth", maxWidth);
+            maxHeight = settings.getInt("maxHeight", maxHeight);
+            paddingX = settings.getInt("paddingX", paddingX);
+            paddingY = settings.getInt("paddingY", paddingY);
+            filterMin = settings.getString("filterMin", filterMin);
+            filterMag = settings.getString("filterMag", filterMag);
+        }
+    }
+    
+    private FileHandle resolveSource(FileHandle file, FileHandle localFile) {
+        if (file.exists()) {
+            return file;
+        } else if (localFile != null) {
+            FileHandle localHandle = localFile.sibling(localFile.nameWithoutExtension() + "_data/" + file.name());
+            if (localHandle.exists()) {
+                return localHandle;
+            }
+        }
+        
+        Gdx.app.error(getClass().getName(), "File does not exist error while creating texture atlas: " + file.path());
+        return null;
+    }
+    
+    private void clearPages() {
+        //textures are disposed on the next upload, the current atlas may still be in use
+        for (Page page : pages) {
+            if (page.texture != null) {
+                retiredTextures.add(page.texture);
+                page.texture = null;
+            }
+            page.dispose();
+        }
+        pages.clear();
+        usedArea = 0;
+        releasedArea = 0;
+    }
+    
+    private void release(Entry entry) {
+        Page page = entry.page;
+        int slotWidth = entry.width + paddingX;
+        int slotHeight = entry.height + paddingY;
+        
+        Pixmap pixmap = page.getPixmap();
+        pixmap.setColor(0);
+        pixmap.fillRectangle(entry.x, entry.y, Math.min(slotWidth, pixmap.getWidth() - entry.x), Math.min(slotHeight, pixmap.getHeight() - entry.y));
+        page.dirty = true;
+        page.entries.removeValue(entry, true);
+        page.freeRegions.add(new Region(entry.x, entry.y, slotWidth, slotHeight, true));
+        
+        usedArea -= (long) slotWidth * slotHeight;
+        releasedArea += (long) slotWidth * slotHeight;
+    }
+    
+    private void place(Entry entry) {
+        if (entry.width > maxWidth || entry.height > maxHeight) {
+            throw new IllegalArgumentException("Image is larger than the maximum atlas page size (" + maxWidth + "x" + maxHeight + "): " + entry.file.path());
+        }
+        
+        int slotWidth = entry.width + paddingX;
+        int slotHeight = entry.height + paddingY;
+        
+        Page bestPage = null;
+        Region bestRegion = null;
+        int bestScore = Integer.MAX_VALUE;
+        for (Page page : pages) {
+            for (Region region : page.freeRegions) {
+                if (region.width >= slotWidth && region.height >= slotHeight) {
+                    int score = Math.min(region.width - slotWidth, region.height - slotHeight);
+                    if (score < bestScore) {
+                        bestScore = score;
+                        bestPage = page;
+                        bestRegion = region;
+                    }
+                }
+            }
+        }
+        
+        if (bestRegion == null) {
+            bestPage = new Page();
+            //trailing padding is allowed to extend past the maximum page size
+            bestRegion = new Region(0, 0, maxWidth + paddingX, maxHeight + paddingY, false);
+            bestPage.freeRegions.add(bestRegion);
+            pages.add(bestPage);
+        }
+        
+        //guillotine split along the shorter leftover axis
+        bestPage.freeRegions.removeValue(bestRegion, true);
+        int leftoverWidth = bestRegion.width - slotWidth;
+        int leftoverHeight = bestRegion.height - slotHeight;
+        if (leftoverWidth <= leftoverHeight) {
+            bestPage.addFreeRegion(new Region(bestRegion.x + slotWidth, bestRegion.y, leftoverWidth, slotHeight, bestRegion.released));
+            bestPage.addFreeRegion(new Region(bestRegion.x, bestRegion.y + slotHeight, bestRegion.width, leftoverHeight, bestRegion.released));
+        } else {
+            bestPage.addFreeRegion(new Region(bestRegion.x + slotWidth, bestRegion.y, leftoverWidth, bestRegion.height, bestRegion.released));
+            bestPage.addFreeRegion(new Region(bestRegion.x, bestRegion.y + slotHeight, slotWidth, leftoverHeight, bestRegion.released));
+        }
+        
+        if (bestRegion.released) {
+            releasedArea = Math.max(0, releasedArea - (long) slotWidth * slotHeight);
+        }
+        usedArea += (long) slotWidth * slotHeight;
+        
+        entry.page = bestPage;
+        entry.x = bestRegion.x;
+        entry.y = bestRegion.y;
+        bestPage.entries.add(entry);
+        bestPage.ensureSize(entry.x + entry.width, entry.y + entry.height, maxWidth, maxHeight);
+        bestPage.dirty = true;
+    }
+    
+    private static class Region {
+        int x;
+        int y;
+        int width;
+        int height;
+        /**
+         * True if this space was previously occupied by an image.
+         */
+        boolean released;
+
+        public Region(int x, int y, int width, int height, boolean released) {
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+            this.released = released;
+        }
+    }
+    
+    private static class Page {
+        final Array<Region> freeRegions;
+        final Array<Entry> entries;
+        Pixmap pixmap;
+        Texture texture;
+        int width;
+        int height;
+        boolean dirty;
+
+        public Page() {
+            freeRegions = new Array<>();
+            entries = new Array<>();
+            width = MIN_PAGE_SIZE;
+            height = MIN_PAGE_SIZE;
+        }
+        
+        void addFreeRegion(Region region) {
+            if (region.width > 0 && region.height > 0) {
+                freeRegions.add(region);
+            }
+        }
+        
+        Pixmap getPixmap() {
+            if (pixmap == null) {
+                pixmap = new Pixmap(width, height, Pixmap.Format.RGBA8888);
+                pixmap.setBlending(Pixmap.Blending.None);
+            }
+            return pixmap;
+        }
+        
+        void upload(TextureFilter minFilter, TextureFilter magFilter) {
+            if (texture != null && !dirty) {
+                return;
+            }
+            
+            //Texture.draw only replaces the base level, so mipmapped pages are recreated
+            if (texture != null && texture.getWidth() == width && texture.getHeight() == height
+                    && !minFilter.isMipMap() && !texture.getTextureData().useMipMaps()) {
+                texture.draw(getPixmap(), 0, 0);
+            } else {
+                disposeTexture();
+                texture = new Texture(getPixmap(), minFilter.isMipMap());
+            }
+            texture.setFilter(minFilter, magFilter);
+            dirty = false;
+        }
+        
+        void disposeTexture() {
+            if (texture != null) {
+                texture.dispose();
+                texture = null;
+            }
+        }
+        
+        /**
+         * Grows the page to the next power of two that holds the given size.
+         */
+        void ensureSize(int requiredWidth, int requiredHeight, int maxWidth, int maxHeight) {
+            int newWidth = Math.max(width, Math.min(MathUtils.nextPowerOfTwo(requiredWidth), maxWidth));
+            int newHeight = Math.max(height, Math.min(MathUtils.nextPowerOfTwo(requiredHeight), maxHeight));
+            if (newWidth != width || newHeight != height) {
+                Pixmap old = getPixmap();
+                pixmap = new Pixmap(newWidth, newHeight, Pixmap.Format.RGBA8888);
+                pixmap.setBlending(Pixmap.Blending.None);
+                pixmap.drawPixmap(old, 0, 0);
+                old.dispose();
+                width = newWidth;
+                height = newHeight;
+            }
+        }
+        
+        void dispose() {
+            disposeTexture();
+            if (pixmap != null) {
+                pixmap.dispose();
+                pixmap = null;
+            }
+        }
+    }
+    
+    private static class Entry {
+        final String name;
+        FileHandle file;
+        long length;
+        long lastModified;
+        long hash;
+        Page page;
+        int x;
+        int y;
+        int width;
+        int height;
+        boolean ninePatch;
+        int[] splits;
+        int[] pads;
+
+        public Entry(String name, FileHandle file) {
+            this.name = name;
+            this.file = file;
+            length = file.length();
+            lastModified = file.lastModified();
+            hash = Utils.checksum(file);
+            ninePatch = file.name().matches("(?i).*\\.9\\.png$");
+        }
+        
+        /**
+         * Returns true if the source has the same content as the packed image.
+         * The content hash is only computed if the file attributes differ.
+         */
+        boolean matches(FileHandle source) {
+            if (source.equals(file) && source.length() == length && source.lastModified() == lastModified) {
+                return true;
+            }
+            
+            if (source.length() != length || Utils.checksum(source) != hash) {
+                return false;
+            }
+            
+            //same content at a new location or with a new timestamp
+            file = source;
+            lastModified = source.lastModified();
+            return true;
+        }
+        
+        void readPixmap(Pixmap pixmap) {
+            if (ninePatch) {
+                width = Math.max(pixmap.getWidth() - 2, 0);
+                height = Math.max(pixmap.getHeight() - 2, 0);
+                splits = readGuides(pixmap, 0, 0);
+                pads = readGuides(pixmap, pixmap.getHeight() - 1, pixmap.getWidth() - 1);
+                if (splits == null) {
+                    splits = new int[] {0, 0, 0, 0};
+                }
+            } else {
+                width = pixmap.getWidth();
+                height = pixmap.getHeight();
+            }
+        }
+        
+        void draw(Pixmap source) {
+            Pixmap target = page.getPixmap();
+            if (ninePatch) {
+                target.drawPixmap(source, x, y, 1, 1, width, height);
+            } else {
+                target.drawPixmap(source, x, y, 0, 0, width, height);
+            }
+        }
+    }
+}
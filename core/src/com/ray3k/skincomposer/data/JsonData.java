@@ -33,37 +33,52 @@ import com.badlogic.gdx.scenes.scene2d.ui.Label;
 import com.badlogic.gdx.scenes.scene2d.ui.List;
 import com.badlogic.gdx.scenes.scene2d.ui.ProgressBar;
 import com.badlogic.gdx.scenes.scene2d.ui.ScrollPane;
-import com.badlogic.gdx.scenes.scene2d.ui.SelectBox;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin.TintedDrawable;
 import com.badlogic.gdx.scenes.scene2d.ui.Slider;
 import com.badlogic.gdx.scenes.scene2d.ui.SplitPane;
-import com.badlogic.gdx.scenes.scene2d.ui.TextTooltip;
 import com.badlogic.gdx.scenes.scene2d.utils.Drawable;
 import com.badlogic.gdx.scenes.scene2d.utils.TiledDrawable;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonReader;
 import com.badlogic.gdx.utils.JsonValue;
 import com.badlogic.gdx.utils.JsonWriter;
 import com.badlogic.gdx.utils.JsonWriter.OutputType;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.ObjectMap.Entry;
 import com.badlogic.gdx.utils.OrderedMap;
+import com.badlogic.gdx.utils.SerializationException;
 import com.badlogic.gdx.utils.reflect.ClassReflection;
 import com.badlogic.gdx.utils.reflect.ReflectionException;
 import com.ray3k.skincomposer.Main;
 import com.ray3k.skincomposer.data.CustomProperty.PropertyType;
-import com.ray3k.skincomposer.dialog.DialogFactory;
-import java.io.StringWriter;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class JsonData implements Json.Serializable {
+    private static final Pattern FONT_PAGE_PATTERN = Pattern.compile("file=(?:\"([^\"]*)\"|(\\S+))");
     private Array<ColorData> colors;
     private Array<FontData> fonts;
     private Array<FreeTypeFontData> freeTypeFonts;
     private OrderedMap<Class, Array<StyleData>> classStyleMap;
     private Array<CustomClass> customClasses;
     private Main main;
+    private final NameIndex<ColorData> colorIndex = new NameIndex<>(ColorData::getName);
+    private final NameIndex<FontData> fontIndex = new NameIndex<>(FontData::getName);
+    private final NameIndex<FreeTypeFontData> freeTypeFontIndex = new NameIndex<>(font -> font.name);
+    private final NameIndex<CustomClass> customClassIndex = new NameIndex<>(CustomClass::getDisplayName);
+    private final ObjectMap<Class, NameIndex<StyleData>> styleIndexes = new ObjectMap<>();
+    private final ReferenceIndex referenceIndex;
     
     public static enum ExportFormat {
-        MINIMAL("Minimal", JsonWriter.OutputType.minimal), JAVASCRIPT("JavaScript", JsonWriter.OutputType.javascript), JSON("JSON", JsonWriter.OutputType.json);
+        MINIMAL("Minimal", JsonWriter.OutputType.minimal), JAVASCRIPT("JavaScript", JsonWriter.OutputType.javascript), JSON("JSON", JsonWriter.OutputType.json), UBJSON("UBJSON (binary)", null);
         
         private final String name;
         private final JsonWriter.OutputType outputType;
@@ -81,16 +96,32 @@ public class JsonData implements Json.Serializable {
         public JsonWriter.OutputType getOutputType() {
             return outputType;
         }
+        
+        /**
+         * @return true if the skin is written as UBJSON instead of text.
+         */
+        public boolean isBinary() {
+            return outputType == null;
+        }
+        
+        /**
+         * @return The file extension used for skins in this format.
+         */
+        public String getExtension() {
+            return isBinary() ? "ubj" : "json";
+        }
     }
 
     public JsonData() {
         this.main = Main.main;
+        referenceIndex = new ReferenceIndex(this, main);
         colors = new Array<>();
         fonts = new Array<>();
         freeTypeFonts = new Array<>();
 
         initializeClassStyleMap();
         customClasses = new Array<>();
+        referenceIndex.rebuild();
     }
 
     public void clear() {
@@ -102,6 +133,28 @@ public class JsonData implements Json.Serializable {
         freeTypeFonts.clear();
         initializeClassStyleMap();
         customClasses.clear();
+        invalidateNameIndexes();
+        referenceIndex.rebuild();
+    }
+    
+    /**
+     * Empties every collection without recreating the default styles so that
+     * a project file can be read directly into this instance.
+     * @see ProjectSerializer
+     */
+    void clearForRead() {
+        colors.clear();
+        fonts.clear();
+        for (FreeTypeFontData font : freeTypeFonts) {
+            if (font.bitmapFont != null) {
+                font.bitmapFont.dispose();
+            }
+        }
+        freeTypeFonts.clear();
+        classStyleMap.clear();
+        customClasses.clear();
+        invalidateNameIndexes();
+        referenceIndex.rebuild();
     }
 
     /**
@@ -113,6 +166,7 @@ public class JsonData implements Json.Serializable {
     public Array<String> readFile(FileHandle fileHandle) throws Exception {
         Array<String> warnings = new Array<>();
         
+        main.getProjectData().getRecords().changedAll();
         main.getProjectData().setChangesSaved(false);
         
         //read drawables from texture atlas file
@@ -133,297 +187,652 @@ public class JsonData implements Json.Serializable {
             targetDirectory = new FileHandle(Main.appFolder.child("temp/" + main.getProjectData().getId() + "_data").file());
         }
 
-        //read json file and create styles
-        JsonReader reader = new JsonReader();
-        JsonValue val = reader.parse(fileHandle.reader("UTF-8"));
+        //parse the json file without a document tree, the records are added to the project once the whole file is read
+        ImportedSkin importedSkin = new ImportedSkin();
+        SkinImportReader reader = new SkinImportReader(fileHandle, targetDirectory, warnings, importedSkin);
+        try {
+            reader.parse(fileHandle);
+        } catch (RuntimeException e) {
+            importedSkin.discard();
+            throw e;
+        }
+        
+        if (reader.isAborted()) {
+            importedSkin.discard();
+        } else {
+            importedSkin.commit();
+            referenceIndex.rebuild();
+        }
+        
+        return warnings;
+    }
+    
+    /**
+     * Reads the page file names of a BMFont file without loading the glyphs.
+     * @param fontFile
+     * @return 
+     */
+    private static Array<String> readFontPageNames(FileHandle fontFile) {
+        Array<String> pageNames = new Array<>();
+        try (BufferedReader reader = new BufferedReader(fontFile.reader("UTF-8"))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("page ")) {
+                    Matcher matcher = FONT_PAGE_PATTERN.matcher(line);
+                    if (matcher.find()) {
+                        pageNames.add(matcher.group(1) != null ? matcher.group(1) : matcher.group(2));
+                    }
+                } else if (line.startsWith("chars ") || line.startsWith("char ")) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            Gdx.app.error(JsonData.class.getName(), "Error reading font pages from " + fontFile.path(), e);
+        }
+        return pageNames;
+    }
+    
+    private void readBitmapFont(JsonValue font, FileHandle fileHandle, FileHandle targetDirectory, Array<String> warnings, ImportedSkin importedSkin) {
+        if (font.get("file") != null) {
+            FileHandle fontFile = fileHandle.sibling(font.getString("file"));
+            if (!fontFile.exists()) {
+                warnings.add("[RED]ERROR:[] Font file [BLACK]" + fontFile.name() + "[] does not exist.");
+                throw new ImportAbortedException();
+            }
+            FileHandle fontCopy = targetDirectory.child(font.getString("file"));
+            if (!fontCopy.parent().equals(fontFile.parent())) {
+                fontFile.copyTo(fontCopy);
+            }
+            FontData fontData = new FontData(font.name(), fontCopy);
+            importedSkin.addFont(fontData);
 
-        for (JsonValue child : val.iterator()) {
-            //fonts
-            if (child.name().equals(BitmapFont.class.getName()) || child.name().equals(BitmapFont.class.getSimpleName())) {
-                for (JsonValue font : child.iterator()) {
-                    if (font.get("file") != null) {
-                        FileHandle fontFile = fileHandle.sibling(font.getString("file"));
-                        if (!fontFile.exists()) {
-                            warnings.add("[RED]ERROR:[] Font file [BLACK]" + fontFile.name() + "[] does not exist.");
-                            return warnings;
-                        }
-                        FileHandle fontCopy = targetDirectory.child(font.getString("file"));
-                        if (!fontCopy.parent().equals(fontFile.parent())) {
-                            fontFile.copyTo(fontCopy);
-                        }
-                        FontData fontData = new FontData(font.name(), fontCopy);
+            for (String pageName : readFontPageNames(fontCopy)) {
+                FileHandle file = fontCopy.sibling(pageName);
+                importedSkin.hiddenDrawables.add(importedSkin.getDrawable(file.nameWithoutExtension()));
+            }
+        }
+    }
+    
+    private void readFreeTypeFont(JsonValue font, FileHandle fileHandle, FileHandle targetDirectory, Array<String> warnings, ImportedSkin importedSkin) {
+        if (font.get("font") != null) {
+            FreeTypeFontData data = new FreeTypeFontData();
+            data.name = font.name;
+            data.previewTTF = font.getString("previewTTF", null);
+            data.useCustomSerializer= font.getBoolean("useCustomSerializer", false);
+            data.size = font.getInt("size", 16);
+            data.mono = font.getBoolean("mono", false);
+            data.hinting = font.getString("hinting", "AutoMedium");
+            data.color = font.getString("color", null);
+            data.gamma = font.getFloat("gamma", 1.8f);
+            data.renderCount = font.getInt("renderCount", 2);
+            data.borderWidth = font.getFloat("borderWidth", 0);
+            data.borderColor = font.getString("borderColor", null);
+            data.borderStraight = font.getBoolean("borderStraight", false);
+            data.borderGamma = font.getFloat("borderGamma", 1.8f);
+            data.shadowOffsetX = font.getInt("shadowOffsetX", 0);
+            data.shadowOffsetY = font.getInt("shadowOffsetY", 0);
+            data.shadowColor = font.getString("shadowColor", null);
+            data.spaceX = font.getInt("spaceX", 0);
+            data.spaceY = font.getInt("spaceY", 0);
+            data.characters = font.getString("characters", "");
+            data.kerning = font.getBoolean("kerning", true);
+            data.flip = font.getBoolean("flip", false);
+            data.genMipMaps = font.getBoolean("genMipMaps", false);
+            data.minFilter = font.getString("minFilter", "Nearest");
+            data.magFilter = font.getString("magFilter", "Nearest");
+            data.incremental = font.getBoolean("bitmapFont", false);
 
-                        //delete fonts with the same name
-                        for (FontData originalData : new Array<>(fonts)) {
-                            if (originalData.getName().equals(fontData.getName())) {
-                                fonts.removeValue(originalData, true);
-                            }
-                        }
+            FileHandle fontFile = fileHandle.sibling(font.getString("font"));
+            if (!fontFile.exists()) {
+                warnings.add("[RED]ERROR:[] Font file [BLACK]" + fontFile.name() + "[] does not exist.");
+                throw new ImportAbortedException();
+            }
+            FileHandle fontCopy = targetDirectory.child(font.getString("font"));
+            if (!fontCopy.parent().equals(fontFile.parent())) {
+                fontFile.copyTo(fontCopy);
+            }
+            data.file = fontCopy;
+            data.createBitmapFont(main);
 
-                        fonts.add(fontData);
+            if (data.bitmapFont != null) {
+                importedSkin.addFreeTypeFont(data);
+            }
+        }
+    }
+    
+    private void readColor(JsonValue color, Array<String> warnings, ImportedSkin importedSkin) {
+        ColorData colorData;
+        try {
+            colorData = new ColorData(color.name, new Color(color.getFloat("r", 0.0f), color.getFloat("g", 0.0f), color.getFloat("b", 0.0f), color.getFloat("a", 0.0f)));
+        } catch (ColorData.NameFormatException e) {
+            Gdx.app.error(getClass().getName(), "Invalid color name in imported skin: " + color.name, e);
+            warnings.add("Color [BLACK]" + color.name + "[] was not imported (Invalid color name)");
+            return;
+        }
 
-                        BitmapFont.BitmapFontData bitmapFontData = new BitmapFont.BitmapFontData(fontCopy, false);
-                        for (String path : bitmapFontData.imagePaths) {
-                            FileHandle file = new FileHandle(path);
-                            main.getProjectData().getAtlasData().getDrawable(file.nameWithoutExtension()).visible = false;
-                        }
+        importedSkin.addColor(colorData);
+    }
+    
+    private void readTiledDrawable(JsonValue tiledDrawable, ImportedSkin importedSkin) {
+        DrawableData drawableData = new DrawableData(importedSkin.getDrawable(tiledDrawable.getString("region")).file);
+        drawableData.name = tiledDrawable.name;
+
+        drawableData.tiled = true;
+        drawableData.visible = true;
+        drawableData.tintName = tiledDrawable.getString("color");
+        drawableData.minWidth = tiledDrawable.getFloat("minWidth", 0.0f);
+        drawableData.minHeight = tiledDrawable.getFloat("minHeight", 0.0f);
+
+        importedSkin.addDrawable(drawableData);
+    }
+    
+    private void readTintedDrawable(JsonValue tintedDrawable, ImportedSkin importedSkin) {
+        DrawableData drawableData = new DrawableData(importedSkin.getDrawable(tintedDrawable.getString("name")).file);
+        drawableData.name = tintedDrawable.name;
+
+        if (!tintedDrawable.get("color").isString()) {
+            drawableData.tint = new Color(tintedDrawable.get("color").getFloat("r", 0.0f), tintedDrawable.get("color").getFloat("g", 0.0f), tintedDrawable.get("color").getFloat("b", 0.0f), tintedDrawable.get("color").getFloat("a", 0.0f));
+        } else {
+            drawableData.tintName = tintedDrawable.getString("color");
+        }
+
+        importedSkin.addDrawable(drawableData);
+    }
+    
+    private void readStyle(Class clazz, JsonValue style, Array<String> warnings, ImportedSkin importedSkin) {
+        StyleData data = importedSkin.newStyle(clazz, style.name);
+        for (JsonValue property : style.iterator()) {
+            if (property.name.equals("parent")) {
+                data.setParent(property.asString());
+            } else {
+                StyleProperty styleProperty = data.properties.get(property.name);
+                if (styleProperty.type.equals(Float.TYPE)) {
+                    styleProperty.setValue((double) property.asFloat());
+                } else if (styleProperty.type.equals(Color.class)) {
+                    if (property.isString()) {
+                        styleProperty.setValue(property.asString());
+                    } else {
+                        Gdx.app.error(getClass().getName(), "Can't import JSON files that do not use predefined colors.");
+                        warnings.add("Property [BLACK]" + styleProperty.name + "[] value cleared for [BLACK]" + clazz.getSimpleName() + ": " + data.name + "[] (Unsupported color definition)");
+                    }
+                } else {
+                    if (property.isString()) {
+                        styleProperty.setValue(property.asString());
+                    } else {
+                        Gdx.app.error(getClass().getName(), "Can't import JSON files that do not use String names for field values.");
+                        warnings.add("Property [BLACK]" + styleProperty.name + "[] value cleared for [BLACK]" + clazz.getSimpleName() + ": " + data.name + "[] (Unsupported propety value)");
                     }
                 }
-            } //FreeType fonts
-            else if (child.name().equals(FreeTypeFontGenerator.class.getName())) {
-                for (JsonValue font : child.iterator()) {
-                    if (font.get("font") != null) {
-                        FreeTypeFontData data = new FreeTypeFontData();
-                        data.name = font.name;
-                        data.previewTTF = font.getString("previewTTF", null);
-                        data.useCustomSerializer= font.getBoolean("useCustomSerializer", false);
-                        data.size = font.getInt("size", 16);
-                        data.mono = font.getBoolean("mono", false);
-                        data.hinting = font.getString("hinting", "AutoMedium");
-                        data.color = font.getString("color", null);
-                        data.gamma = font.getFloat("gamma", 1.8f);
-                        data.renderCount = font.getInt("renderCount", 2);
-                        data.borderWidth = font.getFloat("borderWidth", 0);
-                        data.borderColor = font.getString("borderColor", null);
-                        data.borderStraight = font.getBoolean("borderStraight", false);
-                        data.borderGamma = font.getFloat("borderGamma", 1.8f);
-                        data.shadowOffsetX = font.getInt("shadowOffsetX", 0);
-                        data.shadowOffsetY = font.getInt("shadowOffsetY", 0);
-                        data.shadowColor = font.getString("shadowColor", null);
-                        data.spaceX = font.getInt("spaceX", 0);
-                        data.spaceY = font.getInt("spaceY", 0);
-                        data.characters = font.getString("characters", "");
-                        data.kerning = font.getBoolean("kerning", true);
-                        data.flip = font.getBoolean("flip", false);
-                        data.genMipMaps = font.getBoolean("genMipMaps", false);
-                        data.minFilter = font.getString("minFilter", "Nearest");
-                        data.magFilter = font.getString("magFilter", "Nearest");
-                        data.incremental = font.getBoolean("bitmapFont", false);
-
-                        FileHandle fontFile = fileHandle.sibling(font.getString("font"));
-                        if (!fontFile.exists()) {
-                            warnings.add("[RED]ERROR:[] Font file [BLACK]" + fontFile.name() + "[] does not exist.");
-                            return warnings;
-                        }
-                        FileHandle fontCopy = targetDirectory.child(font.getString("font"));
-                        if (!fontCopy.parent().equals(fontFile.parent())) {
-                            fontFile.copyTo(fontCopy);
-                        }
-                        data.file = fontCopy;
-                        data.createBitmapFont(main);
-
-                        if (data.bitmapFont != null) {
-                            //delete fonts with the same name
-                            for (FontData duplicate : new Array<>(fonts)) {
-                                if (duplicate.getName().equals(data.name)) {
-                                    fonts.removeValue(duplicate, false);
-                                }
-                            }
+            }
+        }
+    }
+    
+    private CustomClass readCustomClass(String className, ImportedSkin importedSkin) {
+        CustomClass customClass = new CustomClass(className, className.replaceFirst(".*(\\.|\\$)", ""));
+        importedSkin.addCustomClass(customClass);
+        return customClass;
+    }
+    
+    private void readCustomStyle(CustomClass customClass, JsonValue style) {
+        CustomStyle customStyle = new CustomStyle(style.name);
+        customStyle.setParentClass(customClass);
 
-                            for (FreeTypeFontData duplicate : new Array<>(freeTypeFonts)) {
-                                if (duplicate.name.equals(data.name)) {
-                                    freeTypeFonts.removeValue(duplicate, false);
-                                }
-                            }
+        CustomStyle existingStyle = customClass.getStyle(style.name);
+        if (existingStyle != null) {
+            customClass.removeStyle(existingStyle);
+        }
 
-                            freeTypeFonts.add(data);
-                        }
-                    }
+        if (customStyle.getName().equals("default")) {
+            customStyle.setDeletable(false);
+        }
+
+        customClass.addStyle(customStyle);
+
+        for (JsonValue property : style.iterator()) {
+            CustomProperty customProperty = new CustomProperty();
+            customProperty.setName(property.name);
+            customProperty.setParentStyle(customStyle);
+
+            CustomProperty existingProperty = customStyle.getProperty(property.name);
+            if (existingProperty != null) {
+                customStyle.removeProperty(existingProperty);
+            }
+
+
+            if (property.isNumber()) {
+                customProperty.setType(PropertyType.NUMBER);
+                customProperty.setValue(property.asDouble());
+            } else if (property.isString()) {
+                customProperty.setType(PropertyType.TEXT);
+                customProperty.setValue(property.asString());
+            } else if (property.isBoolean()) {
+                customProperty.setType(PropertyType.BOOL);
+                customProperty.setValue(property.asBoolean());
+            } else if (property.isObject()) {
+                customProperty.setType(PropertyType.RAW_TEXT);
+                customProperty.setValue(property.toJson(OutputType.minimal));
+            } else if (property.isArray()) {
+                customProperty.setType(PropertyType.RAW_TEXT);
+                customProperty.setValue(property.toJson(OutputType.minimal));
+            } else {
+                customProperty = null;
+            }
+
+            if (customProperty != null) {
+                customStyle.addProperty(customProperty);
+
+                //add to template style as necessary
+                if (customClass.getTemplateStyle().getProperty(customProperty.getName()) == null) {
+                    CustomProperty dupeProperty = customProperty.copy();
+                    dupeProperty.setValue(null);
+                    customClass.getTemplateStyle().addProperty(dupeProperty);
                 }
-            } //colors
-            else if (child.name().equals(Color.class.getName()) || child.name().equals(Color.class.getSimpleName())) {
-                for (JsonValue color : child.iterator()) {
-                    ColorData colorData = new ColorData(color.name, new Color(color.getFloat("r", 0.0f), color.getFloat("g", 0.0f), color.getFloat("b", 0.0f), color.getFloat("a", 0.0f)));
-                    
-                    //delete colors with the same name
-                    for (ColorData originalData : new Array<>(colors)) {
-                        if (originalData.getName().equals(colorData.getName())) {
-                            colors.removeValue(originalData, true);
+            }
+        }
+    }
+    
+    /**
+     * Ensures that the default style has all the template properties.
+     * @param customClass 
+     */
+    private void finishCustomClass(CustomClass customClass) {
+        for (CustomStyle style : customClass.getStyles()) {
+            if (style.getName().equals("default")) {
+                for (CustomProperty templateProperty : customClass.getTemplateStyle().getProperties()) {
+                    boolean hasProperty = false;
+                    for (CustomProperty customProperty : style.getProperties()) {
+                        if (customProperty.getName().equals(templateProperty.getName())) {
+                            hasProperty = true;
+                            break;
                         }
                     }
-                    
-                    colors.add(colorData);
-                }
-            } //tiled drawables
-            else if (child.name().equals(TiledDrawable.class.getName()) || child.name().equals(TiledDrawable.class.getSimpleName())) {
-                for (JsonValue tiledDrawable : child.iterator()) {
-                    DrawableData drawableData = new DrawableData(main.getProjectData().getAtlasData().getDrawable(tiledDrawable.getString("region")).file);
-                    drawableData.name = tiledDrawable.name;
-                    
-                    drawableData.tiled = true;
-                    drawableData.visible = true;
-                    drawableData.tintName = tiledDrawable.getString("color");
-                    drawableData.minWidth = tiledDrawable.getFloat("minWidth", 0.0f);
-                    drawableData.minHeight = tiledDrawable.getFloat("minHeight", 0.0f);
-   
-                    //delete drawables with the same name
-                    for (DrawableData originalData : new Array<>(main.getProjectData().getAtlasData().getDrawables())) {
-                        if (originalData.name.equals(drawableData.name)) {
-                            main.getProjectData().getAtlasData().getDrawables().removeValue(originalData, true);
-                        }
+
+                    if (!hasProperty) {
+                        style.addProperty(templateProperty.copy());
                     }
-                    
-                    main.getProjectData().getAtlasData().getDrawables().add(drawableData);
                 }
-            } //tinted drawables
-            else if (child.name().equals(TintedDrawable.class.getName()) || child.name().equals(TintedDrawable.class.getSimpleName())) {
-                for (JsonValue tintedDrawable : child.iterator()) {
-                    DrawableData drawableData = new DrawableData(main.getProjectData().getAtlasData().getDrawable(tintedDrawable.getString("name")).file);
-                    drawableData.name = tintedDrawable.name;
-                    
-                    if (!tintedDrawable.get("color").isString()) {
-                        drawableData.tint = new Color(tintedDrawable.get("color").getFloat("r", 0.0f), tintedDrawable.get("color").getFloat("g", 0.0f), tintedDrawable.get("color").getFloat("b", 0.0f), tintedDrawable.get("color").getFloat("a", 0.0f));
+
+                break;
+            }
+        }
+    }
+    
+    /**
+     * The records read from an imported skin file. They are kept apart from
+     * the project until the whole file has been read, so that a file that
+     * fails to import leaves the project unchanged. A record replaces an
+     * earlier record of the same name from the same file, and on commit it
+     * replaces the project's record of that name.
+     */
+    private class ImportedSkin {
+        private final OrderedMap<String, ColorData> colors = new OrderedMap<>();
+        private final OrderedMap<String, FontData> fonts = new OrderedMap<>();
+        private final OrderedMap<String, FreeTypeFontData> freeTypeFonts = new OrderedMap<>();
+        private final OrderedMap<String, DrawableData> drawables = new OrderedMap<>();
+        private final Array<DrawableData> hiddenDrawables = new Array<>();
+        private final OrderedMap<Class, OrderedMap<String, StyleData>> styles = new OrderedMap<>();
+        private final OrderedMap<String, CustomClass> customClasses = new OrderedMap<>();
+        
+        void addColor(ColorData color) {
+            colors.remove(color.getName());
+            colors.put(color.getName(), color);
+        }
+        
+        void addFont(FontData font) {
+            fonts.remove(font.getName());
+            fonts.put(font.getName(), font);
+        }
+        
+        void addFreeTypeFont(FreeTypeFontData font) {
+            fonts.remove(font.name);
+            FreeTypeFontData replaced = freeTypeFonts.remove(font.name);
+            if (replaced != null && replaced.bitmapFont != null) {
+                replaced.bitmapFont.dispose();
+            }
+            freeTypeFonts.put(font.name, font);
+        }
+        
+        void addDrawable(DrawableData drawable) {
+            drawables.remove(drawable.name);
+            drawables.put(drawable.name, drawable);
+        }
+        
+        void addCustomClass(CustomClass customClass) {
+            customClasses.remove(customClass.getDisplayName());
+            customClasses.put(customClass.getDisplayName(), customClass);
+        }
+        
+        /**
+         * Finds a drawable read from this file or, failing that, one in the
+         * project.
+         * @param name
+         * @return 
+         */
+        DrawableData getDrawable(String name) {
+            DrawableData drawable = drawables.get(name);
+            return drawable != null ? drawable : main.getProjectData().getAtlasData().getDrawable(name);
+        }
+        
+        /**
+         * The counterpart of {@link JsonData#newStyle(Class, String)}. The
+         * style is not indexed until it is committed.
+         * @param clazz
+         * @param name
+         * @return 
+         */
+        StyleData newStyle(Class clazz, String name) {
+            OrderedMap<String, StyleData> classStyles = styles.get(clazz);
+            if (classStyles == null) {
+                classStyles = new OrderedMap<>();
+                styles.put(clazz, classStyles);
+            }
+            
+            StyleData data = classStyles.get(name);
+            if (data != null) {
+                data.resetProperties();
+            } else {
+                data = new StyleData(clazz, name, main);
+                classStyles.put(name, data);
+            }
+            return data;
+        }
+        
+        void commit() {
+            for (ColorData color : colors.values()) {
+                for (ColorData originalData = getColorByName(color.getName()); originalData != null; originalData = getColorByName(color.getName())) {
+                    removeColor(originalData);
+                }
+                JsonData.this.addColor(color);
+            }
+            
+            //FreeType fonts replace bitmap fonts of the same name, so they are committed first
+            for (FreeTypeFontData font : freeTypeFonts.values()) {
+                for (FontData duplicate = getFont(font.name); duplicate != null; duplicate = getFont(font.name)) {
+                    removeFont(duplicate);
+                }
+                for (FreeTypeFontData duplicate = getFreeTypeFont(font.name); duplicate != null; duplicate = getFreeTypeFont(font.name)) {
+                    removeFreeTypeFont(duplicate);
+                }
+                JsonData.this.addFreeTypeFont(font);
+            }
+            
+            for (FontData font : fonts.values()) {
+                for (FontData originalData = getFont(font.getName()); originalData != null; originalData = getFont(font.getName())) {
+                    removeFont(originalData);
+                }
+                JsonData.this.addFont(font);
+            }
+            
+            AtlasData atlasData = main.getProjectData().getAtlasData();
+            for (DrawableData drawable : hiddenDrawables) {
+                drawable.visible = false;
+            }
+            for (DrawableData drawable : drawables.values()) {
+                for (DrawableData originalData = atlasData.getDrawable(drawable.name); originalData != null; originalData = atlasData.getDrawable(drawable.name)) {
+                    atlasData.removeDrawable(originalData);
+                }
+                atlasData.addDrawable(drawable);
+            }
+            
+            for (Entry<Class, OrderedMap<String, StyleData>> entry : styles.entries()) {
+                for (StyleData style : entry.value.values()) {
+                    StyleData existing = getStyle(entry.key, style.name);
+                    if (existing == null) {
+                        style.jsonData = JsonData.this;
+                        getClassStyleMap().get(entry.key).add(style);
+                        getStyleIndex(entry.key).added(style);
+                        style.invalidate();
                     } else {
-                        drawableData.tintName = tintedDrawable.getString("color");
-                    }
-                    
-                    //delete drawables with the same name
-                    for (DrawableData originalData : new Array<>(main.getProjectData().getAtlasData().getDrawables())) {
-                        if (originalData.name.equals(drawableData.name)) {
-                            main.getProjectData().getAtlasData().getDrawables().removeValue(originalData, true);
+                        //the existing style keeps its place and deletable flag
+                        existing.resetProperties();
+                        for (StyleProperty property : style.properties.values()) {
+                            existing.properties.get(property.name).setValue(property.value);
                         }
+                        existing.setParent(style.parent);
                     }
-                    
-                    main.getProjectData().getAtlasData().getDrawables().add(drawableData);
                 }
-            } //styles
-            else {
-                int classIndex = 0;
-                
-                Class matchClass = findStyleClassByName(child.name);
-                
-                if (matchClass != null) {
-                    for (Class clazz : Main.STYLE_CLASSES) {
-                        if (clazz.equals(matchClass)) {
-                            break;
-                        } else {
-                            classIndex++;
-                        }
-                    }
+            }
+            
+            for (CustomClass customClass : customClasses.values()) {
+                CustomClass existingClass = getCustomClass(customClass.getDisplayName());
+                if (existingClass != null) {
+                    removeCustomClass(existingClass);
+                }
+                customClass.setMain(main);
+                JsonData.this.addCustomClass(customClass);
+            }
+        }
+        
+        /**
+         * Releases the fonts generated for the records of a failed import.
+         */
+        void discard() {
+            for (FreeTypeFontData font : freeTypeFonts.values()) {
+                if (font.bitmapFont != null) {
+                    font.bitmapFont.dispose();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Thrown to stop the import after a fatal warning has been recorded.
+     */
+    private static class ImportAbortedException extends RuntimeException {
+    }
+    
+    /**
+     * Parses a skin file without building a document of the whole file. The
+     * file text is still read into memory by JsonReader, but only the record
+     * currently being read, such as a single color or style, is kept as a
+     * JsonValue. Each record is handed to the {@link ImportedSkin} as soon as
+     * it is complete and then discarded.
+     */
+    private class SkinImportReader extends JsonReader {
+        private final FileHandle fileHandle;
+        private final FileHandle targetDirectory;
+        private final Array<String> warnings;
+        private final ImportedSkin importedSkin;
+        private final Array<JsonValue> stack = new Array<>();
+        private final Array<JsonValue> lastChildren = new Array<>();
+        private int depth;
+        private String sectionName;
+        private Class styleClass;
+        private CustomClass customClass;
+        private RuntimeException failure;
+        private boolean aborted;
 
-                    Class clazz = Main.BASIC_CLASSES[classIndex];
-                    for (JsonValue style : child.iterator()) {
-                        StyleData data = newStyle(clazz, style.name);
-                        for (JsonValue property : style.iterator()) {
-                            if (property.name.equals("parent")) {
-                                data.parent = property.asString();
-                            } else {
-                                StyleProperty styleProperty = data.properties.get(property.name);
-                                if (styleProperty.type.equals(Float.TYPE)) {
-                                    styleProperty.value = (double) property.asFloat();
-                                } else if (styleProperty.type.equals(Color.class)) {
-                                    if (property.isString()) {
-                                        styleProperty.value = property.asString();
-                                    } else {
-                                        Gdx.app.error(getClass().getName(), "Can't import JSON files that do not use predefined colors.");
-                                        warnings.add("Property [BLACK]" + styleProperty.name + "[] value cleared for [BLACK]" + clazz.getSimpleName() + ": " + data.name + "[] (Unsupported color definition)");
-                                    }
-                                } else {
-                                    if (property.isString()) {
-                                        styleProperty.value = property.asString();
-                                    } else {
-                                        Gdx.app.error(getClass().getName(), "Can't import JSON files that do not use String names for field values.");
-                                        warnings.add("Property [BLACK]" + styleProperty.name + "[] value cleared for [BLACK]" + clazz.getSimpleName() + ": " + data.name + "[] (Unsupported propety value)");
-                                    }
-                                }
-                            }
-                        }
-                    }
-                } else { //custom classes
-                    CustomClass customClass = new CustomClass(child.name, child.name.replaceFirst(".*(\\.|\\$)", ""));
-                    customClass.setMain(main);
-                    
-                    CustomClass existingClass = getCustomClass(customClass.getDisplayName());
-                    if (existingClass != null) {
-                        customClasses.removeValue(existingClass, true);
-                    }
-                    
-                    customClasses.add(customClass);
-                    for (JsonValue style : child.iterator()) {
-                        CustomStyle customStyle = new CustomStyle(style.name);
-                        customStyle.setParentClass(customClass);
-                        customStyle.setMain(main);
-                        
-                        CustomStyle existingStyle = customClass.getStyle(style.name);
-                        if (existingStyle != null) {
-                            customClass.getStyles().removeValue(existingStyle, true);
-                        }
-                        
-                        if (customStyle.getName().equals("default")) {
-                            customStyle.setDeletable(false);
-                        }
-                        
-                        customClass.getStyles().add(customStyle);
-                        
-                        for (JsonValue property : style.iterator()) {
-                            CustomProperty customProperty = new CustomProperty();
-                            customProperty.setName(property.name);
-                            customProperty.setParentStyle(customStyle);
-                            customProperty.setMain(main);
-                            
-                            CustomProperty existingProperty = customStyle.getProperty(property.name);
-                            if (existingProperty != null) {
-                                customStyle.getProperties().removeValue(existingProperty, true);
-                            }
-                            
-                            
-                            if (property.isNumber()) {
-                                customProperty.setType(PropertyType.NUMBER);
-                                customProperty.setValue(property.asDouble());
-                            } else if (property.isString()) {
-                                customProperty.setType(PropertyType.TEXT);
-                                customProperty.setValue(property.asString());
-                            } else if (property.isBoolean()) {
-                                customProperty.setType(PropertyType.BOOL);
-                                customProperty.setValue(property.asBoolean());
-                            } else if (property.isObject()) {
-                                customProperty.setType(PropertyType.RAW_TEXT);
-                                customProperty.setValue(property.toJson(OutputType.minimal));
-                            } else if (property.isArray()) {
-                                customProperty.setType(PropertyType.RAW_TEXT);
-                                customProperty.setValue(property.toJson(OutputType.minimal));
-                            } else {
-                                customProperty = null;
-                            }
-                            
-                            if (customProperty != null) {
-                                customStyle.getProperties().add(customProperty);
-
-                                //add to template style as necessary
-                                if (customClass.getTemplateStyle().getProperty(customProperty.getName()) == null) {
-                                    CustomProperty dupeProperty = customProperty.copy();
-                                    dupeProperty.setValue(null);
-                                    customClass.getTemplateStyle().getProperties().add(dupeProperty);
-                                }
-                            }
-                        }
-                    }
-                    
-                    //ensure default style has all the template styles.
-                    for (CustomStyle style : customClass.getStyles()) {
-                        if (style.getName().equals("default")) {
-                            for (CustomProperty templateProperty : customClass.getTemplateStyle().getProperties()) {
-                                boolean hasProperty = false;
-                                for (CustomProperty customProperty : style.getProperties()) {
-                                    if (customProperty.getName().equals(templateProperty.getName())) {
-                                        hasProperty = true;
-                                        break;
-                                    }
-                                }
-                                
-                                if (!hasProperty) {
-                                    style.getProperties().add(templateProperty.copy());
-                                }
-                            }
-                            
-                            break;
-                        }
+        public SkinImportReader(FileHandle fileHandle, FileHandle targetDirectory, Array<String> warnings, ImportedSkin importedSkin) {
+            this.fileHandle = fileHandle;
+            this.targetDirectory = targetDirectory;
+            this.warnings = warnings;
+            this.importedSkin = importedSkin;
+        }
+        
+        /**
+         * @return True if the import was stopped after a fatal warning.
+         */
+        public boolean isAborted() {
+            return aborted;
+        }
+
+        @Override
+        public JsonValue parse(FileHandle file) {
+            try {
+                super.parse(file);
+            } catch (ImportAbortedException e) {
+                //the warning has already been recorded
+                aborted = true;
+            } catch (SerializationException e) {
+                //errors thrown while reading a record are wrapped by the parser
+                if (failure instanceof ImportAbortedException) {
+                    //the warning has already been recorded
+                    aborted = true;
+                } else if (failure != null) {
+                    throw failure;
+                } else {
+                    throw e;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        protected void startObject(String name) {
+            push(name, new JsonValue(JsonValue.ValueType.object));
+        }
+
+        @Override
+        protected void startArray(String name) {
+            push(name, new JsonValue(JsonValue.ValueType.array));
+        }
+        
+        private void push(String name, JsonValue value) {
+            depth++;
+            if (depth == 2) {
+                startSection(name);
+            } else if (depth > 2) {
+                value.name = name;
+                if (stack.size > 0) {
+                    addChild(value);
+                }
+                stack.add(value);
+                lastChildren.add(null);
+            }
+        }
+
+        @Override
+        protected void pop() {
+            if (depth == 2) {
+                endSection();
+            } else if (depth > 2) {
+                JsonValue value = stack.pop();
+                lastChildren.pop();
+                if (stack.size == 0) {
+                    readRecord(value);
+                }
+            }
+            depth--;
+        }
+
+        @Override
+        protected void string(String name, String value) {
+            addValue(name, new JsonValue(value));
+        }
+
+        @Override
+        protected void number(String name, double value, String stringValue) {
+            addValue(name, new JsonValue(value, stringValue));
+        }
+
+        @Override
+        protected void number(String name, long value, String stringValue) {
+            addValue(name, new JsonValue(value, stringValue));
+        }
+
+        @Override
+        protected void bool(String name, boolean value) {
+            addValue(name, new JsonValue(value));
+        }
+        
+        private void addValue(String name, JsonValue value) {
+            value.name = name;
+            if (stack.size > 0) {
+                addChild(value);
+            } else if (depth == 2) {
+                //a record that is a single value
+                readRecord(value);
+            }
+        }
+        
+        /**
+         * Appends to the innermost open container. Its last child is kept in
+         * {@link #lastChildren} so that appending does not walk the siblings.
+         */
+        private void addChild(JsonValue child) {
+            JsonValue parent = stack.peek();
+            JsonValue last = lastChildren.peek();
+            child.parent = parent;
+            if (last == null) {
+                parent.child = child;
+            } else {
+                last.next = child;
+                child.prev = last;
+            }
+            lastChildren.set(lastChildren.size - 1, child);
+            parent.size++;
+        }
+        
+        private void startSection(String name) {
+            sectionName = name;
+            styleClass = null;
+            customClass = null;
+            
+            if (isSection(name, BitmapFont.class) || name.equals(FreeTypeFontGenerator.class.getName())
+                    || isSection(name, Color.class) || isSection(name, TiledDrawable.class) || isSection(name, TintedDrawable.class)) {
+                return;
+            }
+            
+            Class matchClass = findStyleClassByName(name);
+            if (matchClass != null) {
+                int classIndex = 0;
+                for (Class clazz : Main.STYLE_CLASSES) {
+                    if (clazz.equals(matchClass)) {
+                        break;
+                    } else {
+                        classIndex++;
                     }
                 }
+                
+                styleClass = Main.BASIC_CLASSES[classIndex];
+            } else {
+                customClass = readCustomClass(name, importedSkin);
             }
         }
         
-        return warnings;
+        private void endSection() {
+            if (customClass != null) {
+                finishCustomClass(customClass);
+            }
+            sectionName = null;
+            styleClass = null;
+            customClass = null;
+        }
+        
+        private boolean isSection(String name, Class clazz) {
+            return name.equals(clazz.getName()) || name.equals(clazz.getSimpleName());
+        }
+        
+        private void readRecord(JsonValue record) {
+            if (sectionName == null) {
+                return;
+            }
+            
+            try {
+                readRecord(sectionName, record);
+            } catch (RuntimeException e) {
+                failure = e;
+                throw e;
+            }
+        }
+        
+        private void readRecord(String sectionName, JsonValue record) {
+            if (isSection(sectionName, BitmapFont.class)) {
+                readBitmapFont(record, fileHandle, targetDirectory, warnings, importedSkin);
+            } else if (sectionName.equals(FreeTypeFontGenerator.class.getName())) {
+                readFreeTypeFont(record, fileHandle, targetDirectory, warnings, importedSkin);
+            } else if (isSection(sectionName, Color.class)) {
+                readColor(record, warnings, importedSkin);
+            } else if (isSection(sectionName, TiledDrawable.class)) {
+                readTiledDrawable(record, importedSkin);
+            } else if (isSection(sectionName, TintedDrawable.class)) {
+                readTintedDrawable(record, importedSkin);
+            } else if (styleClass != null) {
+                readStyle(styleClass, record, warnings, importedSkin);
+            } else if (customClass != null) {
+                readCustomStyle(customClass, record);
+            }
+        }
     }
     
     public void checkForPropertyConsistency() {
@@ -433,38 +842,23 @@ public class JsonData implements Json.Serializable {
                     if (property.value != null) {
                         boolean keep = false;
                         if (property.type == Color.class) {
-                            for (ColorData color : colors) {
-                                if (property.value.equals(color.getName())) {
-                                    keep = true;
-                                    break;
-                                }
-                            }
+                            keep = property.value instanceof String && getColorByName((String) property.value) != null;
                         } else if (property.type == BitmapFont.class) {
-                            for (FontData font : fonts) {
-                                if (property.value.equals(font.getName())) {
-                                    keep = true;
-                                    break;
-                                }
-                            }
+                            keep = property.value instanceof String && getFont((String) property.value) != null;
                         } else if (property.type == Drawable.class) {
-                            for (DrawableData drawable : main.getAtlasData().getDrawables()) {
-                                if (property.value.equals(drawable.name)) {
-                                    keep = true;
-                                    break;
-                                }
-                            }
+                            keep = property.value instanceof String && main.getAtlasData().getDrawable((String) property.value) != null;
                             
                             if (!keep) {
                                 keep = true;
                                 DrawableData customDrawable = new DrawableData((String) property.value);
-                                main.getAtlasData().getDrawables().add(customDrawable);
+                                main.getAtlasData().addDrawable(customDrawable);
                             }
                         } else {
                             keep = true;
                         }
 
                         if (!keep) {
-                            property.value = null;
+                            property.setValue(null);
                         }
                     }
                 }
@@ -480,26 +874,14 @@ public class JsonData implements Json.Serializable {
                             keep = true;
                         } else switch (customProperty.getType()) {
                             case COLOR:
-                                for (ColorData color : colors) {
-                                    if (customProperty.getValue().equals(color.getName())) {
-                                        keep = true;
-                                        break;
-                                    }
-                                }   break;
+                                keep = customProperty.getValue() instanceof String && getColorByName((String) customProperty.getValue()) != null;
+                                break;
                             case DRAWABLE:
-                                for (DrawableData drawable : main.getAtlasData().getDrawables()) {
-                                    if (customProperty.getValue().equals(drawable.name)) {
-                                        keep = true;
-                                        break;
-                                    }
-                                }   break;
+                                keep = customProperty.getValue() instanceof String && main.getAtlasData().getDrawable((String) customProperty.getValue()) != null;
+                                break;
                             case FONT:
-                                for (FontData font : fonts) {
-                                    if (customProperty.getValue().equals(font.getName())) {
-                                        keep = true;
-                                        break;
-                                    }
-                                }   break;
+                                keep = customProperty.getValue() instanceof String && getFont((String) customProperty.getValue()) != null;
+                                break;
                             default:
                                 keep = true;
                                 break;
@@ -515,13 +897,7 @@ public class JsonData implements Json.Serializable {
     }
     
     public CustomClass getCustomClass(String name) {
-        for (CustomClass customClass : customClasses) {
-            if (customClass.getDisplayName().equals(name)) {
-                return customClass;
-            }
-        }
-        
-        return null;
+        return customClassIndex.get(customClasses, name);
     }
     
     /**
@@ -543,46 +919,81 @@ public class JsonData implements Json.Serializable {
     }
 
     /**
-     * Exports skin data to a JSON file to be loaded by LibGDX.
+     * Exports skin data to a JSON or UBJSON file to be loaded by LibGDX. The
+     * file is written through a buffered channel as each resource is read
+     * from the project.
      * @param fileHandle
      * @return 
+     * @see #createSnapshot()
      */
     public Array<String> writeFile(FileHandle fileHandle) {
+        fileHandle.parent().mkdirs();
+        try (FileChannel channel = FileChannel.open(fileHandle.file().toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                OutputStream outputStream = Channels.newOutputStream(channel)) {
+            return writeFile(outputStream);
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Error writing file: " + fileHandle, e);
+        }
+    }
+    
+    /**
+     * Exports skin data to the given stream in the project's export format.
+     * Output is buffered and flushed after each section. The stream is not
+     * closed.
+     * @param outputStream
+     * @return
+     * @throws IOException 
+     */
+    public Array<String> writeFile(OutputStream outputStream) throws IOException {
+        SkinSnapshot.Output output = new SkinSnapshot.Output(SkinSnapshot.createJsonOutput(outputStream, main.getProjectData().getExportFormat()));
+        Array<String> warnings = writeSkin(output);
+        output.finish();
+        return warnings;
+    }
+    
+    /**
+     * Captures the names and values the skin is exported with. Must be called
+     * on the GL thread. The snapshot does not reference the project, so it
+     * can be written on another thread while the project is edited.
+     * @return 
+     */
+    public SkinSnapshot createSnapshot() {
+        SkinSnapshot snapshot = new SkinSnapshot(main.getProjectData().getExportFormat());
+        try {
+            snapshot.setWarnings(writeSkin(snapshot.collector()));
+        } catch (IOException e) {
+            //the collector does not perform any I/O
+            throw new GdxRuntimeException(e);
+        }
+        return snapshot;
+    }
+    
+    private Array<String> writeSkin(SkinSnapshot.Sink sink) throws IOException {
         Array<String> warnings = new Array<>();
-        
-        StringWriter stringWriter = new StringWriter();
-        JsonWriter jsonWriter = new JsonWriter(stringWriter);
-        jsonWriter.setOutputType(main.getProjectData().getExportFormat().getOutputType());
-        
-        Json json = new Json(main.getProjectData().getExportFormat().getOutputType());
-        json.setWriter(jsonWriter);
-        json.writeObjectStart();
 
         //fonts
         if (fonts.size > 0) {
             String className = main.getProjectData().isUsingSimpleNames() ? BitmapFont.class.getSimpleName() : BitmapFont.class.getName();
-            json.writeObjectStart(className);
+            sink.startSection(className);
             for (FontData font : fonts) {
-                json.writeObjectStart(font.getName());
-                json.writeValue("file", font.file.name());
-                json.writeObjectEnd();
+                sink.resource(new SkinSnapshot.Resource(font.getName()).put("file", font.file.name()));
             }
-            json.writeObjectEnd();
+            sink.endSection();
         }
 
         //colors
         if (colors.size > 0) {
             String className = main.getProjectData().isUsingSimpleNames() ? Color.class.getSimpleName() : Color.class.getName();
-            json.writeObjectStart(className);
+            sink.startSection(className);
             for (ColorData color : colors) {
-                json.writeObjectStart(color.getName());
-                json.writeValue("r", color.color.r);
-                json.writeValue("g", color.color.g);
-                json.writeValue("b", color.color.b);
-                json.writeValue("a", color.color.a);
-                json.writeObjectEnd();
+                SkinSnapshot.Resource resource = new SkinSnapshot.Resource(color.getName());
+                resource.put("r", color.color.r);
+                resource.put("g", color.color.g);
+                resource.put("b", color.color.b);
+                resource.put("a", color.color.a);
+                sink.resource(resource);
             }
-            json.writeObjectEnd();
+            sink.endSection();
         }
         
         //FreeType fonts
@@ -595,37 +1006,37 @@ public class JsonData implements Json.Serializable {
         }
 
         if (exportFreeType) {
-            json.writeObjectStart(FreeTypeFontGenerator.class.getName());
+            sink.startSection(FreeTypeFontGenerator.class.getName());
             for (FreeTypeFontData font : freeTypeFonts) {
                 if (font.useCustomSerializer) {
-                    json.writeObjectStart(font.name);
-                    json.writeValue("font", font.file.name());
-                    json.writeValue("size", font.size);
-                    json.writeValue("mono", font.mono);
-                    if (font.color != null) json.writeValue("color", font.color);
-                    json.writeValue("gamma", font.gamma);
-                    json.writeValue("renderCount", font.renderCount);
-                    json.writeValue("borderWidth", font.borderWidth);
-                    if (font.borderColor != null) json.writeValue("borderColor", font.borderColor);
-                    json.writeValue("borderStraight", font.borderStraight);
-                    json.writeValue("borderGamma", font.borderGamma);
-                    json.writeValue("shadowOffsetX", font.shadowOffsetX);
-                    json.writeValue("shadowOffsetY", font.shadowOffsetY);
-                    if (font.shadowColor != null) json.writeValue("shadowColor", font.shadowColor);
-                    json.writeValue("spaceX", font.spaceX);
-                    json.writeValue("spaceY", font.spaceY);
-                    json.writeValue("kerning", font.kerning);
-                    json.writeValue("flip", font.flip);
-                    json.writeValue("genMipMaps", font.genMipMaps);
-                    json.writeValue("incremental", font.incremental);
-                    json.writeValue("hinting", font.hinting);
-                    json.writeValue("minFilter", font.minFilter);
-                    json.writeValue("magFilter", font.magFilter);
-                    json.writeValue("characters", font.characters.equals("") ? FreeTypeFontData.DEFAULT_CHARS : font.characters);
-                    json.writeObjectEnd();
+                    SkinSnapshot.Resource resource = new SkinSnapshot.Resource(font.name);
+                    resource.put("font", font.file.name());
+                    resource.put("size", font.size);
+                    resource.put("mono", font.mono);
+                    if (font.color != null) resource.put("color", font.color);
+                    resource.put("gamma", font.gamma);
+                    resource.put("renderCount", font.renderCount);
+                    resource.put("borderWidth", font.borderWidth);
+                    if (font.borderColor != null) resource.put("borderColor", font.borderColor);
+                    resource.put("borderStraight", font.borderStraight);
+                    resource.put("borderGamma", font.borderGamma);
+                    resource.put("shadowOffsetX", font.shadowOffsetX);
+                    resource.put("shadowOffsetY", font.shadowOffsetY);
+                    if (font.shadowColor != null) resource.put("shadowColor", font.shadowColor);
+                    resource.put("spaceX", font.spaceX);
+                    resource.put("spaceY", font.spaceY);
+                    resource.put("kerning", font.kerning);
+                    resource.put("flip", font.flip);
+                    resource.put("genMipMaps", font.genMipMaps);
+                    resource.put("incremental", font.incremental);
+                    resource.put("hinting", font.hinting);
+                    resource.put("minFilter", font.minFilter);
+                    resource.put("magFilter", font.magFilter);
+                    resource.put("characters", font.characters.equals("") ? FreeTypeFontData.DEFAULT_CHARS : font.characters);
+                    sink.resource(resource);
                 }
             }
-            json.writeObjectEnd();
+            sink.endSection();
         }
         
         Array<DrawableData> tintedDrawables = new Array<>();
@@ -641,72 +1052,39 @@ public class JsonData implements Json.Serializable {
         //tinted drawables
         if (tintedDrawables.size > 0) {
             String className = main.getProjectData().isUsingSimpleNames() ? TintedDrawable.class.getSimpleName() : TintedDrawable.class.getName();
-            json.writeObjectStart(className);
+            sink.startSection(className);
             for (DrawableData drawable : tintedDrawables) {
-                json.writeObjectStart(drawable.name);
-                json.writeValue("name", DrawableData.proper(drawable.file.name()));
+                SkinSnapshot.Resource resource = new SkinSnapshot.Resource(drawable.name);
+                resource.put("name", DrawableData.proper(drawable.file.name()));
                 if (drawable.tint != null) {
-                    json.writeObjectStart("color");
-                    json.writeValue("r", drawable.tint.r);
-                    json.writeValue("g", drawable.tint.g);
-                    json.writeValue("b", drawable.tint.b);
-                    json.writeValue("a", drawable.tint.a);
-                    json.writeObjectEnd();
+                    resource.putColor("color", drawable.tint);
                 } else if (drawable.tintName != null) {
-                    json.writeValue("color", drawable.tintName);
+                    resource.put("color", drawable.tintName);
                 }
-                json.writeObjectEnd();
+                sink.resource(resource);
             }
-            json.writeObjectEnd();
+            sink.endSection();
         }
         
         //tiled drawables
         if (tiledDrawables.size > 0) {
             String className = main.getProjectData().isUsingSimpleNames() ? TiledDrawable.class.getSimpleName() : TiledDrawable.class.getName();
-            json.writeObjectStart(className);
+            sink.startSection(className);
             for (DrawableData drawable : tiledDrawables) {
-                json.writeObjectStart(drawable.name);
-                json.writeValue("region", DrawableData.proper(drawable.file.name()));
-                json.writeValue("color", drawable.tintName);
-                json.writeValue("minWidth", drawable.minWidth);
-                json.writeValue("minHeight", drawable.minHeight);
-                json.writeObjectEnd();
+                SkinSnapshot.Resource resource = new SkinSnapshot.Resource(drawable.name);
+                resource.put("region", DrawableData.proper(drawable.file.name()));
+                resource.put("color", drawable.tintName);
+                resource.put("minWidth", drawable.minWidth);
+                resource.put("minHeight", drawable.minHeight);
+                sink.resource(resource);
             }
-            json.writeObjectEnd();
+            sink.endSection();
         }
         
         //custom classes declared before UI classes
         for (CustomClass customClass : customClasses) {
             if (!customClass.isDeclareAfterUIclasses()) {
-                if (customClassHasFields(customClass)) {
-                    json.writeObjectStart(customClass.getFullyQualifiedName());
-                    for (CustomStyle customStyle : customClass.getStyles()) {
-                        if (customStyleHasFields(customStyle)) {
-                            json.writeObjectStart(customStyle.getName());
-
-                            for (CustomProperty customProperty : customStyle.getProperties()) {
-                                //only write value if it is valid
-                                if (customPropertyIsNotNull(customProperty)) {
-                                    if (customProperty.getType().equals(CustomProperty.PropertyType.RAW_TEXT)) {
-                                        try {
-                                            json.getWriter().json(customProperty.getName(), (String)customProperty.getValue());
-                                        } catch (Exception e) {
-                                            DialogFactory.showDialogErrorStatic("Error writing custom property.", "Error writing custom property " + customProperty.getName() + " for custom class " + customClass.getDisplayName() + ".");
-                                        }
-                                    } else {
-                                        json.writeValue(customProperty.getName(), customProperty.getValue());
-                                    }
-                                }
-                            }
-                            json.writeObjectEnd();
-                        } else {
-                            warnings.add("Did not export custom style [BLACK]" + customStyle.getName() + "[] for class [BLACK]" + customClass.getDisplayName() + "[] (All fields null)");
-                        }
-                    }
-                    json.writeObjectEnd();
-                } else {
-                    warnings.add("Did not export custom class [BLACK]" + customClass.getDisplayName() + "[] (No valid styles)");
-                }
+                writeCustomClass(customClass, sink, warnings);
             }
         }
 
@@ -727,12 +1105,12 @@ public class JsonData implements Json.Serializable {
 
             if (hasMandatoryStyles) {
                 String className = main.getProjectData().isUsingSimpleNames() ? clazz.getSimpleName() : clazz.getName();
-                json.writeObjectStart(className);
+                sink.startSection(className);
                 for (StyleData style : styles) {
                     if (style.hasMandatoryFields() && !style.hasAllNullFields()) {
-                        json.writeObjectStart(style.name);
+                        SkinSnapshot.Resource resource = new SkinSnapshot.Resource(style.name);
                         if (style.parent != null) {
-                            json.writeValue("parent", style.parent);
+                            resource.put("parent", style.parent);
                         }
                         for (StyleProperty property : style.properties.values()) {
 
@@ -741,11 +1119,11 @@ public class JsonData implements Json.Serializable {
                                     && !(property.value instanceof Number
                                     && MathUtils.isZero((float) (double) property.value))) {
                                 if (property.value != null) {
-                                    json.writeValue(property.name, property.value);
+                                    resource.put(property.name, property.value);
                                 }
                             }
                         }
-                        json.writeObjectEnd();
+                        sink.resource(resource);
                     } else {
                         if (style.hasAllNullFields()) {
                             warnings.add("Did not export style [BLACK]" + style.name + "[] for class [BLACK]" + clazz.getSimpleName() + " (All fields null)");
@@ -754,7 +1132,7 @@ public class JsonData implements Json.Serializable {
                         }
                     }
                 }
-                json.writeObjectEnd();
+                sink.endSection();
             } else {
                 warnings.add("Did not export class [BLACK]" + clazz.getSimpleName() + "[] (No valid styles)");
             }
@@ -763,42 +1141,39 @@ public class JsonData implements Json.Serializable {
         //custom classes declared after UI classes
         for (CustomClass customClass : customClasses) {
             if (customClass.isDeclareAfterUIclasses()) {
-                if (customClassHasFields(customClass)) {
-                    json.writeObjectStart(customClass.getFullyQualifiedName());
-                    for (CustomStyle customStyle : customClass.getStyles()) {
-                        if (customStyleHasFields(customStyle)) {
-                            json.writeObjectStart(customStyle.getName());
-
-                            for (CustomProperty customProperty : customStyle.getProperties()) {
-                                //only write value if it is valid
-                                if (customPropertyIsNotNull(customProperty)) {
-                                    if (customProperty.getType().equals(CustomProperty.PropertyType.RAW_TEXT)) {
-                                        try {
-                                            json.getWriter().json(customProperty.getName(), (String)customProperty.getValue());
-                                        } catch (Exception e) {
-                                            DialogFactory.showDialogErrorStatic("Error writing custom property.", "Error writing custom property " + customProperty.getName() + " for custom class " + customClass.getDisplayName() + ".");
-                                        }
-                                    } else {
-                                        json.writeValue(customProperty.getName(), customProperty.getValue());
-                                    }
-                                }
+                writeCustomClass(customClass, sink, warnings);
+            }
+        }
+        
+        return warnings;
+    }
+    
+    private void writeCustomClass(CustomClass customClass, SkinSnapshot.Sink sink, Array<String> warnings) throws IOException {
+        if (customClassHasFields(customClass)) {
+            sink.startSection(customClass.getFullyQualifiedName());
+            for (CustomStyle customStyle : customClass.getStyles()) {
+                if (customStyleHasFields(customStyle)) {
+                    SkinSnapshot.Resource resource = new SkinSnapshot.Resource(customStyle.getName());
+
+                    for (CustomProperty customProperty : customStyle.getProperties()) {
+                        //only write value if it is valid
+                        if (customPropertyIsNotNull(customProperty)) {
+                            if (customProperty.getType().equals(CustomProperty.PropertyType.RAW_TEXT)) {
+                                resource.putJson(customProperty.getName(), (String) customProperty.getValue(), customClass.getDisplayName());
+                            } else {
+                                resource.put(customProperty.getName(), customProperty.getValue());
                             }
-                            json.writeObjectEnd();
-                        } else {
-                            warnings.add("Did not export custom style [BLACK]" + customStyle.getName() + "[] for class [BLACK]" + customClass.getDisplayName() + "[] (All fields null)");
                         }
                     }
-                    json.writeObjectEnd();
+                    sink.resource(resource);
                 } else {
-                    warnings.add("Did not export custom class [BLACK]" + customClass.getDisplayName() + "[] (No valid styles)");
+                    warnings.add("Did not export custom style [BLACK]" + customStyle.getName() + "[] for class [BLACK]" + customClass.getDisplayName() + "[] (All fields null)");
                 }
             }
+            sink.endSection();
+        } else {
+            warnings.add("Did not export custom class [BLACK]" + customClass.getDisplayName() + "[] (No valid styles)");
         }
-
-        json.writeObjectEnd();
-        fileHandle.writeString(json.prettyPrint(stringWriter.toString()), false, "UTF-8");
-        
-        return warnings;
     }
     
     private boolean customPropertyIsNotNull(CustomProperty customProperty) {
@@ -815,39 +1190,31 @@ public class JsonData implements Json.Serializable {
                     returnValue = true;
                     break;
                 case COLOR:
-                    for (ColorData data : getColors()) {
-                        if (data.getName().equals(customProperty.getValue())) {
-                            returnValue = true;
-                            break;
-                        }
-                    }   break;
+                    returnValue = getColorByName((String) customProperty.getValue()) != null;
+                    break;
                 case DRAWABLE:
-                    for (DrawableData data : main.getAtlasData().getDrawables()) {
-                        if (data.name.equals(customProperty.getValue())) {
-                            returnValue = true;
-                            break;
-                        }
-                    }   break;
+                    returnValue = main.getAtlasData().getDrawable((String) customProperty.getValue()) != null;
+                    break;
                 case FONT:
-                    for (FontData data : getFonts()) {
-                        if (data.getName().equals(customProperty.getValue())) {
-                            returnValue = true;
-                            break;
-                        }
-                    }
-                    
-                    for (FreeTypeFontData data : freeTypeFonts) {
-                        if (data.name.equals(customProperty.getValue())) {
-                            returnValue = true;
-                            break;
-                        }
-                    }    break;
+                    returnValue = getFont((String) customProperty.getValue()) != null
+                            || getFreeTypeFont((String) customProperty.getValue()) != null;
+                    break;
             }
         }
         return returnValue;
     }
     
+    /**
+     * The result is cached in the style until one of its properties changes.
+     * Only called on the GL thread.
+     * @param customStyle
+     * @return 
+     */
     private boolean customStyleHasFields(CustomStyle customStyle) {
+        if (customStyle.validated) {
+            return customStyle.hasFields;
+        }
+        
         boolean returnValue = false;
         
         for (CustomProperty customProperty : customStyle.getProperties()) {
@@ -857,6 +1224,8 @@ public class JsonData implements Json.Serializable {
             }
         }
         
+        customStyle.hasFields = returnValue;
+        customStyle.validated = true;
         return returnValue;
     }
 
@@ -870,30 +1239,124 @@ public class JsonData implements Json.Serializable {
         return false;
     }
     
+    /**
+     * The colors of the project. Add, remove and rename colors through the
+     * methods of JsonData so that they can be found by name.
+     * @return 
+     */
     public Array<ColorData> getColors() {
         return colors;
     }
     
-    public ColorData getColorByName(String tintName) {
-        ColorData returnValue = null;
-        
-        for (ColorData color : colors) {
-            if (color.getName().equals(tintName)) {
-                returnValue = color;
-                break;
-            }
+    public void addColor(ColorData color) {
+        colors.add(color);
+        colorIndex.added(color);
+    }
+    
+    public void removeColor(ColorData color) {
+        if (colors.removeValue(color, true)) {
+            colorIndex.removed(color);
         }
-        
-        return returnValue;
+    }
+    
+    public void renameColor(ColorData color, String name) throws ColorData.NameFormatException {
+        String oldName = color.getName();
+        color.setName(name);
+        colorIndex.renamed(color, oldName);
+    }
+    
+    public ColorData getColorByName(String tintName) {
+        return colorIndex.get(colors, tintName);
     }
 
+    /**
+     * The fonts of the project. Add, remove and rename fonts through the
+     * methods of JsonData so that they can be found by name.
+     * @return 
+     */
     public Array<FontData> getFonts() {
         return fonts;
     }
+    
+    public void addFont(FontData font) {
+        fonts.add(font);
+        fontIndex.added(font);
+    }
+    
+    public void removeFont(FontData font) {
+        if (fonts.removeValue(font, true)) {
+            fontIndex.removed(font);
+        }
+    }
+    
+    public void renameFont(FontData font, String name) throws FontData.NameFormatException {
+        String oldName = font.getName();
+        font.setName(name);
+        fontIndex.renamed(font, oldName);
+    }
+    
+    public FontData getFont(String name) {
+        return fontIndex.get(fonts, name);
+    }
 
+    /**
+     * The FreeType fonts of the project. Add and remove fonts through the
+     * methods of JsonData so that they can be found by name.
+     * @return 
+     */
     public Array<FreeTypeFontData> getFreeTypeFonts() {
         return freeTypeFonts;
     }
+    
+    public void addFreeTypeFont(FreeTypeFontData font) {
+        freeTypeFonts.add(font);
+        freeTypeFontIndex.added(font);
+    }
+    
+    public void removeFreeTypeFont(FreeTypeFontData font) {
+        if (freeTypeFonts.removeValue(font, true)) {
+            freeTypeFontIndex.removed(font);
+        }
+    }
+    
+    public FreeTypeFontData getFreeTypeFont(String name) {
+        return freeTypeFontIndex.get(freeTypeFonts, name);
+    }
+    
+    /**
+     * Finds a style of the given basic class by name.
+     * @param clazz
+     * @param name
+     * @return The style or null if it does not exist.
+     */
+    public StyleData getStyle(Class clazz, String name) {
+        Array<StyleData> styles = classStyleMap.get(clazz);
+        if (styles == null) {
+            return null;
+        }
+        
+        return getStyleIndex(clazz).get(styles, name);
+    }
+    
+    private NameIndex<StyleData> getStyleIndex(Class clazz) {
+        NameIndex<StyleData> index = styleIndexes.get(clazz);
+        if (index == null) {
+            index = new NameIndex<>(style -> style.name);
+            styleIndexes.put(clazz, index);
+        }
+        return index;
+    }
+    
+    /**
+     * Renames the style. References to the old name are left as they are.
+     * @param styleData
+     * @param name 
+     */
+    public void renameStyle(StyleData styleData, String name) {
+        String oldName = styleData.name;
+        styleData.name = name;
+        getStyleIndex(styleData.clazz).renamed(styleData, oldName);
+    }
 
     public OrderedMap<Class, Array<StyleData>> getClassStyleMap() {
         return classStyleMap;
@@ -938,25 +1401,7 @@ public class JsonData implements Json.Serializable {
             fonts = json.readValue("fonts", Array.class, jsonData);
             
             freeTypeFonts = json.readValue("freeTypeFonts", Array.class, new Array<FreeTypeFontData>(),jsonData);
-            FileHandle previewFontsPath = Main.appFolder.child("preview fonts");
-            FileHandle[] fontsList = previewFontsPath.list();
-            
-            for (FreeTypeFontData freeTypeFont : freeTypeFonts) {
-                if (freeTypeFont.previewTTF != null) {
-                    
-                    boolean foundMatch = false;
-                    for (FileHandle previewFile : fontsList) {
-                        if (freeTypeFont.previewTTF.equals(previewFile.nameWithoutExtension())) {
-                            foundMatch = true;
-                            break;
-                        }
-                    }
-                    
-                    if (!foundMatch) {
-                        freeTypeFont.previewTTF = previewFontsPath.list()[0].nameWithoutExtension();
-                    }
-                }
-            }
+            correctPreviewFonts();
             
             classStyleMap = new OrderedMap<>();
             for (JsonValue data : jsonData.get("classStyleMap").iterator()) {
@@ -979,6 +1424,35 @@ public class JsonData implements Json.Serializable {
         }
     }
 
+    /**
+     * Replaces preview fonts that are no longer installed with the first
+     * available preview font.
+     */
+    void correctPreviewFonts() {
+        FileHandle previewFontsPath = Main.appFolder.child("preview fonts");
+        FileHandle[] fontsList = previewFontsPath.list();
+        if (fontsList.length == 0) {
+            return;
+        }
+
+        for (FreeTypeFontData freeTypeFont : freeTypeFonts) {
+            if (freeTypeFont.previewTTF != null) {
+
+                boolean foundMatch = false;
+                for (FileHandle previewFile : fontsList) {
+                    if (freeTypeFont.previewTTF.equals(previewFile.nameWithoutExtension())) {
+                        foundMatch = true;
+                        break;
+                    }
+                }
+
+                if (!foundMatch) {
+                    freeTypeFont.previewTTF = fontsList[0].nameWithoutExtension();
+                }
+            }
+        }
+    }
+
     /**
      * Creates a new StyleData object if one with the same name currently does not exist. If it does exist
      * it is returned and the properties are wiped. ClassName and deletable flag is retained.
@@ -989,19 +1463,18 @@ public class JsonData implements Json.Serializable {
     public StyleData newStyle(Class className, String styleName) {
         Array<StyleData> styles = getClassStyleMap().get(className);
         
-        StyleData data = null;
-        
-        for (StyleData tempStyle : styles) {
-            if (tempStyle.name.equals(styleName)) {
-                data = tempStyle;
-                data.resetProperties();
-            }
-        }
-        
-        if (data == null) {
+        StyleData data = getStyle(className, styleName);
+        if (data != null) {
+            data.resetProperties();
+        } else {
             data = new StyleData(className, styleName, main);
             data.jsonData = this;
             styles.add(data);
+            getStyleIndex(className).added(data);
+            referenceIndex.add(data);
+            
+            //styles referring to the name may be valid now
+            data.invalidate();
         }
         
         return data;
@@ -1012,36 +1485,24 @@ public class JsonData implements Json.Serializable {
         StyleData data = new StyleData(original, styleName, main);
         data.jsonData = this;
         styles.add(data);
+        getStyleIndex(original.clazz).added(data);
+        referenceIndex.add(data);
+        data.invalidate();
         
         return data;
     }
     
     public void deleteStyle(StyleData styleData) {
         Array<StyleData> styles = getClassStyleMap().get(styleData.clazz);
-        styles.removeValue(styleData, true);
+        if (styles.removeValue(styleData, true)) {
+            getStyleIndex(styleData.clazz).removed(styleData);
+        }
+        referenceIndex.remove(styleData);
+        styleData.invalidate();
         
         //reset any properties pointing to this style to the default style
-        if (styleData.clazz.equals(Label.class)) {
-            for (StyleData data : getClassStyleMap().get(TextTooltip.class)) {
-                StyleProperty property = data.properties.get("label");
-                if (property != null && property.value.equals(styleData.name)) {
-                    property.value = "default";
-                }
-            }
-        } else if (styleData.clazz.equals(List.class)) {
-            for (StyleData data : getClassStyleMap().get(SelectBox.class)) {
-                StyleProperty property = data.properties.get("listStyle");
-                if (property != null && property.value.equals(styleData.name)) {
-                    property.value = "default";
-                }
-            }
-        } else if (styleData.clazz.equals(ScrollPane.class)) {
-            for (StyleData data : getClassStyleMap().get(SelectBox.class)) {
-                StyleProperty property = data.properties.get("scrollStyle");
-                if (property != null && property.value.equals(styleData.name)) {
-                    property.value = "default";
-                }
-            }
+        if (styleData.clazz.equals(Label.class) || styleData.clazz.equals(List.class) || styleData.clazz.equals(ScrollPane.class)) {
+            referenceIndex.replace(Main.basicToStyleClass(styleData.clazz), styleData.name, "default");
         }
     }
 
@@ -1063,9 +1524,69 @@ public class JsonData implements Json.Serializable {
         }
         freeTypeFonts.clear();
         freeTypeFonts.addAll(jsonData.freeTypeFonts);
+        invalidateNameIndexes();
+        referenceIndex.rebuild();
     }
 
+    /**
+     * The custom classes of the project. Add and remove classes through
+     * {@link #addCustomClass(CustomClass)} and
+     * {@link #removeCustomClass(CustomClass)}.
+     * @return 
+     */
     public Array<CustomClass> getCustomClasses() {
         return customClasses;
     }
+    
+    public void addCustomClass(CustomClass customClass) {
+        customClasses.add(customClass);
+        customClassIndex.added(customClass);
+        referenceIndex.add(customClass);
+    }
+    
+    public void removeCustomClass(CustomClass customClass) {
+        if (customClasses.removeValue(customClass, true)) {
+            customClassIndex.removed(customClass);
+            referenceIndex.remove(customClass);
+        }
+    }
+    
+    /**
+     * Called by {@link CustomClass#setDisplayName(String)}.
+     * @param customClass
+     * @param oldName 
+     */
+    void customClassRenamed(CustomClass customClass, String oldName) {
+        customClassIndex.renamed(customClass, oldName);
+    }
+    
+    /**
+     * Rebuilds the name lookups on their next use. Called after the
+     * collections were changed in bulk.
+     */
+    void invalidateNameIndexes() {
+        colorIndex.invalidate();
+        fontIndex.invalidate();
+        freeTypeFontIndex.invalidate();
+        customClassIndex.invalidate();
+        for (NameIndex<StyleData> index : styleIndexes.values()) {
+            index.invalidate();
+        }
+    }
+
+    public ReferenceIndex getReferenceIndex() {
+        return referenceIndex;
+    }
+    
+    /**
+     * Marks the saved record of a style or custom class as out of date so
+     * that it is serialized again on the next save.
+     * @param record 
+     * @see ProjectRecords
+     */
+    public void recordChanged(Object record) {
+        if (main != null && main.getProjectData() != null) {
+            main.getProjectData().getRecords().changed(record);
+        }
+    }
 }
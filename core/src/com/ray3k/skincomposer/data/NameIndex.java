@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * MIT License
+ * 
+ * Copyright (c) 2018 Raymond Buckley
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.ray3k.skincomposer.data;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Hash lookup of the items of an Array by name. The data class that owns the
+ * Array keeps the index current: it reports every item it adds, removes or
+ * renames through {@link #added(Object)}, {@link #removed(Object)} and
+ * {@link #renamed(Object, String)}. Bulk changes, such as reading a project,
+ * call {@link #invalidate()} instead and the index is rebuilt once on the
+ * next lookup. The index is also rebuilt when the Array itself is replaced,
+ * which data classes do when they are deserialized, so the Array is passed
+ * on every lookup. A miss returns null without searching the Array. If
+ * several items share a name, the first one in the Array is returned like a
+ * linear search would.
+ * @param <T> 
+ */
+public class NameIndex<T> {
+    private final NameProvider<T> nameProvider;
+    private final ObjectMap<String, T> map;
+    private final ObjectIntMap<String> counts;
+    private Array<T> items;
+    private boolean valid;
+    
+    public NameIndex(NameProvider<T> nameProvider) {
+        this.nameProvider = nameProvider;
+        map = new ObjectMap<>();
+        counts = new ObjectIntMap<>();
+    }
+    
+    public T get(Array<T> items, String name) {
+        if (name == null) {
+            return null;
+        }
+        
+        if (!valid || this.items != items) {
+            this.items = items;
+            rebuild();
+        }
+        return map.get(name);
+    }
+    
+    public boolean contains(Array<T> items, String name) {
+        return get(items, name) != null;
+    }
+    
+    /**
+     * Rebuilds the index on the next lookup.
+     */
+    public void invalidate() {
+        valid = false;
+    }
+    
+    /**
+     * Call after the item was appended to the Array.
+     * @param item 
+     */
+    public void added(T item) {
+        if (valid) {
+            add(nameProvider.getName(item), item);
+        }
+    }
+    
+    /**
+     * Call after the item was removed from the Array.
+     * @param item 
+     */
+    public void removed(T item) {
+        if (valid) {
+            remove(nameProvider.getName(item), item);
+        }
+    }
+    
+    /**
+     * Call after the name of an item in the Array was changed.
+     * @param item
+     * @param oldName 
+     */
+    public void renamed(T item, String oldName) {
+        if (valid) {
+            remove(oldName, item);
+            add(nameProvider.getName(item), item);
+        }
+    }
+    
+    private void add(String name, T item) {
+        if (name == null) {
+            return;
+        }
+        
+        if (counts.getAndIncrement(name, 0, 1) == 0) {
+            map.put(name, item);
+        }
+    }
+    
+    private void remove(String name, T item) {
+        if (name == null) {
+            return;
+        }
+        
+        int count = counts.getAndIncrement(name, 0, -1) - 1;
+        if (count <= 0) {
+            counts.remove(name, 0);
+            map.remove(name);
+        } else if (map.get(name) == item) {
+            //only duplicate names are searched for
+            for (T other : items) {
+                if (other != item && name.equals(nameProvider.getName(other))) {
+                    map.put(name, other);
+                    break;
+                }
+            }
+        }
+    }
+    
+    private void rebuild() {
+        map.clear();
+        counts.clear();
+        for (T item : items) {
+            add(nameProvider.getName(item), item);
+        }
+        valid = true;
+    }
+    
+    public static interface NameProvider<T> {
+        public String getName(T item);
+    }
+}
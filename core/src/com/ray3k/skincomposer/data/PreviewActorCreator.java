@@ -25,7 +25,6 @@ import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.ObjectMap;
 import com.badlogic.gdx.utils.OrderedMap;
-import com.badlogic.gdx.utils.reflect.ClassReflection;
 import com.kotcrab.vis.ui.util.InputValidator;
 import com.kotcrab.vis.ui.widget.VisCheckBox;
 import com.kotcrab.vis.ui.widget.VisCheckBox.VisCheckBoxStyle;
@@ -61,18 +60,14 @@ public class PreviewActorCreator {
 	
 	static Object createStyle(RootTable table, Class clazz, CustomStyle style) {
 		try {
-		Object styleInstance = clazz.newInstance();
+		StyleAccessor accessor = StyleAccessor.get(clazz);
+		Object styleInstance = accessor.newInstance();
 				
 		for(CustomProperty pp : style.getProperties()) {
 			
-			boolean exists = true;
-			try {
-			ClassReflection.getField(clazz, pp.getName());
-			}catch(Exception e) {
-				exists = false;
-			}
+			StyleAccessor.FieldAccessor field = accessor.getField(pp.getName());
 			
-			if(exists) {
+			if(field != null) {
 				switch(pp.getType()) {
 				case COLOR:
 					if (!(pp.getValue() instanceof String)) {
@@ -90,7 +85,7 @@ public class PreviewActorCreator {
 	                }
 	
 	                if (colorData != null) {
-	     				ClassReflection.getField(clazz, pp.getName()).set(styleInstance, colorData.color);
+	     				field.set(styleInstance, colorData.color);
 	
 	                }
 					break;
@@ -110,7 +105,7 @@ public class PreviewActorCreator {
 	                }
 	
 	                if (drawable != null) {
-	     				ClassReflection.getField(clazz, pp.getName()).set(styleInstance, table.getDrawablePairs().get(drawable.name));
+	     				field.set(styleInstance, table.getDrawablePairs().get(drawable.name));
 	                }
 					break;
 				case FONT:
@@ -123,19 +118,19 @@ public class PreviewActorCreator {
 	                 String fontName = (String) pp.getValue();
 	                 for (FontData fd : table.getMain().getJsonData().getFonts()) {
 	                     if (fd.getName().equals(fontName)) {
-	                         font = new BitmapFont(fd.file);
+	                         font = table.getMain().getProjectData().getFontCache().obtain(fd.file);
 	                         table.getPreviewFonts().add(font);
 	                         break;
 	                     }
 	                 }
 	
 	                 if (font != null) {
-	     				ClassReflection.getField(clazz, pp.getName()).set(styleInstance, font);
+	     				field.set(styleInstance, font);
 	                 }
 					break;
 				case NUMBER:
 					float v = ((Double)pp.getValue()).floatValue();
-					ClassReflection.getField(clazz, pp.getName()).set(styleInstance, v);
+					field.set(styleInstance, v);
 					break;
 				case STYLE:
 					if(pp.getName().equals("listStyle")) {
@@ -145,7 +140,7 @@ public class PreviewActorCreator {
 						StyleData stl = findStyleByName(List.class,
 								Main.main.getJsonData().getClassStyleMap(), (String)pp.getValue());
 						ListStyle ls = table.createPreviewStyle(ListStyle.class, stl);
-						ClassReflection.getField(clazz, pp.getName()).set(styleInstance, ls);
+						field.set(styleInstance, ls);
 
 					}
 					if(pp.getName().equals("scrollStyle")) {
@@ -155,13 +150,13 @@ public class PreviewActorCreator {
 						StyleData stl = findStyleByName(ScrollPane.class,
 								Main.main.getJsonData().getClassStyleMap(), (String)pp.getValue());
 						ScrollPaneStyle sp = table.createPreviewStyle(ScrollPaneStyle.class, stl);
-						ClassReflection.getField(clazz, pp.getName()).set(styleInstance, sp);
+						field.set(styleInstance, sp);
 					}
 	
 					break;
 				default:
 					System.out.println(pp.getType() + ": " + pp.getValue());
-					ClassReflection.getField(clazz, pp.getName()).set(styleInstance, pp.getValue());
+					field.set(styleInstance, pp.getValue());
 					break;
 				}
 			}
@@ -624,7 +619,7 @@ public class PreviewActorCreator {
 					}
 				}
 				CustomProperty pr = new CustomProperty(field.getName(), type);
-				customStyle.getProperties().add(pr);
+				customStyle.addProperty(pr);
 			}
         }
 	}
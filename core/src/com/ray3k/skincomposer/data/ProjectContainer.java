@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * MIT License
+ * 
+ * Copyright (c) 2018 Raymond Buckley
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.ray3k.skincomposer.data;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.OrderedMap;
+import com.badlogic.gdx.utils.UBJsonReader;
+import com.badlogic.gdx.utils.UBJsonWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compact binary project file. The file starts with an index of named
+ * sections followed by the sections themselves. Each section is a UBJSON
+ * value compressed with Deflate, so a section can be read without reading
+ * or decompressing any of the others.
+ * <p>
+ * Layout: magic, version, section count, then for every section its name,
+ * offset from the end of the index and length in bytes.
+ */
+public class ProjectContainer {
+    public static final String PREFERENCES = "preferences";
+    public static final String COLORS = "colors";
+    public static final String FONTS = "fonts";
+    public static final String FREE_TYPE_FONTS = "freeTypeFonts";
+    public static final String STYLES = "classStyleMap";
+    public static final String CUSTOM_CLASSES = "customClasses";
+    public static final String DRAWABLES = "drawables";
+    private static final int MAGIC = 0x53434D50; //"SCMP"
+    private static final int VERSION = 1;
+    private final FileHandle file;
+    private final ObjectMap<String, Section> sections;
+    private long dataStart;
+    
+    /**
+     * Reads the section index of the file.
+     * @param file
+     * @throws IOException If the file is not a project container.
+     */
+    public ProjectContainer(FileHandle file) throws IOException {
+        this.file = file;
+        sections = new ObjectMap<>();
+        
+        try (RandomAccessFile input = new RandomAccessFile(file.file(), "r")) {
+            if (input.readInt() != MAGIC) {
+                throw new IOException("Not a project container: " + file.path());
+            }
+            
+            int version = input.readInt();
+            if (version > VERSION) {
+                throw new IOException("Unsupported project container version " + version + ": " + file.path());
+            }
+            
+            int count = input.readInt();
+            for (int i = 0; i < count; i++) {
+                Section section = new Section();
+                String name = input.readUTF();
+                section.offset = input.readLong();
+                section.length = input.readInt();
+                sections.put(name, section);
+            }
+            dataStart = input.getFilePointer();
+        }
+    }
+    
+    /**
+     * Checks the first bytes of the file without reading the rest of it.
+     * @param file
+     * @return True if the file is a project container instead of JSON.
+     */
+    public static boolean isContainer(FileHandle file) {
+        if (!file.exists() || file.length() < 4) {
+            return false;
+        }
+        
+        try (DataInputStream input = new DataInputStream(file.read())) {
+            return input.readInt() == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+    
+    public boolean hasSection(String name) {
+        return sections.containsKey(name);
+    }
+    
+    /**
+     * Reads and decompresses a single section.
+     * @param name
+     * @return The section or null if the file does not contain it.
+     * @throws IOException 
+     */
+    public JsonValue readSection(String name) throws IOException {
+        Section section = sections.get(name);
+        if (section == null) {
+            return null;
+        }
+        
+        byte[] bytes = new byte[section.length];
+        try (RandomAccessFile input = new RandomAccessFile(file.file(), "r")) {
+            input.seek(dataStart + section.offset);
+            input.readFully(bytes);
+        }
+        
+        try (InputStream inputStream = new InflaterInputStream(new ByteArrayInputStream(bytes))) {
+            return new UBJsonReader().parse(inputStream);
+        }
+    }
+    
+    /**
+     * Writes the sections in order. Every section is compressed before the
+     * file is opened so that a failure does not leave a partial file.
+     * @param file
+     * @param values The JsonValue of each section by name.
+     * @throws IOException 
+     */
+    public static void write(FileHandle file, OrderedMap<String, JsonValue> values) throws IOException {
+        OrderedMap<String, byte[]> compressed = new OrderedMap<>();
+        for (ObjectMap.Entry<String, JsonValue> entry : values.entries()) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try {
+                UBJsonWriter writer = new UBJsonWriter(new DeflaterOutputStream(bytes, deflater));
+                writer.value(entry.value);
+                writer.close();
+            } finally {
+                deflater.end();
+            }
+            compressed.put(entry.key, bytes.toByteArray());
+        }
+        
+        try (DataOutputStream output = new DataOutputStream(file.write(false, 8192))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(compressed.size);
+            long offset = 0;
+            for (ObjectMap.Entry<String, byte[]> entry : compressed.entries()) {
+                output.writeUTF(entry.key);
+                output.writeLong(offset);
+                output.writeInt(entry.value.length);
+                offset += entry.value.length;
+            }
+            
+            for (byte[] bytes : compressed.values()) {
+                output.write(bytes);
+            }
+        }
+    }
+    
+    private static class Section {
+        long offset;
+        int length;
+    }
+}
@@ -32,6 +32,7 @@ import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
 import com.badlogic.gdx.utils.JsonWriter;
 import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.OrderedMap;
 import com.ray3k.skincomposer.Main;
 import com.ray3k.skincomposer.data.JsonData.ExportFormat;
 import java.util.Iterator;
@@ -46,10 +47,35 @@ public class ProjectData implements Json.Serializable {
     private Main main;
     private final JsonData jsonData;
     private final AtlasData atlasData;
+    private final ProjectJournal journal;
+    private final ProjectRecords records;
+    private final FontCache fontCache;
     
     public ProjectData() {
         jsonData = new JsonData();
         atlasData = new AtlasData();
+        journal = new ProjectJournal(new ProjectJournal.SaveListener() {
+            @Override
+            public void saved(FileHandle file) {
+                if (file.equals(saveFile)) {
+                    //the title names the file once it exists
+                    setChangesSaved(changesSaved);
+                }
+            }
+
+            @Override
+            public void failed(FileHandle file, Exception e) {
+                journal.invalidate();
+                if (file.equals(saveFile)) {
+                    setChangesSaved(false);
+                }
+                if (main != null && main.getRootTable() != null) {
+                    main.getDialogFactory().showDialogError("Error saving project...", "Error while attempting to save " + file.name() + ".\n\nOpen log?");
+                }
+            }
+        });
+        records = new ProjectRecords();
+        fontCache = new FontCache();
         
         changesSaved = false;
         newProject = true;
@@ -220,16 +246,18 @@ public class ProjectData implements Json.Serializable {
         }
         FileHandle targetFolder = newSave.sibling(newSave.nameWithoutExtension() + "_data/");
         
+        //only files in the import folders are checked on disk
         for (DrawableData drawableData : atlasData.getDrawables()) {
-            if (drawableData.file != null && drawableData.file.exists()) {
-                targetFolder.mkdirs();
+            if (drawableData.file != null) {
                 //drawable files in the temp folder
-                if (drawableData.file.parent().equals(tempImportFolder)) {
+                if (drawableData.file.parent().equals(tempImportFolder) && drawableData.file.exists()) {
+                    targetFolder.mkdirs();
                     drawableData.file.moveTo(targetFolder);
                     drawableData.file = targetFolder.child(drawableData.file.name());
                 }
                 //drawable files in the folder next to the old save
-                else if (localImportFolder != null && !localImportFolder.equals(targetFolder) && drawableData.file.parent().equals(localImportFolder)) {
+                else if (localImportFolder != null && !localImportFolder.equals(targetFolder) && drawableData.file.parent().equals(localImportFolder) && drawableData.file.exists()) {
+                    targetFolder.mkdirs();
                     drawableData.file.copyTo(targetFolder);
                     drawableData.file = targetFolder.child(drawableData.file.name());
                 }
@@ -237,33 +265,31 @@ public class ProjectData implements Json.Serializable {
         }
         
         for (FontData fontData : jsonData.getFonts()) {
-            if (fontData.file.exists()) {
+            //font files in the temp folder
+            if (fontData.file.parent().equals(tempImportFolder) && fontData.file.exists()) {
                 targetFolder.mkdirs();
-                
-                //font files in the temp folder
-                if (fontData.file.parent().equals(tempImportFolder)) {
-                    fontData.file.moveTo(targetFolder);
-                    fontData.file = targetFolder.child(fontData.file.name());
-                }
-                //font files in the data folder next to the old save
-                else if (localImportFolder != null && !localImportFolder.equals(targetFolder) && fontData.file.parent().equals(localImportFolder)) {
-                    fontData.file.copyTo(targetFolder);
-                    fontData.file = targetFolder.child(fontData.file.name());
-                }
+                fontData.file.moveTo(targetFolder);
+                fontData.file = targetFolder.child(fontData.file.name());
+            }
+            //font files in the data folder next to the old save
+            else if (localImportFolder != null && !localImportFolder.equals(targetFolder) && fontData.file.parent().equals(localImportFolder) && fontData.file.exists()) {
+                targetFolder.mkdirs();
+                fontData.file.copyTo(targetFolder);
+                fontData.file = targetFolder.child(fontData.file.name());
             }
         }
         
         for (FreeTypeFontData fontData : jsonData.getFreeTypeFonts()) {
-            if (fontData.file != null && fontData.file.exists()) {
-                targetFolder.mkdirs();
-                
+            if (fontData.file != null) {
                 //font files in the temp folder
-                if (fontData.file.parent().equals(tempImportFolder)) {
+                if (fontData.file.parent().equals(tempImportFolder) && fontData.file.exists()) {
+                    targetFolder.mkdirs();
                     fontData.file.moveTo(targetFolder);
                     fontData.file = targetFolder.child(fontData.file.name());
                 }
                 //font files in the data folder next to the old save
-                else if (localImportFolder != null && !localImportFolder.equals(targetFolder) && fontData.file.parent().equals(localImportFolder)) {
+                else if (localImportFolder != null && !localImportFolder.equals(targetFolder) && fontData.file.parent().equals(localImportFolder) && fontData.file.exists()) {
+                    targetFolder.mkdirs();
                     fontData.file.copyTo(targetFolder);
                     fontData.file = targetFolder.child(fontData.file.name());
                 }
@@ -275,7 +301,7 @@ public class ProjectData implements Json.Serializable {
         FileHandle targetFolder = saveFile.sibling(saveFile.nameWithoutExtension() + "_data/");
         
         for (DrawableData drawableData : main.getAtlasData().getDrawables()) {
-            if (drawableData.file.exists() && !targetFolder.equals(drawableData.file.parent())) {
+            if (!targetFolder.equals(drawableData.file.parent()) && drawableData.file.exists()) {
                 targetFolder.mkdirs();
                 drawableData.file.copyTo(targetFolder);
                 drawableData.file = targetFolder.child(drawableData.file.name());
@@ -283,14 +309,14 @@ public class ProjectData implements Json.Serializable {
         }
         
         for (FontData fontData : main.getJsonData().getFonts()) {
-            if (fontData.file.exists() && !targetFolder.equals(fontData.file.parent())) {
+            if (!targetFolder.equals(fontData.file.parent()) && fontData.file.exists()) {
                 fontData.file.copyTo(targetFolder);
                 fontData.file = targetFolder.child(fontData.file.name());
             }
         }
         
         for (FreeTypeFontData fontData : main.getJsonData().getFreeTypeFonts()) {
-            if (fontData.file != null && fontData.file.exists() && !targetFolder.equals(fontData.file.parent())) {
+            if (fontData.file != null && !targetFolder.equals(fontData.file.parent()) && fontData.file.exists()) {
                 fontData.file.copyTo(targetFolder);
                 fontData.file = targetFolder.child(fontData.file.name());
             }
@@ -310,10 +336,22 @@ public class ProjectData implements Json.Serializable {
         
         saveFile = file;
         putRecentFile(file.path());
-        Json json = new Json(JsonWriter.OutputType.minimal);
-        json.setUsePrototypes(false);
-        file.writeString(json.prettyPrint(this), false, "UTF8");
+        
+        //the records are collected here, the files are written on the journal's thread
+        //repeated saves of the same compact file only append the changes to its journal
+        //JSON project files are always written in full so that they stay readable without the journal
+        OrderedMap<String, OrderedMap<String, String>> records = new ProjectSerializer(jsonData, atlasData).writeRecords(preferences, this.records);
+        if (records == null) {
+            Json json = new Json(JsonWriter.OutputType.minimal);
+            json.setUsePrototypes(false);
+            journal.save(file, json.prettyPrint(this));
+        } else if (isUsingCompactFormat() && journal.canAppend(file, true)) {
+            journal.append(records);
+        } else {
+            journal.save(file, isUsingCompactFormat(), records);
+        }
         setChangesSaved(true);
+        ImageMetadataCache.get().save();
     }
     
     public void save() {
@@ -321,16 +359,21 @@ public class ProjectData implements Json.Serializable {
     }
     
     public void load(FileHandle file) {
-        Json json = new Json(JsonWriter.OutputType.minimal);
-        ProjectData instance = json.fromJson(ProjectData.class, file.reader("UTF8"));
-        newProject = instance.newProject;
-        jsonData.set(instance.jsonData);
-        for (FreeTypeFontData font : jsonData.getFreeTypeFonts()) {
-            font.createBitmapFont(main);
+        foldJournal();
+        journal.invalidate();
+        records.changedAll();
+        fontCache.evictUnused();
+        ObjectMap<String, Object> loadedPreferences = new ProjectSerializer(jsonData, atlasData).read(file);
+        newProject = true;
+        
+        //preview fonts upload textures, there is no GL context when running headless
+        if (main.getRootTable() != null) {
+            for (FreeTypeFontData font : jsonData.getFreeTypeFonts()) {
+                font.createBitmapFont(main);
+            }
         }
-        atlasData.set(instance.atlasData);
         preferences.clear();
-        preferences.putAll(instance.preferences);
+        preferences.putAll(loadedPreferences);
         
         //set main for custom classes, styles, and properties
         for (CustomClass customClass : jsonData.getCustomClasses()) {
@@ -338,15 +381,23 @@ public class ProjectData implements Json.Serializable {
         }
         
         saveFile = file;
-        putRecentFile(file.path());
-        setLastOpenSavePath(file.parent().path() + "/");
+        //the headless exporter must not change the editor's preferences
+        if (main.getRootTable() != null) {
+            putRecentFile(file.path());
+            setLastOpenSavePath(file.parent().path() + "/");
+        }
         atlasData.atlasCurrent = false;
         
         correctFilePaths();
         
-        if (verifyDrawablePaths().size == 0 && verifyFontPaths().size == 0) {
-            main.getRootTable().produceAtlas();
-            main.getRootTable().populate();
+        //there is no root table when running headless
+        if (main.getRootTable() != null) {
+            if (verifyDrawablePaths().size == 0 && verifyFontPaths().size == 0) {
+                //populated once the drawables of this project are ready
+                main.getRootTable().produceAtlasAsync();
+            } else {
+                main.getRootTable().populate();
+            }
         }
         setChangesSaved(true);
     }
@@ -411,6 +462,10 @@ public class ProjectData implements Json.Serializable {
         return errors;
     }
     
+    /**
+     * Points files that were moved into the project's data folder to their
+     * new location.
+     */
     private void correctFilePaths() {
         FileHandle targetFolder = saveFile.sibling(saveFile.nameWithoutExtension() + "_data/");
         
@@ -442,6 +497,10 @@ public class ProjectData implements Json.Serializable {
     }
     
     public void clear() {
+        foldJournal();
+        journal.invalidate();
+        records.changedAll();
+        fontCache.evictUnused();
         preferences.clear();
 
         randomizeId();
@@ -489,6 +548,27 @@ public class ProjectData implements Json.Serializable {
         return atlasData;
     }
 
+    public FontCache getFontCache() {
+        return fontCache;
+    }
+
+    public ProjectRecords getRecords() {
+        return records;
+    }
+    
+    /**
+     * Folds the journal of the last save into the project file and waits for
+     * every queued write to complete. Called when the project is closed or
+     * replaced, so the project file is complete without its journal.
+     */
+    public void foldJournal() {
+        try {
+            journal.fold();
+        } catch (RuntimeException e) {
+            Gdx.app.error(getClass().getName(), "Error folding project journal", e);
+        }
+    }
+
     public String getLastOpenSavePath() {
 
         return (String) generalPref.getString("last-open-save-path",
@@ -560,6 +640,19 @@ public class ProjectData implements Json.Serializable {
         preferences.put("resources-relative", resourcesRelative);
     }
     
+    /**
+     * Compact projects are saved as a binary {@link ProjectContainer} instead
+     * of JSON.
+     * @return 
+     */
+    public boolean isUsingCompactFormat() {
+        return (boolean) preferences.get("compact-format", false);
+    }
+    
+    public void setUsingCompactFormat(boolean compactFormat) {
+        preferences.put("compact-format", compactFormat);
+    }
+    
     public boolean isUsingSimpleNames() {
         return (boolean) preferences.get("simple-names", false);
     }
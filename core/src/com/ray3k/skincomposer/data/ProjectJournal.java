@@ -0,0 +1,366 @@
+/*******************************************************************************
+ * MIT License
+ * 
+ * Copyright (c) 2018 Raymond Buckley
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.ray3k.skincomposer.data;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.JsonWriter;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.OrderedMap;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Writes project files on a background thread and keeps the append-only log
+ * of the changes made to a compact project since its file was last written
+ * in full. The journal is kept next to the project file and every line is
+ * one change: a record of a section was put, removed or the records of a
+ * section were reordered. Saving compares the records of the project with
+ * the records of the previous save and appends only the differences.
+ * Records that did not change are cached by {@link ProjectRecords} and are
+ * the same instances as in the previous save, so only the changed records
+ * are actually compared. Once the journal grows past a quarter of the size
+ * of the project file it is folded into the project file. Smaller journals
+ * are folded by {@link #fold()} when the project is closed or replaced.
+ * <p>
+ * The methods of this class are called on the GL thread. They only collect
+ * the records and queue the file operations, which run one at a time in the
+ * order they were queued. The records are never modified once they are
+ * passed in, so the writer thread does not read the project.
+ * @see ProjectSerializer#writeRecords(com.badlogic.gdx.utils.ObjectMap, ProjectRecords)
+ */
+public class ProjectJournal {
+    public static final String PUT = "put";
+    public static final String REMOVE = "remove";
+    public static final String ORDER = "order";
+    private static final long MIN_COMPACTION_SIZE = 64 * 1024;
+    private static ExecutorService writeExecutor;
+    private final SaveListener listener;
+    private FileHandle file;
+    private boolean compactFormat;
+    private OrderedMap<String, OrderedMap<String, String>> records;
+    private long projectLength;
+    private long journalLength;
+    private Future<?> lastWrite;
+    
+    public ProjectJournal(SaveListener listener) {
+        this.listener = listener;
+    }
+    
+    public static FileHandle getJournalFile(FileHandle projectFile) {
+        return projectFile.sibling(projectFile.name() + ".journal");
+    }
+    
+    /**
+     * The journal is moved here while a new project file replaces the old one
+     * and deleted once the replacement succeeded.
+     * @param projectFile
+     * @return 
+     */
+    private static FileHandle getReplacedJournalFile(FileHandle projectFile) {
+        return projectFile.sibling(projectFile.name() + ".journal.old");
+    }
+    
+    private static FileHandle getTempFile(FileHandle projectFile) {
+        return projectFile.sibling(projectFile.name() + ".tmp");
+    }
+    
+    /**
+     * Finishes a replacement of the project file that was interrupted. If the
+     * new project file was not moved into place yet, the old project file is
+     * still current and gets its journal back. Otherwise the journal was
+     * already folded into the new file and is deleted. Called before the
+     * project file is read.
+     * @param projectFile 
+     */
+    public static void recover(FileHandle projectFile) {
+        FileHandle replacedJournal = getReplacedJournalFile(projectFile);
+        if (replacedJournal.exists()) {
+            FileHandle tempFile = getTempFile(projectFile);
+            try {
+                if (tempFile.exists()) {
+                    move(replacedJournal, getJournalFile(projectFile));
+                    tempFile.delete();
+                } else {
+                    replacedJournal.delete();
+                }
+            } catch (IOException e) {
+                Gdx.app.error(ProjectJournal.class.getName(), "Error recovering project journal: " + projectFile.path(), e);
+            }
+        }
+    }
+    
+    /**
+     * Save can only append to the journal if the previous save wrote the
+     * same file in the same format during this session.
+     * @param file
+     * @param compactFormat
+     * @return 
+     */
+    public boolean canAppend(FileHandle file, boolean compactFormat) {
+        return records != null && file.equals(this.file) && compactFormat == this.compactFormat;
+    }
+    
+    /**
+     * Forgets the records of the last save so that the next save writes the
+     * project file in full. Writes that are already queued still complete.
+     * The journal file itself is kept.
+     */
+    public void invalidate() {
+        file = null;
+        records = null;
+        journalLength = 0;
+    }
+    
+    /**
+     * Queues a full write of the project file. The journal is replaced along
+     * with the project file.
+     * @param file
+     * @param compactFormat
+     * @param records 
+     */
+    public void save(FileHandle file, boolean compactFormat, OrderedMap<String, OrderedMap<String, String>> records) {
+        this.file = file;
+        this.compactFormat = compactFormat;
+        this.records = records;
+        journalLength = 0;
+        projectLength = 0;
+        for (OrderedMap<String, String> section : records.values()) {
+            for (String record : section.values()) {
+                projectLength += record.length();
+            }
+        }
+        
+        String saveFilePath = file.path();
+        queue(file, () -> replace(file, tempFile -> ProjectSerializer.writeProject(tempFile, compactFormat, records, saveFilePath)));
+    }
+    
+    /**
+     * Queues a full write of a project that can't be split into records. The
+     * next save writes the project in full again.
+     * @param file
+     * @param text 
+     */
+    public void save(FileHandle file, String text) {
+        invalidate();
+        queue(file, () -> replace(file, tempFile -> tempFile.writeString(text, false, "UTF8")));
+    }
+    
+    /**
+     * Queues a full write of the records of the last save if anything was
+     * appended to the journal since, then waits for every queued write to
+     * complete.
+     */
+    public void fold() {
+        if (records != null && journalLength > 0) {
+            save(file, compactFormat, records);
+        }
+        finish();
+    }
+    
+    /**
+     * Waits for every queued write to complete. Failures were already
+     * reported to the listener.
+     */
+    public void finish() {
+        if (lastWrite != null) {
+            try {
+                lastWrite.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                //reported by the task
+            }
+            lastWrite = null;
+        }
+    }
+    
+    /**
+     * Queues the differences between the records and the records of the
+     * previous save to be appended to the journal. The differences are
+     * collected on the calling thread.
+     * @param records 
+     */
+    public void append(OrderedMap<String, OrderedMap<String, String>> records) {
+        StringBuilder builder = new StringBuilder();
+        for (ObjectMap.Entry<String, OrderedMap<String, String>> entry : records.entries()) {
+            OrderedMap<String, String> previous = this.records.get(entry.key);
+            writeChanges(builder, entry.key, previous == null ? new OrderedMap<>() : previous, entry.value);
+        }
+        
+        for (ObjectMap.Entry<String, OrderedMap<String, String>> entry : this.records.entries()) {
+            if (!records.containsKey(entry.key)) {
+                writeChanges(builder, entry.key, entry.value, new OrderedMap<>());
+            }
+        }
+        
+        if (builder.length() > 0) {
+            FileHandle journalFile = getJournalFile(file);
+            String changes = builder.toString();
+            queue(file, () -> journalFile.writeString(changes, true, "UTF8"));
+            journalLength += changes.length();
+        }
+        this.records = records;
+        
+        if (journalLength > Math.max(MIN_COMPACTION_SIZE, projectLength / 4)) {
+            save(file, compactFormat, records);
+        }
+    }
+    
+    private void writeChanges(StringBuilder builder, String section, OrderedMap<String, String> previous, OrderedMap<String, String> current) {
+        Array<String> expectedOrder = new Array<>();
+        for (String key : previous.orderedKeys()) {
+            if (current.containsKey(key)) {
+                expectedOrder.add(key);
+            } else {
+                writeChange(builder, REMOVE, section, key, null);
+            }
+        }
+        
+        for (ObjectMap.Entry<String, String> entry : current.entries()) {
+            String previousRecord = previous.get(entry.key);
+            if (previousRecord == null) {
+                expectedOrder.add(entry.key);
+            }
+            
+            //unchanged records are the same instance, only serialized records are compared
+            if (entry.value != previousRecord && !entry.value.equals(previousRecord)) {
+                writeChange(builder, PUT, section, entry.key, entry.value);
+            }
+        }
+        
+        //new records are appended when the journal is applied
+        if (!section.equals(ProjectContainer.PREFERENCES) && !expectedOrder.equals(current.orderedKeys())) {
+            builder.append("{\"op\":\"").append(ORDER).append("\",\"section\":").append(JsonWriter.OutputType.json.quoteValue(section));
+            builder.append(",\"keys\":[");
+            for (int i = 0; i < current.orderedKeys().size; i++) {
+                if (i > 0) {
+                    builder.append(',');
+                }
+                builder.append(JsonWriter.OutputType.json.quoteValue(current.orderedKeys().get(i)));
+            }
+            builder.append("]}\n");
+        }
+    }
+    
+    private void writeChange(StringBuilder builder, String op, String section, String key, String record) {
+        builder.append("{\"op\":\"").append(op).append("\",\"section\":").append(JsonWriter.OutputType.json.quoteValue(section));
+        builder.append(",\"key\":").append(JsonWriter.OutputType.json.quoteValue(key));
+        if (record != null) {
+            builder.append(",\"value\":").append(record);
+        }
+        builder.append("}\n");
+    }
+    
+    private void queue(FileHandle file, WriteTask task) {
+        lastWrite = getWriteExecutor().submit(() -> {
+            try {
+                task.write();
+                Gdx.app.postRunnable(() -> listener.saved(file));
+            } catch (IOException | RuntimeException e) {
+                Gdx.app.error(ProjectJournal.class.getName(), "Error writing project file: " + file.path(), e);
+                Gdx.app.postRunnable(() -> listener.failed(file, e));
+            }
+        });
+    }
+    
+    /**
+     * Writes a new project file next to the old one and moves it into place.
+     * The journal is moved aside first and only deleted once the new file is
+     * in place, because its changes must never be applied to a newer project
+     * file. {@link #recover(FileHandle)} completes the replacement if the
+     * process stops in between.
+     * @param file
+     * @param writer
+     * @throws IOException 
+     */
+    private static void replace(FileHandle file, TempFileWriter writer) throws IOException {
+        FileHandle tempFile = getTempFile(file);
+        FileHandle journalFile = getJournalFile(file);
+        FileHandle replacedJournal = getReplacedJournalFile(file);
+        try {
+            writer.write(tempFile);
+        } catch (RuntimeException e) {
+            tempFile.delete();
+            throw e;
+        }
+        
+        if (journalFile.exists()) {
+            move(journalFile, replacedJournal);
+        }
+        try {
+            move(tempFile, file);
+        } catch (IOException e) {
+            if (replacedJournal.exists()) {
+                move(replacedJournal, journalFile);
+            }
+            tempFile.delete();
+            throw e;
+        }
+        replacedJournal.delete();
+    }
+    
+    private static void move(FileHandle source, FileHandle target) throws IOException {
+        try {
+            Files.move(source.file().toPath(), target.file().toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source.file().toPath(), target.file().toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    
+    private static synchronized ExecutorService getWriteExecutor() {
+        if (writeExecutor == null) {
+            writeExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "Project writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return writeExecutor;
+    }
+    
+    private static interface WriteTask {
+        public void write() throws IOException;
+    }
+    
+    private static interface TempFileWriter {
+        public void write(FileHandle tempFile);
+    }
+    
+    /**
+     * Called on the GL thread when a queued write completed.
+     */
+    public static interface SaveListener {
+        public void saved(FileHandle file);
+        
+        public void failed(FileHandle file, Exception e);
+    }
+}
@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * MIT License
+ * 
+ * Copyright (c) 2018 Raymond Buckley
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.ray3k.skincomposer.data;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.utils.IdentityMap;
+import com.badlogic.gdx.utils.Json;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.reflect.ClassReflection;
+import com.badlogic.gdx.utils.reflect.Field;
+import com.badlogic.gdx.utils.reflect.ReflectionException;
+import java.util.Arrays;
+
+/**
+ * Keeps the serialized record of every item written by the last save, so
+ * that the next save only serializes the items that changed since. Styles
+ * and custom classes report their own changes through
+ * {@link #changed(Object)} from their setters and from
+ * {@link StyleData#invalidate()}. Colors, fonts and drawables are edited in
+ * place through their public fields, so their fields are compared with the
+ * values they had when the record was serialized instead. Items that are
+ * not cached yet, such as new items, are always serialized.
+ */
+public class ProjectRecords {
+    private static final ObjectMap<Class, Field[]> fieldCache = new ObjectMap<>();
+    private IdentityMap<Object, Record> records;
+    private IdentityMap<Object, Record> nextRecords;
+    private boolean allChanged;
+
+    public ProjectRecords() {
+        records = new IdentityMap<>();
+        nextRecords = new IdentityMap<>();
+        allChanged = true;
+    }
+    
+    /**
+     * Serializes the item again on the next save.
+     * @param item 
+     */
+    public void changed(Object item) {
+        records.remove(item);
+    }
+    
+    /**
+     * Serializes every item again on the next save. Called when the project
+     * is replaced or items are changed in bulk.
+     */
+    public void changedAll() {
+        allChanged = true;
+    }
+    
+    /**
+     * Returns the record of the item, serializing it only if it changed. The
+     * record is kept for the next save once {@link #finish()} is called.
+     * @param item
+     * @param knownType
+     * @param compareFields True if the item does not report its changes and
+     * its fields are compared instead.
+     * @param json
+     * @return 
+     */
+    String get(Object item, Class knownType, boolean compareFields, Json json) {
+        Object[] state = compareFields ? getState(item) : null;
+        Record record = allChanged ? null : records.get(item);
+        if (record == null || compareFields && !Arrays.equals(state, record.state)) {
+            record = new Record(json.toJson(item, knownType), state);
+        }
+        nextRecords.put(item, record);
+        return record.text;
+    }
+    
+    /**
+     * Keeps the records returned by {@link #get(Object, Class, boolean, Json)}
+     * since the last call. Items that were not written are dropped, so they
+     * are serialized again if they are written later.
+     */
+    void finish() {
+        IdentityMap<Object, Record> swap = records;
+        records = nextRecords;
+        nextRecords = swap;
+        nextRecords.clear();
+        allChanged = false;
+    }
+    
+    /**
+     * The values of the instance fields of the item. Colors are copied
+     * because they are edited in place.
+     * @param item
+     * @return 
+     */
+    private static Object[] getState(Object item) {
+        Field[] fields = getFields(item.getClass());
+        Object[] state = new Object[fields.length];
+        try {
+            for (int i = 0; i < fields.length; i++) {
+                Object value = fields[i].get(item);
+                state[i] = value instanceof Color ? new Color((Color) value) : value;
+            }
+        } catch (ReflectionException e) {
+            //serialize the item every time
+            return new Object[] {new Object()};
+        }
+        return state;
+    }
+    
+    private static synchronized Field[] getFields(Class type) {
+        Field[] fields = fieldCache.get(type);
+        if (fields == null) {
+            int count = 0;
+            Field[] declaredFields = ClassReflection.getDeclaredFields(type);
+            for (Field field : declaredFields) {
+                if (!field.isStatic() && !field.isTransient()) {
+                    field.setAccessible(true);
+                    declaredFields[count++] = field;
+                }
+            }
+            fields = Arrays.copyOf(declaredFields, count);
+            fieldCache.put(type, fields);
+        }
+        return fields;
+    }
+    
+    private static class Record {
+        private final String text;
+        private final Object[] state;
+
+        public Record(String text, Object[] state) {
+            this.text = text;
+            this.state = state;
+        }
+    }
+}
@@ -0,0 +1,680 @@
+/*******************************************************************************
+ * MIT License
+ * 
+ * Copyright (c) 2018 Raymond Buckley
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.ray3k.skincomposer.data;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.Json;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.JsonWriter;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.OrderedMap;
+import com.badlogic.gdx.utils.SerializationException;
+import com.badlogic.gdx.utils.reflect.ClassReflection;
+import com.badlogic.gdx.utils.reflect.ReflectionException;
+import com.ray3k.skincomposer.dialog.DialogFactory;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.function.Function;
+
+/**
+ * Reads a project file directly into the live project model. JsonReader
+ * still reads the whole file text into memory, but no JsonValue document of
+ * the file is built. Only the record currently being read, such as a single
+ * drawable or style, is kept as a JsonValue. Each record is read by the
+ * data class itself instead of through reflection and then discarded.
+ * Project files are written with {@link com.badlogic.gdx.utils.Json} either
+ * as a single JSON document or as a {@link ProjectContainer}. Changes
+ * appended to the {@link ProjectJournal} of the file are applied after the
+ * file itself has been read.
+ * <p>
+ * For writing, the project is broken into records grouped by section. A
+ * record is the JSON of a single preference, color, font, style, custom
+ * class or drawable. Records are keyed by name within their section.
+ */
+public class ProjectSerializer {
+    public static final String STYLE_SECTION_PREFIX = ProjectContainer.STYLES + "/";
+    private static final ObjectMap<String, Class> classCache = new ObjectMap<>();
+    private final JsonData jsonData;
+    private final AtlasData atlasData;
+    private final ObjectMap<String, Object> preferences;
+
+    public ProjectSerializer(JsonData jsonData, AtlasData atlasData) {
+        this.jsonData = jsonData;
+        this.atlasData = atlasData;
+        preferences = new ObjectMap<>();
+    }
+    
+    /**
+     * Replaces the contents of the JsonData and AtlasData with the project
+     * stored in the file.
+     * @param file
+     * @return The project preferences stored in the file.
+     */
+    public ObjectMap<String, Object> read(FileHandle file) {
+        jsonData.clearForRead();
+        atlasData.clear();
+        preferences.clear();
+        ProjectJournal.recover(file);
+        
+        if (ProjectContainer.isContainer(file)) {
+            readContainer(file);
+        } else {
+            new ProjectReader().parse(file);
+        }
+        
+        FileHandle journalFile = ProjectJournal.getJournalFile(file);
+        if (journalFile.exists()) {
+            applyJournal(journalFile);
+        }
+        
+        jsonData.correctPreviewFonts();
+        jsonData.invalidateNameIndexes();
+        atlasData.invalidateNameIndex();
+        jsonData.getReferenceIndex().rebuild();
+        return preferences;
+    }
+    
+    /**
+     * Collects the record of every item of the project. Only the items that
+     * changed since the last save are serialized, the others are taken from
+     * the cache. The preferences are always serialized.
+     * @param preferences
+     * @param cache
+     * @return The JSON of every record by key, grouped by section. Returns
+     * null if two records in the same section share a key, in which case
+     * the project can only be written with Json directly.
+     */
+    public OrderedMap<String, OrderedMap<String, String>> writeRecords(ObjectMap<String, Object> preferences, ProjectRecords cache) {
+        Json json = new Json(JsonWriter.OutputType.minimal);
+        json.setUsePrototypes(false);
+        
+        OrderedMap<String, OrderedMap<String, String>> records = new OrderedMap<>();
+        OrderedMap<String, String> section = new OrderedMap<>();
+        for (ObjectMap.Entry<String, Object> entry : preferences.entries()) {
+            section.put(entry.key, json.toJson(entry.value, (Class) null));
+        }
+        records.put(ProjectContainer.PREFERENCES, section);
+        
+        //resources are edited through their fields, styles and custom classes report their changes
+        boolean unique = writeRecords(records, ProjectContainer.COLORS, jsonData.getColors(), ColorData::getName, null, true, json, cache)
+                && writeRecords(records, ProjectContainer.FONTS, jsonData.getFonts(), FontData::getName, null, true, json, cache)
+                && writeRecords(records, ProjectContainer.FREE_TYPE_FONTS, jsonData.getFreeTypeFonts(), font -> font.name, null, true, json, cache);
+        for (ObjectMap.Entry<Class, Array<StyleData>> entry : jsonData.getClassStyleMap().entries()) {
+            unique = unique && writeRecords(records, STYLE_SECTION_PREFIX + entry.key.getName(), entry.value, style -> style.name, null, false, json, cache);
+        }
+        unique = unique && writeRecords(records, ProjectContainer.CUSTOM_CLASSES, jsonData.getCustomClasses(), CustomClass::getFullyQualifiedName, CustomClass.class, false, json, cache)
+                && writeRecords(records, ProjectContainer.DRAWABLES, atlasData.getDrawables(), drawable -> drawable.name, DrawableData.class, true, json, cache);
+        cache.finish();
+        
+        return unique ? records : null;
+    }
+    
+    private <T> boolean writeRecords(OrderedMap<String, OrderedMap<String, String>> records, String sectionName, Array<T> items, Function<T, String> keyProvider, Class knownType, boolean compareFields, Json json, ProjectRecords cache) {
+        OrderedMap<String, String> section = new OrderedMap<>();
+        for (T item : items) {
+            String key = keyProvider.apply(item);
+            if (key == null || section.containsKey(key)) {
+                return false;
+            }
+            //elements of untyped Arrays are written with their class
+            section.put(key, cache.get(item, knownType, compareFields, json));
+        }
+        records.put(sectionName, section);
+        return true;
+    }
+    
+    /**
+     * Writes the records as a project file.
+     * @param file
+     * @param compactFormat Write a {@link ProjectContainer} instead of JSON.
+     * @param records
+     * @param saveFilePath 
+     */
+    public static void writeProject(FileHandle file, boolean compactFormat, OrderedMap<String, OrderedMap<String, String>> records, String saveFilePath) {
+        if (compactFormat) {
+            OrderedMap<String, JsonValue> sections = new OrderedMap<>();
+            JsonReader reader = new JsonReader();
+            sections.put(ProjectContainer.PREFERENCES, reader.parse(toJsonObject(records.get(ProjectContainer.PREFERENCES))));
+            sections.put(ProjectContainer.COLORS, reader.parse(toJsonArray(records.get(ProjectContainer.COLORS))));
+            sections.put(ProjectContainer.FONTS, reader.parse(toJsonArray(records.get(ProjectContainer.FONTS))));
+            sections.put(ProjectContainer.FREE_TYPE_FONTS, reader.parse(toJsonArray(records.get(ProjectContainer.FREE_TYPE_FONTS))));
+            sections.put(ProjectContainer.STYLES, reader.parse(toStylesJson(records)));
+            sections.put(ProjectContainer.CUSTOM_CLASSES, reader.parse(toJsonArray(records.get(ProjectContainer.CUSTOM_CLASSES))));
+            sections.put(ProjectContainer.DRAWABLES, reader.parse(toJsonArray(records.get(ProjectContainer.DRAWABLES))));
+            
+            try {
+                ProjectContainer.write(file, sections);
+            } catch (IOException e) {
+                throw new GdxRuntimeException("Error writing project file: " + file.path(), e);
+            }
+        } else {
+            StringBuilder builder = new StringBuilder();
+            builder.append("{\"atlasData\":{\"atlasCurrent\":false,\"drawables\":");
+            builder.append(toJsonArray(records.get(ProjectContainer.DRAWABLES)));
+            builder.append("},\"jsonData\":{\"colors\":");
+            builder.append(toJsonArray(records.get(ProjectContainer.COLORS)));
+            builder.append(",\"fonts\":");
+            builder.append(toJsonArray(records.get(ProjectContainer.FONTS)));
+            builder.append(",\"freeTypeFonts\":");
+            builder.append(toJsonArray(records.get(ProjectContainer.FREE_TYPE_FONTS)));
+            builder.append(",\"classStyleMap\":");
+            builder.append(toStylesJson(records));
+            builder.append(",\"customClasses\":");
+            builder.append(toJsonArray(records.get(ProjectContainer.CUSTOM_CLASSES)));
+            builder.append("},\"preferences\":");
+            builder.append(toJsonObject(records.get(ProjectContainer.PREFERENCES)));
+            builder.append(",\"saveFile\":");
+            builder.append(saveFilePath == null ? "null" : JsonWriter.OutputType.json.quoteValue(saveFilePath));
+            builder.append("}");
+            
+            //formatted the same way as Json.prettyPrint(ProjectData)
+            file.writeString(new Json(JsonWriter.OutputType.minimal).prettyPrint(builder.toString()), false, "UTF8");
+        }
+    }
+    
+    private static String toJsonArray(OrderedMap<String, String> section) {
+        StringBuilder builder = new StringBuilder("[");
+        if (section != null) {
+            for (String record : section.values()) {
+                if (builder.length() > 1) {
+                    builder.append(',');
+                }
+                builder.append(record);
+            }
+        }
+        return builder.append(']').toString();
+    }
+    
+    private static String toJsonObject(OrderedMap<String, String> section) {
+        StringBuilder builder = new StringBuilder("{");
+        if (section != null) {
+            for (ObjectMap.Entry<String, String> entry : section.entries()) {
+                if (builder.length() > 1) {
+                    builder.append(',');
+                }
+                builder.append(JsonWriter.OutputType.json.quoteName(entry.key)).append(':').append(entry.value);
+            }
+        }
+        return builder.append('}').toString();
+    }
+    
+    private static String toStylesJson(OrderedMap<String, OrderedMap<String, String>> records) {
+        StringBuilder builder = new StringBuilder("{");
+        for (ObjectMap.Entry<String, OrderedMap<String, String>> entry : records.entries()) {
+            if (entry.key.startsWith(STYLE_SECTION_PREFIX)) {
+                if (builder.length() > 1) {
+                    builder.append(',');
+                }
+                builder.append(JsonWriter.OutputType.json.quoteName(entry.key.substring(STYLE_SECTION_PREFIX.length())));
+                builder.append(':').append(toJsonArray(entry.value));
+            }
+        }
+        return builder.append('}').toString();
+    }
+    
+    /**
+     * Applies the changes recorded in a journal to the model. Every change
+     * replaces, removes or reorders records by key, so applying a change
+     * that is already part of the project file has no effect.
+     * @param journalFile 
+     */
+    private void applyJournal(FileHandle journalFile) {
+        JsonReader reader = new JsonReader();
+        try (BufferedReader lines = journalFile.reader(8192, "UTF8")) {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                
+                JsonValue change;
+                try {
+                    change = reader.parse(line);
+                } catch (SerializationException e) {
+                    //a save was interrupted while the change was written
+                    Gdx.app.error(getClass().getName(), "Ignoring incomplete journal entry in " + journalFile.path(), e);
+                    break;
+                }
+                applyChange(change);
+            }
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Error reading project journal: " + journalFile.path(), e);
+        }
+    }
+    
+    private void applyChange(JsonValue change) {
+        String section = change.getString("section");
+        if (section.equals(ProjectContainer.PREFERENCES)) {
+            if (change.getString("op").equals(ProjectJournal.PUT)) {
+                preferences.put(change.getString("key"), readUntypedValue(change.get("value")));
+            } else if (change.getString("op").equals(ProjectJournal.REMOVE)) {
+                preferences.remove(change.getString("key"));
+            }
+        } else if (section.equals(ProjectContainer.COLORS)) {
+            applyChange(change, jsonData.getColors(), ColorData::getName, this::createColor);
+        } else if (section.equals(ProjectContainer.FONTS)) {
+            applyChange(change, jsonData.getFonts(), FontData::getName, this::createFont);
+        } else if (section.equals(ProjectContainer.FREE_TYPE_FONTS)) {
+            applyChange(change, jsonData.getFreeTypeFonts(), font -> font.name, this::createFreeTypeFont);
+        } else if (section.equals(ProjectContainer.CUSTOM_CLASSES)) {
+            applyChange(change, jsonData.getCustomClasses(), CustomClass::getFullyQualifiedName, this::createCustomClass);
+        } else if (section.equals(ProjectContainer.DRAWABLES)) {
+            applyChange(change, atlasData.getDrawables(), drawable -> drawable.name, this::createDrawable);
+        } else if (section.startsWith(STYLE_SECTION_PREFIX)) {
+            String className = section.substring(STYLE_SECTION_PREFIX.length());
+            Array<StyleData> styles = null;
+            for (ObjectMap.Entry<Class, Array<StyleData>> entry : jsonData.getClassStyleMap().entries()) {
+                if (entry.key.getName().equals(className)) {
+                    styles = entry.value;
+                    break;
+                }
+            }
+            
+            if (styles == null) {
+                styles = startStyleClass(className);
+            }
+            
+            if (styles != null) {
+                applyChange(change, styles, style -> style.name, this::createStyle);
+            }
+        }
+    }
+    
+    private <T> void applyChange(JsonValue change, Array<T> items, Function<T, String> keyProvider, Function<JsonValue, T> factory) {
+        String op = change.getString("op");
+        if (op.equals(ProjectJournal.ORDER)) {
+            Array<T> ordered = new Array<>(items.size);
+            for (JsonValue key = change.get("keys").child; key != null; key = key.next) {
+                int index = indexOf(items, keyProvider, key.asString());
+                if (index != -1) {
+                    ordered.add(items.get(index));
+                }
+            }
+            
+            //keep anything the journal does not know about at the end
+            for (T item : items) {
+                if (!ordered.contains(item, true)) {
+                    ordered.add(item);
+                }
+            }
+            items.clear();
+            items.addAll(ordered);
+        } else {
+            int index = indexOf(items, keyProvider, change.getString("key"));
+            if (op.equals(ProjectJournal.PUT)) {
+                T item = factory.apply(change.get("value"));
+                if (index == -1) {
+                    items.add(item);
+                } else {
+                    items.set(index, item);
+                }
+            } else if (op.equals(ProjectJournal.REMOVE) && index != -1) {
+                items.removeIndex(index);
+            }
+        }
+    }
+    
+    private <T> int indexOf(Array<T> items, Function<T, String> keyProvider, String key) {
+        for (int i = 0; i < items.size; i++) {
+            if (key.equals(keyProvider.apply(items.get(i)))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    private void readContainer(FileHandle file) {
+        try {
+            ProjectContainer container = new ProjectContainer(file);
+            
+            JsonValue section = container.readSection(ProjectContainer.PREFERENCES);
+            for (JsonValue record = section == null ? null : section.child; record != null; record = record.next) {
+                preferences.put(record.name, readUntypedValue(record));
+            }
+            
+            section = container.readSection(ProjectContainer.COLORS);
+            for (JsonValue record = section == null ? null : section.child; record != null; record = record.next) {
+                jsonData.getColors().add(createColor(record));
+            }
+            
+            section = container.readSection(ProjectContainer.FONTS);
+            for (JsonValue record = section == null ? null : section.child; record != null; record = record.next) {
+                jsonData.getFonts().add(createFont(record));
+            }
+            
+            section = container.readSection(ProjectContainer.FREE_TYPE_FONTS);
+            for (JsonValue record = section == null ? null : section.child; record != null; record = record.next) {
+                jsonData.getFreeTypeFonts().add(createFreeTypeFont(record));
+            }
+            
+            section = container.readSection(ProjectContainer.STYLES);
+            for (JsonValue styleClass = section == null ? null : section.child; styleClass != null; styleClass = styleClass.next) {
+                Array<StyleData> styles = startStyleClass(styleClass.name);
+                if (styles != null) {
+                    for (JsonValue record = styleClass.child; record != null; record = record.next) {
+                        styles.add(createStyle(record));
+                    }
+                }
+            }
+            
+            section = container.readSection(ProjectContainer.CUSTOM_CLASSES);
+            for (JsonValue record = section == null ? null : section.child; record != null; record = record.next) {
+                jsonData.getCustomClasses().add(createCustomClass(record));
+            }
+            
+            section = container.readSection(ProjectContainer.DRAWABLES);
+            for (JsonValue record = section == null ? null : section.child; record != null; record = record.next) {
+                atlasData.getDrawables().add(createDrawable(record));
+            }
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Error reading project file: " + file.path(), e);
+        }
+    }
+    
+    /**
+     * Equivalent to {@link ClassReflection#forName(java.lang.String)}, but the
+     * result is cached because every style and style property names its class.
+     * @param name
+     * @return
+     * @throws ReflectionException 
+     */
+    public static Class forName(String name) throws ReflectionException {
+        synchronized (classCache) {
+            Class clazz = classCache.get(name);
+            if (clazz == null) {
+                clazz = ClassReflection.forName(name);
+                classCache.put(name, clazz);
+            }
+            return clazz;
+        }
+    }
+    
+    /**
+     * Reads a Color written by Json.
+     * @param value
+     * @return The color or null if the value is missing or null.
+     */
+    public static Color readColor(JsonValue value) {
+        if (value == null || value.isNull()) {
+            return null;
+        }
+        
+        return new Color(value.getFloat("r", 0.0f), value.getFloat("g", 0.0f), value.getFloat("b", 0.0f), value.getFloat("a", 0.0f));
+    }
+    
+    /**
+     * Reads a value that was written without a known type, matching what Json
+     * returns for a null type. Numbers become Floats unless the value was
+     * written with a class tag.
+     * @param value
+     * @return 
+     */
+    public static Object readUntypedValue(JsonValue value) {
+        if (value == null || value.isNull()) {
+            return null;
+        } else if (value.isString()) {
+            return value.asString();
+        } else if (value.isNumber()) {
+            return value.asFloat();
+        } else if (value.isBoolean()) {
+            return value.asBoolean();
+        } else if (value.has("class")) {
+            return readTypedValue(value.getString("class"), value.get("value"));
+        } else {
+            throw new SerializationException("Unable to read untyped value: " + value);
+        }
+    }
+    
+    private static Object readTypedValue(String className, JsonValue value) {
+        if (value == null || value.isNull()) {
+            return null;
+        }
+        
+        switch (className) {
+            case "java.lang.String":
+                return value.asString();
+            case "java.lang.Boolean":
+                return value.asBoolean();
+            case "java.lang.Integer":
+                return value.asInt();
+            case "java.lang.Long":
+                return value.asLong();
+            case "java.lang.Float":
+                return value.asFloat();
+            case "java.lang.Double":
+                return value.asDouble();
+            case "java.lang.Short":
+                return value.asShort();
+            case "java.lang.Byte":
+                return value.asByte();
+            default:
+                throw new SerializationException("Unsupported value type: " + className);
+        }
+    }
+    
+    private DrawableData createDrawable(JsonValue record) {
+        DrawableData drawable = new DrawableData();
+        drawable.read(record);
+        return drawable;
+    }
+    
+    private ColorData createColor(JsonValue record) {
+        try {
+            return new ColorData(record.getString("name"), readColor(record.get("color")));
+        } catch (ColorData.NameFormatException e) {
+            throw new SerializationException("Invalid color name: " + record.getString("name", null), e);
+        }
+    }
+    
+    private FontData createFont(JsonValue record) {
+        FontData font = new FontData();
+        font.read(record);
+        return font;
+    }
+    
+    private FreeTypeFontData createFreeTypeFont(JsonValue record) {
+        FreeTypeFontData font = new FreeTypeFontData();
+        font.read(record);
+        return font;
+    }
+    
+    private CustomClass createCustomClass(JsonValue record) {
+        CustomClass customClass = new CustomClass();
+        customClass.read(record);
+        return customClass;
+    }
+    
+    private Array<StyleData> startStyleClass(String className) {
+        try {
+            Class clazz = forName(className);
+            Array<StyleData> styles = new Array<>();
+            jsonData.getClassStyleMap().put(clazz, styles);
+            return styles;
+        } catch (ReflectionException e) {
+            Gdx.app.error(getClass().getName(), "Error parsing json data during file read", e);
+            DialogFactory.showDialogErrorStatic("Error while reading file...", "Error while attempting to read save file.\nPlease ensure that file is not corrupted.\n\nOpen error log?");
+            return null;
+        }
+    }
+    
+    private StyleData createStyle(JsonValue record) {
+        StyleData style = new StyleData();
+        style.read(record);
+        style.jsonData = jsonData;
+        return style;
+    }
+    
+    /**
+     * Parses the project file without building a document. Containers
+     * outside of records are tracked by name only. A record is started when a
+     * value opens inside one of the collections of the model.
+     */
+    private class ProjectReader extends JsonReader {
+        private final Array<String> path = new Array<>();
+        private final Array<JsonValue> stack = new Array<>();
+        private final Array<JsonValue> lastChildren = new Array<>();
+        private Array<StyleData> styles;
+
+        @Override
+        protected void startObject(String name) {
+            push(name, new JsonValue(JsonValue.ValueType.object));
+        }
+
+        @Override
+        protected void startArray(String name) {
+            push(name, new JsonValue(JsonValue.ValueType.array));
+        }
+        
+        private void push(String name, JsonValue value) {
+            if (stack.size > 0) {
+                value.name = name;
+                addChild(value);
+                stack.add(value);
+                lastChildren.add(null);
+            } else if (isRecordCollection()) {
+                value.name = name;
+                stack.add(value);
+                lastChildren.add(null);
+            } else {
+                path.add(name);
+                if (isStyleClass()) {
+                    styles = startStyleClass(name);
+                }
+            }
+        }
+
+        @Override
+        protected void pop() {
+            if (stack.size > 0) {
+                JsonValue value = stack.pop();
+                lastChildren.pop();
+                if (stack.size == 0) {
+                    readRecord(value);
+                }
+            } else {
+                if (isStyleClass()) {
+                    styles = null;
+                }
+                path.pop();
+            }
+        }
+
+        @Override
+        protected void string(String name, String value) {
+            addValue(name, new JsonValue(value));
+        }
+
+        @Override
+        protected void number(String name, double value, String stringValue) {
+            addValue(name, new JsonValue(value, stringValue));
+        }
+
+        @Override
+        protected void number(String name, long value, String stringValue) {
+            addValue(name, new JsonValue(value, stringValue));
+        }
+
+        @Override
+        protected void bool(String name, boolean value) {
+            addValue(name, new JsonValue(value));
+        }
+        
+        private void addValue(String name, JsonValue value) {
+            value.name = name;
+            if (stack.size > 0) {
+                addChild(value);
+            } else if (isRecordCollection()) {
+                //a record that is a single value
+                readRecord(value);
+            }
+        }
+        
+        /**
+         * Appends to the innermost open container. Its last child is kept in
+         * {@link #lastChildren} so that appending does not walk the siblings.
+         */
+        private void addChild(JsonValue child) {
+            JsonValue parent = stack.peek();
+            JsonValue last = lastChildren.peek();
+            child.parent = parent;
+            if (last == null) {
+                parent.child = child;
+            } else {
+                last.next = child;
+                child.prev = last;
+            }
+            lastChildren.set(lastChildren.size - 1, child);
+            parent.size++;
+        }
+        
+        private boolean isPath(String... names) {
+            //the first entry is the unnamed root object
+            if (path.size != names.length + 1) {
+                return false;
+            }
+            
+            for (int i = 0; i < names.length; i++) {
+                if (!names[i].equals(path.get(i + 1))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        private boolean isStyleClass() {
+            return path.size == 4 && "jsonData".equals(path.get(1)) && "classStyleMap".equals(path.get(2));
+        }
+        
+        private boolean isRecordCollection() {
+            return isStyleClass() || isPath("atlasData", "drawables") || isPath("jsonData", "colors")
+                    || isPath("jsonData", "fonts") || isPath("jsonData", "freeTypeFonts")
+                    || isPath("jsonData", "customClasses") || isPath("preferences");
+        }
+        
+        private void readRecord(JsonValue record) {
+            if (isStyleClass()) {
+                if (styles != null) {
+                    styles.add(createStyle(record));
+                }
+            } else if (isPath("atlasData", "drawables")) {
+                atlasData.getDrawables().add(createDrawable(record));
+            } else if (isPath("jsonData", "colors")) {
+                jsonData.getColors().add(createColor(record));
+            } else if (isPath("jsonData", "fonts")) {
+                jsonData.getFonts().add(createFont(record));
+            } else if (isPath("jsonData", "freeTypeFonts")) {
+                jsonData.getFreeTypeFonts().add(createFreeTypeFont(record));
+            } else if (isPath("jsonData", "customClasses")) {
+                jsonData.getCustomClasses().add(createCustomClass(record));
+            } else if (isPath("preferences")) {
+                preferences.put(record.name, readUntypedValue(record));
+            }
+        }
+    }
+}
@@ -0,0 +1,435 @@
+/*******************************************************************************
+ * MIT License
+ * 
+ * Copyright (c) 2018 Raymond Buckley
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.ray3k.skincomposer.data;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.scenes.scene2d.utils.Drawable;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IdentityMap;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.ray3k.skincomposer.Main;
+import com.ray3k.skincomposer.data.CustomProperty.PropertyType;
+
+/**
+ * Maps every drawable, color, font and style name to the properties that
+ * reference it, so renames, deletes and dependency lookups only visit the
+ * affected properties. Style properties are keyed by their type, custom
+ * properties by the type matching their PropertyType and styles by the name
+ * of their parent. The index is maintained by the model as it changes:
+ * {@link StyleProperty#setValue(Object)}, {@link CustomProperty#setValue(Object)},
+ * {@link StyleData#setParent(String)} and the methods of JsonData,
+ * CustomClass and CustomStyle that add and remove styles, classes and
+ * properties. It is only rebuilt when a whole project is read or imported.
+ * Objects that are not part of the project, such as the copies kept by
+ * undoables, are ignored until they are added. Each reference is still
+ * checked against the current value before it is returned, in case a value
+ * was assigned without its setter.
+ */
+public class ReferenceIndex {
+    private final JsonData jsonData;
+    private final Main main;
+    private final ObjectMap<Class, ObjectMap<String, Array<StyleProperty>>> styleReferences;
+    private final ObjectMap<Class, ObjectMap<String, Array<CustomProperty>>> customReferences;
+    private final ObjectMap<String, Array<StyleData>> childReferences;
+    private final IdentityMap<StyleData, Boolean> indexedStyles;
+    private final IdentityMap<CustomClass, Boolean> indexedCustomClasses;
+    private final IdentityMap<CustomStyle, Boolean> indexedCustomStyles;
+    
+    public ReferenceIndex(JsonData jsonData, Main main) {
+        this.jsonData = jsonData;
+        this.main = main;
+        styleReferences = new ObjectMap<>();
+        customReferences = new ObjectMap<>();
+        childReferences = new ObjectMap<>();
+        indexedStyles = new IdentityMap<>();
+        indexedCustomClasses = new IdentityMap<>();
+        indexedCustomStyles = new IdentityMap<>();
+    }
+    
+    /**
+     * Indexes every style and custom class of the project from scratch. Only
+     * needed after the collections of JsonData were replaced as a whole.
+     */
+    public void rebuild() {
+        styleReferences.clear();
+        customReferences.clear();
+        childReferences.clear();
+        indexedStyles.clear();
+        indexedCustomClasses.clear();
+        indexedCustomStyles.clear();
+        
+        for (Array<StyleData> styles : jsonData.getClassStyleMap().values()) {
+            for (StyleData style : styles) {
+                add(style);
+            }
+        }
+        
+        for (CustomClass customClass : jsonData.getCustomClasses()) {
+            add(customClass);
+        }
+    }
+    
+    /**
+     * @param type The property type, such as Drawable.class or a style class
+     * like ListStyle.class.
+     * @param name
+     * @return The style properties currently set to the given name.
+     */
+    public Array<StyleProperty> getStyleReferences(Class type, String name) {
+        Array<StyleProperty> returnValue = new Array<>();
+        Array<StyleProperty> properties = get(styleReferences, type, name);
+        if (properties != null) {
+            for (StyleProperty property : properties) {
+                if (property.type.equals(type) && name.equals(property.value)) {
+                    returnValue.add(property);
+                }
+            }
+        }
+        return returnValue;
+    }
+    
+    /**
+     * @param type Drawable.class, Color.class or BitmapFont.class
+     * @param name
+     * @return The custom properties currently set to the given name.
+     */
+    public Array<CustomProperty> getCustomReferences(Class type, String name) {
+        Array<CustomProperty> returnValue = new Array<>();
+        Array<CustomProperty> properties = get(customReferences, type, name);
+        if (properties != null) {
+            for (CustomProperty property : properties) {
+                if (type.equals(keyOf(property.getType())) && name.equals(property.getValue())) {
+                    returnValue.add(property);
+                }
+            }
+        }
+        return returnValue;
+    }
+    
+    /**
+     * Tint names are assigned to drawables in many places, so they are not
+     * indexed. The drawables are searched directly, which never visits the
+     * styles.
+     * @param colorName
+     * @return The drawables tinted with the given color.
+     */
+    public Array<DrawableData> getTintReferences(String colorName) {
+        Array<DrawableData> returnValue = new Array<>();
+        for (DrawableData drawable : main.getProjectData().getAtlasData().getDrawables()) {
+            if (colorName.equals(drawable.tintName)) {
+                returnValue.add(drawable);
+            }
+        }
+        return returnValue;
+    }
+    
+    /**
+     * @param style
+     * @return The styles whose validation depends on the given style: the
+     * styles naming it as their parent and the styles with a property set to
+     * its name.
+     */
+    public Array<StyleData> getDependentStyles(StyleData style) {
+        Array<StyleData> returnValue = new Array<>();
+        Array<StyleData> children = childReferences.get(style.name);
+        if (children != null) {
+            for (StyleData child : children) {
+                if (child != style && style.name.equals(child.parent)) {
+                    returnValue.add(child);
+                }
+            }
+        }
+        
+        Class styleClass = Main.basicToStyleClass(style.clazz);
+        if (styleClass != null) {
+            for (StyleProperty property : getStyleReferences(styleClass, style.name)) {
+                if (property.style != style) {
+                    returnValue.add(property.style);
+                }
+            }
+        }
+        return returnValue;
+    }
+    
+    /**
+     * @param type
+     * @param name
+     * @return true if any style property, custom property or tinted drawable
+     * references the name.
+     */
+    public boolean isReferenced(Class type, String name) {
+        return getStyleReferences(type, name).size > 0 || getCustomReferences(type, name).size > 0
+                || (type.equals(Color.class) && getTintReferences(name).size > 0);
+    }
+    
+    /**
+     * Points every reference to oldName at newName. Tinted drawables are
+     * updated as well when a color is renamed.
+     * @param type
+     * @param oldName
+     * @param newName 
+     */
+    public void rename(Class type, String oldName, String newName) {
+        replace(type, oldName, newName);
+        
+        for (CustomProperty property : getCustomReferences(type, oldName)) {
+            property.setValue(newName);
+        }
+        
+        if (type.equals(Color.class)) {
+            for (DrawableData drawable : getTintReferences(oldName)) {
+                drawable.tintName = newName;
+            }
+        }
+    }
+    
+    /**
+     * Clears every style property and custom property that references name.
+     * @param type
+     * @param name 
+     */
+    public void clear(Class type, String name) {
+        replace(type, name, null);
+        
+        for (CustomProperty property : getCustomReferences(type, name)) {
+            property.setValue(null);
+        }
+    }
+    
+    /**
+     * Sets every style property that references name to value.
+     * @param type
+     * @param name
+     * @param value May be null.
+     */
+    public void replace(Class type, String name, String value) {
+        for (StyleProperty property : getStyleReferences(type, name)) {
+            property.setValue(value);
+        }
+    }
+    
+    /**
+     * Indexes the properties and the parent of a style added to the project.
+     * @param style 
+     */
+    void add(StyleData style) {
+        if (indexedStyles.containsKey(style)) {
+            return;
+        }
+        indexedStyles.put(style, true);
+        
+        for (StyleProperty property : style.properties.values()) {
+            if (property.value instanceof String) {
+                add(styleReferences, property.type, (String) property.value, property);
+            }
+        }
+        
+        if (style.parent != null) {
+            add(childReferences, style.parent, style);
+        }
+    }
+    
+    /**
+     * Removes a style from the index.
+     * @param style
+     * @return true if the style was indexed.
+     */
+    boolean remove(StyleData style) {
+        if (indexedStyles.remove(style) == null) {
+            return false;
+        }
+        
+        for (StyleProperty property : style.properties.values()) {
+            if (property.value instanceof String) {
+                remove(styleReferences, property.type, (String) property.value, property);
+            }
+        }
+        
+        if (style.parent != null) {
+            remove(childReferences, style.parent, style);
+        }
+        return true;
+    }
+    
+    void valueChanged(StyleProperty property, Object oldValue) {
+        if (!indexedStyles.containsKey(property.style)) {
+            return;
+        }
+        
+        if (oldValue instanceof String) {
+            remove(styleReferences, property.type, (String) oldValue, property);
+        }
+        if (property.value instanceof String) {
+            add(styleReferences, property.type, (String) property.value, property);
+        }
+    }
+    
+    void parentChanged(StyleData style, String oldParent) {
+        if (!indexedStyles.containsKey(style)) {
+            return;
+        }
+        
+        if (oldParent != null) {
+            remove(childReferences, oldParent, style);
+        }
+        if (style.parent != null) {
+            add(childReferences, style.parent, style);
+        }
+    }
+    
+    /**
+     * Indexes the styles of a custom class added to the project. The
+     * template style is not part of the skin and is never indexed.
+     * @param customClass 
+     */
+    void add(CustomClass customClass) {
+        if (indexedCustomClasses.containsKey(customClass)) {
+            return;
+        }
+        indexedCustomClasses.put(customClass, true);
+        
+        for (CustomStyle style : customClass.getStyles()) {
+            add(style);
+        }
+    }
+    
+    void remove(CustomClass customClass) {
+        if (indexedCustomClasses.remove(customClass) == null) {
+            return;
+        }
+        
+        for (CustomStyle style : customClass.getStyles()) {
+            remove(style);
+        }
+    }
+    
+    void add(CustomStyle style) {
+        if (!indexedCustomClasses.containsKey(style.getParentClass()) || indexedCustomStyles.containsKey(style)) {
+            return;
+        }
+        indexedCustomStyles.put(style, true);
+        
+        for (CustomProperty property : style.getProperties()) {
+            addCustom(property.getType(), property.getValue(), property);
+        }
+    }
+    
+    void remove(CustomStyle style) {
+        if (indexedCustomStyles.remove(style) == null) {
+            return;
+        }
+        
+        for (CustomProperty property : style.getProperties()) {
+            removeCustom(property.getType(), property.getValue(), property);
+        }
+    }
+    
+    void add(CustomProperty property) {
+        if (indexedCustomStyles.containsKey(property.getParentStyle())) {
+            addCustom(property.getType(), property.getValue(), property);
+        }
+    }
+    
+    void remove(CustomProperty property) {
+        if (indexedCustomStyles.containsKey(property.getParentStyle())) {
+            removeCustom(property.getType(), property.getValue(), property);
+        }
+    }
+    
+    void valueChanged(CustomProperty property, PropertyType oldType, Object oldValue) {
+        if (indexedCustomStyles.containsKey(property.getParentStyle())) {
+            removeCustom(oldType, oldValue, property);
+            addCustom(property.getType(), property.getValue(), property);
+        }
+    }
+    
+    private void addCustom(PropertyType type, Object value, CustomProperty property) {
+        Class key = keyOf(type);
+        if (key != null && value instanceof String) {
+            add(customReferences, key, (String) value, property);
+        }
+    }
+    
+    private void removeCustom(PropertyType type, Object value, CustomProperty property) {
+        Class key = keyOf(type);
+        if (key != null && value instanceof String) {
+            remove(customReferences, key, (String) value, property);
+        }
+    }
+    
+    private static Class keyOf(PropertyType type) {
+        if (type == null) {
+            return null;
+        }
+        
+        switch (type) {
+            case DRAWABLE:
+                return Drawable.class;
+            case COLOR:
+                return Color.class;
+            case FONT:
+                return BitmapFont.class;
+            default:
+                return null;
+        }
+    }
+    
+    private static <T> Array<T> get(ObjectMap<Class, ObjectMap<String, Array<T>>> map, Class type, String name) {
+        ObjectMap<String, Array<T>> names = map.get(type);
+        return names == null ? null : names.get(name);
+    }
+    
+    private static <T> void add(ObjectMap<Class, ObjectMap<String, Array<T>>> map, Class type, String name, T item) {
+        ObjectMap<String, Array<T>> names = map.get(type);
+        if (names == null) {
+            names = new ObjectMap<>();
+            map.put(type, names);
+        }
+        add(names, name, item);
+    }
+    
+    private static <T> void add(ObjectMap<String, Array<T>> names, String name, T item) {
+        Array<T> items = names.get(name);
+        if (items == null) {
+            items = new Array<>();
+            names.put(name, items);
+        }
+        items.add(item);
+    }
+    
+    private static <T> void remove(ObjectMap<Class, ObjectMap<String, Array<T>>> map, Class type, String name, T item) {
+        ObjectMap<String, Array<T>> names = map.get(type);
+        if (names != null) {
+            remove(names, name, item);
+        }
+    }
+    
+    private static <T> void remove(ObjectMap<String, Array<T>> names, String name, T item) {
+        Array<T> items = names.get(name);
+        if (items != null && items.removeValue(item, true) && items.size == 0) {
+            names.remove(name);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/*******************************************************************************
+ * MIT License
+ * 
+ * Copyright (c) 2018 Raymond Buckley
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.ray3k.skincomposer.data;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.ray3k.skincomposer.Main;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Exports the skin JSON, the texture atlas and the font files at the same
+ * time on a worker pool. Everything the atlas and font stages need is
+ * gathered when the exporter is created, which must happen on the GL thread.
+ * The skin stage writes a {@link SkinSnapshot} taken at the same time, so the
+ * worker never reads the live project and editing may continue during the
+ * export. Listener methods are called on the GL thread.
+ * {@link #export(Main, FileHandle)} runs the same stages on the calling
+ * thread instead and streams the skin straight from the project.
+ */
+public class SkinExporter {
+    private final FileHandle skinFile;
+    private final Array<Stage> stages;
+    private int completedStages;
+    
+    public SkinExporter(Main main, FileHandle skinFile) {
+        this(main, skinFile, true);
+    }
+    
+    private SkinExporter(Main main, FileHandle skinFile, boolean snapshot) {
+        this.skinFile = skinFile;
+        stages = new Array<>();
+        
+        if (snapshot) {
+            SkinSnapshot skinSnapshot = main.getProjectData().getJsonData().createSnapshot();
+            stages.add(new Stage("skin", () -> skinSnapshot.writeFile(skinFile)));
+        } else {
+            JsonData jsonData = main.getProjectData().getJsonData();
+            stages.add(new Stage("skin", () -> jsonData.writeFile(skinFile)));
+        }
+        
+        if (main.getProjectData().isExportingAtlas()) {
+            Array<String> warnings = new Array<>();
+            Array<FileHandle> files = main.getProjectData().getAtlasData().getExportFiles(warnings);
+            FileHandle saveFile = main.getProjectData().getSaveFile();
+            FileHandle targetFile = skinFile.parent().child(skinFile.nameWithoutExtension() + ".atlas");
+            stages.add(new Stage("atlas", () -> {
+                main.getProjectData().getAtlasData().exportAtlas(files, saveFile, targetFile);
+                return warnings;
+            }));
+        }
+        
+        if (main.getProjectData().isExportingFonts()) {
+            Array<FileHandle> fontFiles = new Array<>();
+            for (FontData font : main.getProjectData().getJsonData().getFonts()) {
+                if (!font.file.parent().equals(skinFile.parent())) {
+                    fontFiles.add(font.file);
+                }
+            }
+
+            for (FreeTypeFontData font : main.getProjectData().getJsonData().getFreeTypeFonts()) {
+                if (font.useCustomSerializer && !font.file.parent().equals(skinFile.parent())) {
+                    fontFiles.add(font.file);
+                }
+            }
+            
+            if (fontFiles.size > 0) {
+                FileHandle targetFolder = skinFile.parent();
+                stages.add(new Stage("fonts", () -> {
+                    for (FileHandle fontFile : fontFiles) {
+                        fontFile.copyTo(targetFolder);
+                    }
+                    return new Array<>();
+                }));
+            }
+        }
+    }
+    
+    /**
+     * Exports on the calling thread, one stage after the other. Used when
+     * nothing else edits the project, such as by the headless exporter.
+     * @param main
+     * @param skinFile
+     * @return The warnings of every stage.
+     * @throws Exception The failure of the first stage that failed.
+     */
+    public static Array<String> export(Main main, FileHandle skinFile) throws Exception {
+        SkinExporter exporter = new SkinExporter(main, skinFile, false);
+        Array<String> warnings = new Array<>();
+        for (Stage stage : exporter.stages) {
+            warnings.addAll(stage.call().warnings);
+        }
+        return warnings;
+    }
+    
+    /**
+     * Starts all stages and returns immediately.
+     * @param listener 
+     */
+    public void start(ExportListener listener) {
+        ExecutorService executor = Executors.newFixedThreadPool(stages.size);
+        CompletionService<Stage> completionService = new ExecutorCompletionService<>(executor);
+        for (Stage stage : stages) {
+            completionService.submit(stage);
+        }
+        executor.shutdown();
+        listener.progress("Exporting " + skinFile.name() + "...");
+        
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < stages.size; i++) {
+                    try {
+                        Stage stage = completionService.take().get();
+                        Gdx.app.postRunnable(() -> {
+                            completedStages++;
+                            listener.progress("Finished " + stage.name + " (" + completedStages + " of " + stages.size + ")");
+                        });
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    } catch (ExecutionException e) {
+                        //failures are reported with the stage below
+                    }
+                }
+                
+                Gdx.app.postRunnable(() -> {
+                    //merge warnings in stage order regardless of completion order
+                    Array<String> warnings = new Array<>();
+                    for (Stage stage : stages) {
+                        if (stage.error != null) {
+                            listener.failed(stage.name, stage.error);
+                        } else {
+                            warnings.addAll(stage.warnings);
+                        }
+                    }
+                    listener.completed(warnings);
+                });
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    public static interface ExportListener {
+        public void progress(String message);
+        
+        /**
+         * Called for each stage that failed, before {@link #completed(Array)}.
+         * @param stage "skin", "atlas" or "fonts"
+         * @param e 
+         */
+        public void failed(String stage, Exception e);
+        
+        public void completed(Array<String> warnings);
+    }
+    
+    private static class Stage implements Callable<Stage> {
+        private final String name;
+        private final Callable<Array<String>> work;
+        private volatile Array<String> warnings;
+        private volatile Exception error;
+
+        public Stage(String name, Callable<Array<String>> work) {
+            this.name = name;
+            this.work = work;
+        }
+        
+        @Override
+        public Stage call() throws Exception {
+            try {
+                warnings = work.call();
+            } catch (Exception e) {
+                Gdx.app.error(getClass().getName(), "Error while exporting " + name, e);
+                error = e;
+                throw e;
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+/*******************************************************************************
+ * MIT License
+ * 
+ * Copyright (c) 2018 Raymond Buckley
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.ray3k.skincomposer.data;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.SerializationException;
+import com.ray3k.skincomposer.data.JsonData.ExportFormat;
+import com.ray3k.skincomposer.dialog.DialogFactory;
+import com.ray3k.skincomposer.utils.JsonOutput;
+import com.ray3k.skincomposer.utils.PrettyJsonWriter;
+import com.ray3k.skincomposer.utils.UBJsonOutput;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The names and values of the resources and styles a project exports,
+ * captured on the GL thread by {@link JsonData#createSnapshot()}. Values are
+ * Strings, Numbers, Booleans, Enums or copied Colors, so the snapshot can be
+ * written on a worker thread while the project is edited. Exports that run
+ * on the calling thread don't take a snapshot, they stream each resource to
+ * the output as it is read from the project.
+ */
+public class SkinSnapshot {
+    private final ExportFormat exportFormat;
+    private final Array<Section> sections;
+    private Array<String> warnings;
+    
+    SkinSnapshot(ExportFormat exportFormat) {
+        this.exportFormat = exportFormat;
+        sections = new Array<>();
+        warnings = new Array<>();
+    }
+    
+    /**
+     * Writes the skin to a JSON or UBJSON file through a buffered channel.
+     * @param fileHandle
+     * @return The warnings gathered when the snapshot was created.
+     */
+    public Array<String> writeFile(FileHandle fileHandle) {
+        fileHandle.parent().mkdirs();
+        try (FileChannel channel = FileChannel.open(fileHandle.file().toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                OutputStream outputStream = Channels.newOutputStream(channel)) {
+            Output output = new Output(createJsonOutput(outputStream, exportFormat));
+            for (Section section : sections) {
+                output.startSection(section.className);
+                for (Resource resource : section.resources) {
+                    output.resource(resource);
+                }
+                output.endSection();
+            }
+            output.finish();
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Error writing file: " + fileHandle, e);
+        }
+        return new Array<>(warnings);
+    }
+    
+    /**
+     * Creates the writer for the export format. Output is buffered and
+     * flushed after each section. The stream is not closed.
+     * @param outputStream
+     * @param exportFormat
+     * @return 
+     */
+    static JsonOutput createJsonOutput(OutputStream outputStream, ExportFormat exportFormat) {
+        if (exportFormat.isBinary()) {
+            return new UBJsonOutput(new BufferedOutputStream(outputStream));
+        } else {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            return new PrettyJsonWriter(writer, exportFormat.getOutputType());
+        }
+    }
+    
+    /**
+     * Collects the resources into this snapshot.
+     * @return 
+     */
+    Sink collector() {
+        return new Sink() {
+            @Override
+            public void startSection(String className) {
+                sections.add(new Section(className));
+            }
+
+            @Override
+            public void resource(Resource resource) {
+                sections.peek().resources.add(resource);
+            }
+
+            @Override
+            public void endSection() {
+            }
+        };
+    }
+    
+    void setWarnings(Array<String> warnings) {
+        this.warnings = warnings;
+    }
+    
+    /**
+     * Receives the exported resources from {@link JsonData}, grouped in
+     * sections by class.
+     */
+    static interface Sink {
+        public void startSection(String className) throws IOException;
+        
+        public void resource(Resource resource) throws IOException;
+        
+        public void endSection() throws IOException;
+    }
+    
+    /**
+     * Writes each resource to a JsonOutput as it is received.
+     */
+    static class Output implements Sink {
+        private final JsonOutput json;
+
+        public Output(JsonOutput json) throws IOException {
+            this.json = json;
+            json.objectStart();
+        }
+        
+        @Override
+        public void startSection(String className) throws IOException {
+            json.objectStart(className);
+        }
+
+        @Override
+        public void resource(Resource resource) throws IOException {
+            json.objectStart(resource.name);
+            for (int i = 0; i < resource.keys.size; i++) {
+                String key = resource.keys.get(i);
+                Object value = resource.values.get(i);
+                if (value instanceof Color) {
+                    Color color = (Color) value;
+                    json.objectStart(key);
+                    json.value("r", color.r);
+                    json.value("g", color.g);
+                    json.value("b", color.b);
+                    json.value("a", color.a);
+                    json.objectEnd();
+                } else if (value instanceof RawJson) {
+                    RawJson rawJson = (RawJson) value;
+                    try {
+                        json.json(key, rawJson.text);
+                    } catch (SerializationException e) {
+                        String message = "Error writing custom property " + key + " for custom class " + rawJson.owner + ".";
+                        Gdx.app.postRunnable(() -> DialogFactory.showDialogErrorStatic("Error writing custom property.", message));
+                    }
+                } else {
+                    json.value(key, value);
+                }
+            }
+            json.objectEnd();
+        }
+
+        @Override
+        public void endSection() throws IOException {
+            json.objectEnd();
+        }
+        
+        public void finish() throws IOException {
+            json.objectEnd();
+            json.flush();
+        }
+    }
+    
+    private static class Section {
+        private final String className;
+        private final Array<Resource> resources;
+
+        public Section(String className) {
+            this.className = className;
+            resources = new Array<>();
+        }
+    }
+    
+    /**
+     * A named resource or style and its values in the order they are
+     * written. Colors are written as an object with r, g, b and a fields.
+     */
+    static class Resource {
+        private final String name;
+        private final Array<String> keys;
+        private final Array<Object> values;
+
+        public Resource(String name) {
+            this.name = name;
+            keys = new Array<>();
+            values = new Array<>();
+        }
+        
+        public Resource put(String key, Object value) {
+            keys.add(key);
+            values.add(value);
+            return this;
+        }
+        
+        public Resource putColor(String key, Color color) {
+            return put(key, new Color(color));
+        }
+        
+        /**
+         * The text is validated when it is written.
+         * @param key
+         * @param text
+         * @param owner The display name of the custom class, for errors.
+         * @return 
+         */
+        public Resource putJson(String key, String text, String owner) {
+            return put(key, new RawJson(text, owner));
+        }
+    }
+    
+    private static class RawJson {
+        private final String text;
+        private final String owner;
+
+        public RawJson(String text, String owner) {
+            this.text = text;
+            this.owner = owner;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * MIT License
+ * 
+ * Copyright (c) 2018 Raymond Buckley
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.ray3k.skincomposer.data;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectMap;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * Precomputed access to the public fields of a style class. The fields are
+ * looked up once per class and read and written through MethodHandles, so
+ * the preview does not reflect on every refresh and a missing field is a null
+ * lookup rather than an exception. Accessors for {@link
+ * com.ray3k.skincomposer.Main#STYLE_CLASSES} are created at startup with
+ * {@link #prepare(java.lang.Class[])} and accessors for the styles of custom
+ * classes the first time they are requested.
+ */
+public class StyleAccessor {
+    private static final ObjectMap<Class, StyleAccessor> accessors = new ObjectMap<>();
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private final Class type;
+    private final MethodHandle constructor;
+    private final Array<FieldAccessor> fields;
+    private final ObjectMap<String, FieldAccessor> fieldsByName;
+
+    private StyleAccessor(Class type) {
+        this.type = type;
+        fields = new Array<>();
+        fieldsByName = new ObjectMap<>();
+        
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        MethodHandle constructor = null;
+        Object defaults = null;
+        try {
+            constructor = lookup.findConstructor(type, MethodType.methodType(void.class)).asType(MethodType.methodType(Object.class));
+            defaults = constructor.invokeExact();
+        } catch (Throwable e) {
+            Gdx.app.error(StyleAccessor.class.getName(), "Style class has no public no-arg constructor: " + type.getName(), e);
+            constructor = null;
+        }
+        this.constructor = constructor;
+        
+        for (Field field : type.getFields()) {
+            int modifiers = field.getModifiers();
+            if (Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers)) {
+                continue;
+            }
+            
+            try {
+                MethodHandle getter = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+                MethodHandle setter = lookup.unreflectSetter(field).asType(SETTER_TYPE);
+                Object defaultValue = defaults == null ? null : field.get(defaults);
+                FieldAccessor accessor = new FieldAccessor(field.getName(), field.getType(), getter, setter, defaultValue);
+                fields.add(accessor);
+                fieldsByName.put(accessor.name, accessor);
+            } catch (IllegalAccessException e) {
+                Gdx.app.error(StyleAccessor.class.getName(), "Unable to access style field " + type.getName() + "." + field.getName(), e);
+            }
+        }
+    }
+    
+    /**
+     * Returns the accessor for the class, creating it on first use.
+     * @param type
+     * @return 
+     */
+    public static StyleAccessor get(Class type) {
+        synchronized (accessors) {
+            StyleAccessor accessor = accessors.get(type);
+            if (accessor == null) {
+                accessor = new StyleAccessor(type);
+                accessors.put(type, accessor);
+            }
+            return accessor;
+        }
+    }
+    
+    public static void prepare(Class... types) {
+        for (Class type : types) {
+            get(type);
+        }
+    }
+
+    public Class getType() {
+        return type;
+    }
+    
+    /**
+     * Creates a new instance of the style with its default values.
+     * @return The style or null if the class can't be instantiated.
+     */
+    public Object newInstance() {
+        if (constructor == null) {
+            return null;
+        }
+        
+        try {
+            return constructor.invokeExact();
+        } catch (Throwable e) {
+            Gdx.app.error(getClass().getName(), "Error creating style " + type.getName(), e);
+            return null;
+        }
+    }
+
+    /**
+     * The public instance fields of the style in declaration order.
+     * @return 
+     */
+    public Array<FieldAccessor> getFields() {
+        return fields;
+    }
+    
+    /**
+     * @param name
+     * @return The field or null if the style has no such field.
+     */
+    public FieldAccessor getField(String name) {
+        return fieldsByName.get(name);
+    }
+    
+    public static class FieldAccessor {
+        private final String name;
+        private final Class type;
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+        private final Object defaultValue;
+
+        private FieldAccessor(String name, Class type, MethodHandle getter, MethodHandle setter, Object defaultValue) {
+            this.name = name;
+            this.type = type;
+            this.getter = getter;
+            this.setter = setter;
+            this.defaultValue = defaultValue;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Class getType() {
+            return type;
+        }
+        
+        /**
+         * The value of the field in a newly created style.
+         * @return 
+         */
+        public Object getDefaultValue() {
+            return defaultValue;
+        }
+        
+        public Object get(Object target) {
+            try {
+                return getter.invokeExact(target);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new GdxRuntimeException("Error reading style field: " + name, e);
+            }
+        }
+        
+        /**
+         * Sets the field. Primitive fields take their boxed value.
+         * @param target
+         * @param value 
+         */
+        public void set(Object target, Object value) {
+            try {
+                setter.invokeExact(target, value);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new GdxRuntimeException("Error writing style field: " + name, e);
+            }
+        }
+    }
+}
@@ -59,15 +59,14 @@ import com.badlogic.gdx.scenes.scene2d.ui.Tree;
 import com.badlogic.gdx.scenes.scene2d.ui.Tree.TreeStyle;
 import com.badlogic.gdx.scenes.scene2d.ui.Window;
 import com.badlogic.gdx.scenes.scene2d.ui.Window.WindowStyle;
-import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IdentityMap;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
 import com.badlogic.gdx.utils.ObjectMap.Entry;
 import com.badlogic.gdx.utils.OrderedMap;
-import com.badlogic.gdx.utils.reflect.ClassReflection;
-import com.badlogic.gdx.utils.reflect.Field;
 import com.badlogic.gdx.utils.reflect.ReflectionException;
 import com.ray3k.skincomposer.Main;
+import com.ray3k.skincomposer.dialog.DialogFactory;
 import java.util.Arrays;
 
 public class StyleData implements Json.Serializable {
@@ -78,6 +77,9 @@ public class StyleData implements Json.Serializable {
     public String parent;
     public JsonData jsonData;
     private Main main;
+    private boolean validated;
+    private boolean mandatoryFields;
+    private boolean allNullFields;
 
     @Override
     public String toString() {
@@ -96,7 +98,7 @@ public class StyleData implements Json.Serializable {
         clazz = styleData.clazz;
         properties = new OrderedMap<>();
         for (Entry<String, StyleProperty> entry : styleData.properties.entries()) {
-            properties.put(entry.key, new StyleProperty(entry.value));
+            putProperty(entry.key, new StyleProperty(entry.value));
         }
         deletable = true;
     }
@@ -117,13 +119,116 @@ public class StyleData implements Json.Serializable {
     }
     
     private void newStyleProperties(Class clazz) {
-        for (Field field : ClassReflection.getFields(clazz)) {
+        for (StyleAccessor.FieldAccessor field : StyleAccessor.get(clazz).getFields()) {
             StyleProperty styleProperty = new StyleProperty(field.getType(), field.getName(), true);
-            properties.put(field.getName(), styleProperty);
+            putProperty(field.getName(), styleProperty);
+        }
+    }
+    
+    private void putProperty(String name, StyleProperty property) {
+        property.style = this;
+        properties.put(name, property);
+    }
+    
+    /**
+     * Sets the parent style, updates the reference index and invalidates the
+     * validation of this style and the styles that depend on it.
+     * @param parent May be null.
+     */
+    public void setParent(String parent) {
+        String oldParent = this.parent;
+        this.parent = parent;
+        if (jsonData != null) {
+            jsonData.getReferenceIndex().parentChanged(this, oldParent);
+        }
+        invalidate();
+    }
+    
+    /**
+     * Called by {@link StyleProperty#setValue(Object)}.
+     * @param property
+     * @param oldValue 
+     */
+    void propertyChanged(StyleProperty property, Object oldValue) {
+        if (jsonData != null) {
+            jsonData.getReferenceIndex().valueChanged(property, oldValue);
+        }
+        invalidate();
+    }
+    
+    /**
+     * Marks the cached validation of this style as out of date, along with
+     * every style that inherits from it or references it. The saved record of
+     * this style is marked as well. Property values and the parent invalidate
+     * the style when they are set, call this after any other change that
+     * affects validation, such as adding, removing or renaming the style.
+     */
+    public void invalidate() {
+        if (jsonData != null) {
+            jsonData.recordChanged(this);
+        }
+        invalidate(new IdentityMap<>());
+    }
+    
+    private void invalidate(IdentityMap<StyleData, Boolean> visited) {
+        if (visited.containsKey(this)) {
+            return;
+        }
+        visited.put(this, true);
+        
+        validated = false;
+        if (jsonData != null) {
+            for (StyleData dependent : jsonData.getReferenceIndex().getDependentStyles(this)) {
+                dependent.invalidate(visited);
+            }
         }
     }
 
     public boolean hasAllNullFields() {
+        if (!validated) {
+            validate(new IdentityMap<>());
+        }
+        return allNullFields;
+    }
+    
+    public boolean hasMandatoryFields() {
+        if (!validated) {
+            validate(new IdentityMap<>());
+        }
+        return mandatoryFields;
+    }
+    
+    private boolean hasAllNullFields(IdentityMap<StyleData, Boolean> visited) {
+        validate(visited);
+        return allNullFields;
+    }
+    
+    private boolean hasMandatoryFields(IdentityMap<StyleData, Boolean> visited) {
+        validate(visited);
+        return mandatoryFields;
+    }
+    
+    /**
+     * Recomputes the cached validation state if the style was invalidated.
+     * Parent and referenced styles are validated through their own caches
+     * with the same visited set, so each style is evaluated at most once per
+     * call and cycles between styles end at the first repeated style. The
+     * cache is only accessed on the GL thread, exports write a
+     * {@link SkinSnapshot} taken there.
+     * @param visited The styles already evaluated in this call.
+     */
+    private void validate(IdentityMap<StyleData, Boolean> visited) {
+        if (validated || visited.containsKey(this)) {
+            return;
+        }
+        visited.put(this, true);
+        
+        allNullFields = computeAllNullFields(visited);
+        mandatoryFields = computeMandatoryFields(visited);
+        validated = true;
+    }
+    
+    private boolean computeAllNullFields(IdentityMap<StyleData, Boolean> visited) {
         boolean returnValue = true;
         for(StyleProperty property : this.properties.values()) {
             if (property.value != null) {
@@ -147,80 +252,33 @@ public class StyleData implements Json.Serializable {
         }
         
         StyleData parentStyle = findParentStyle();
-        return returnValue && (parentStyle == null || parentStyle.hasAllNullFields());
+        return returnValue && (parentStyle == null || parentStyle.hasAllNullFields(visited));
     }
     
-    public boolean hasMandatoryFields() {
-        boolean returnValue = true;
-        Array<StyleProperty> propertiesList = this.properties.values().toArray();
-        for (int i = 0; i < propertiesList.size; i++) {
-        	StyleProperty property = propertiesList.get(i);
+    private boolean computeMandatoryFields(IdentityMap<StyleData, Boolean> visited) {
+        for (StyleProperty property : properties.values()) {
             if (!property.optional && !hasField(property)) {
-                returnValue = false;
-                break;
+                return false;
             } else if (property.type == ListStyle.class) {
-                String value = (String) property.value;
-                Array<StyleData> datas = jsonData.getClassStyleMap().get(List.class);
-                
-                boolean found = false;
-                for (StyleData data : datas) {
-                    if (value.equals(data.name)) {
-                        found = true;
-                        if (!data.hasMandatoryFields() || data.hasAllNullFields()) {
-                            returnValue = false;
-                        }
-                        break;
-                    }
-                }
-                
-                if (!found) {
-                    returnValue = false;
+                if (!isValidReference(List.class, property, visited)) {
+                    return false;
                 }
-                
-                if (!returnValue) break;
             } else if (property.type == LabelStyle.class) {
-                String value = (String) property.value;
-                Array<StyleData> datas = jsonData.getClassStyleMap().get(Label.class);
-                
-                boolean found = false;
-                for (StyleData data : datas) {
-                    if (value.equals(data.name)) {
-                        found = true;
-                        if (!data.hasMandatoryFields() || data.hasAllNullFields()) {
-                            returnValue = false;
-                        }
-                        break;
-                    }
+                if (!isValidReference(Label.class, property, visited)) {
+                    return false;
                 }
-                
-                if (!found) {
-                    returnValue = false;
-                }
-                
-                if (!returnValue) break;
             } else if (property.type == ScrollPaneStyle.class) {
-                String value = (String) property.value;
-                Array<StyleData> datas = jsonData.getClassStyleMap().get(ScrollPane.class);
-                
-                boolean found = false;
-                for (StyleData data : datas) {
-                    if (value.equals(data.name)) {
-                        found = true;
-                        if (!data.hasMandatoryFields() || data.hasAllNullFields()) {
-                            returnValue = false;
-                        }
-                        break;
-                    }
+                if (!isValidReference(ScrollPane.class, property, visited)) {
+                    return false;
                 }
-                
-                if (!found) {
-                    returnValue = false;
-                }
-                
-                if (!returnValue) break;
             }
         }
-        return returnValue;
+        return true;
+    }
+    
+    private boolean isValidReference(Class clazz, StyleProperty property, IdentityMap<StyleData, Boolean> visited) {
+        StyleData data = jsonData.getStyle(clazz, (String) property.value);
+        return data != null && data.hasMandatoryFields(visited) && !data.hasAllNullFields(visited);
     }
     
     public StyleData findParentStyle() {
@@ -231,13 +289,10 @@ public class StyleData implements Json.Serializable {
             Class recursiveStyleClass = Main.basicToStyleClass(recursiveClass);
             loop:
             while (recursiveStyleClass != null && Arrays.asList(Main.STYLE_CLASSES).contains(recursiveStyleClass)) {
-                Array<StyleData> styles = main.getJsonData().getClassStyleMap().get(recursiveClass);
-                for (int i = 0; i < styles.size; i++) {
-                    StyleData style = styles.get(i);
-                    if (parent.equals(style.name) && !(clazz.equals(recursiveClass) && name.equals(style.name))) {
-                        returnValue = style;
-                        break loop;
-                    }
+                StyleData style = main.getJsonData().getStyle(recursiveClass, parent);
+                if (style != null && !(clazz.equals(recursiveClass) && name.equals(style.name))) {
+                    returnValue = style;
+                    break loop;
                 }
 
                 recursiveClass = recursiveClass.getSuperclass();
@@ -252,12 +307,9 @@ public class StyleData implements Json.Serializable {
         StyleData style = this;
         
         while (style != null) {
-            Array<StyleProperty> propertiesList = style.properties.values().toArray();
-            for (int i = 0; i < propertiesList.size; i++) {
-            	StyleProperty current = propertiesList.get(i);
-                if (current.name.equals(property.name) && current.value != null) {
-                    return true;
-                }
+            StyleProperty current = style.properties.get(property.name);
+            if (current != null && current.value != null) {
+                return true;
             }
             
             style = style.findParentStyle();
@@ -269,12 +321,9 @@ public class StyleData implements Json.Serializable {
         StyleData style = this;
         
         while (style != null) {
-            Array<StyleProperty> propertiesList = style.properties.values().toArray();
-            for (int i = 0; i < propertiesList.size; i++) {
-            	StyleProperty current = propertiesList.get(i);
-                if (current.name.equals(name) && current.value != null) {
-                    return current.value;
-                }
+            StyleProperty current = style.properties.get(name);
+            if (current != null && current.value != null) {
+                return current.value;
             }
             
             style = style.findParentStyle();
@@ -297,19 +346,34 @@ public class StyleData implements Json.Serializable {
 
     @Override
     public void read(Json json, JsonValue jsonData) {
+        read(jsonData);
+    }
+    
+    /**
+     * Reads the fields written by {@link #write(Json)} without reflection.
+     * @param jsonData 
+     */
+    public void read(JsonValue jsonData) {
         name = jsonData.getString("name");
-        properties = json.readValue("properties", OrderedMap.class, jsonData);
+        properties = new OrderedMap<>();
+        for (JsonValue child = jsonData.get("properties").child; child != null; child = child.next) {
+            StyleProperty property = new StyleProperty();
+            property.read(child);
+            putProperty(child.name, property);
+        }
         deletable = jsonData.getBoolean("deletable");
         try {
-            clazz = ClassReflection.forName(jsonData.getString("clazz"));
+            clazz = ProjectSerializer.forName(jsonData.getString("clazz"));
         } catch (ReflectionException ex) {
             Gdx.app.error(getClass().toString(), "Error reading from serialized object" , ex);
-            main.getDialogFactory().showDialogError("Read Error...","Error reading from serialized object.\n\nOpen log?");
+            DialogFactory.showDialogErrorStatic("Read Error...","Error reading from serialized object.\n\nOpen log?");
         }
         parent = jsonData.getString("parent", null);
     }
 
     public void resetProperties() {
+        //the properties are replaced, so the style is indexed again afterwards
+        boolean indexed = jsonData != null && jsonData.getReferenceIndex().remove(this);
         properties.clear();
         parent = null;
         
@@ -378,5 +442,10 @@ public class StyleData implements Json.Serializable {
             newStyleProperties(WindowStyle.class);
             properties.get("titleFont").optional = false;
         }
+        
+        if (indexed) {
+            jsonData.getReferenceIndex().add(this);
+        }
+        invalidate();
     }
 }
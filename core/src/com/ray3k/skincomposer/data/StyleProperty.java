@@ -26,7 +26,6 @@ package com.ray3k.skincomposer.data;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
-import com.badlogic.gdx.utils.reflect.ClassReflection;
 import com.badlogic.gdx.utils.reflect.ReflectionException;
 import com.ray3k.skincomposer.dialog.DialogFactory;
 
@@ -35,6 +34,12 @@ public class StyleProperty implements Json.Serializable{
     public String name;
     public boolean optional;
     public Object value;
+    
+    /**
+     * The style that owns this property. Assigned by StyleData when the
+     * property is added to it.
+     */
+    StyleData style;
 
     public StyleProperty(Class type, String name, boolean optional) {
         this.type = type;
@@ -58,6 +63,19 @@ public class StyleProperty implements Json.Serializable{
     public StyleProperty() {
     
     }
+    
+    /**
+     * Sets the value and tells the owning style that it changed. Properties
+     * of styles in the project must be changed through this method.
+     * @param value 
+     */
+    public void setValue(Object value) {
+        Object oldValue = this.value;
+        this.value = value;
+        if (style != null) {
+            style.propertyChanged(this, oldValue);
+        }
+    }
 
     @Override
     public void write(Json json) {
@@ -69,6 +87,14 @@ public class StyleProperty implements Json.Serializable{
 
     @Override
     public void read(Json json, JsonValue jsonValue) {
+        read(jsonValue);
+    }
+    
+    /**
+     * Reads the fields written by {@link #write(Json)} without reflection.
+     * @param jsonValue 
+     */
+    public void read(JsonValue jsonValue) {
         try {
             name = jsonValue.getString("name");
             optional = jsonValue.getBoolean("optional");
@@ -76,7 +102,7 @@ public class StyleProperty implements Json.Serializable{
                 type = Float.TYPE;
                 value = Double.parseDouble(jsonValue.getString("value"));
             } else {
-                type = ClassReflection.forName(jsonValue.getString("type"));
+                type = ProjectSerializer.forName(jsonValue.getString("type"));
                 if (jsonValue.get("value").isNull()) {
                     value = null;
                 } else {
@@ -1194,7 +1194,7 @@ public class DialogBitmapFont extends Dialog {
                 } catch (ColorData.NameFormatException ex) {
                     Gdx.app.error(getClass().getName(), "Error creating color.", ex);
                 }
-                main.getJsonData().getColors().add(color);
+                main.getJsonData().addColor(color);
             }
             ((TextButton) findActor("colorTextButton")).setUserObject(color);
             data.color = fontSettings.color;
@@ -1217,7 +1217,7 @@ public class DialogBitmapFont extends Dialog {
                 } catch (ColorData.NameFormatException ex) {
                     Gdx.app.error(getClass().getName(), "Error creating color.", ex);
                 }
-                main.getJsonData().getColors().add(color);
+                main.getJsonData().addColor(color);
             }
             ((TextButton) findActor("borderColorTextButton")).setUserObject(color);
             data.borderColor = fontSettings.borderColor;
@@ -1243,7 +1243,7 @@ public class DialogBitmapFont extends Dialog {
                 } catch (ColorData.NameFormatException ex) {
                     Gdx.app.error(getClass().getName(), "Error creating color.", ex);
                 }
-                main.getJsonData().getColors().add(color);
+                main.getJsonData().addColor(color);
             }
             ((TextButton) findActor("shadowColorTextButton")).setUserObject(color);
             data.shadowColor = fontSettings.shadowColor;
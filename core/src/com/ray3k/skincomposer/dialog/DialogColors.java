@@ -53,7 +53,7 @@ import com.ray3k.skincomposer.UndoableManager.ColorUndoable;
 import com.ray3k.skincomposer.UndoableManager.CustomColorUndoable;
 import com.ray3k.skincomposer.data.CustomProperty;
 import com.ray3k.skincomposer.data.DrawableData;
-import com.ray3k.skincomposer.data.StyleData;
+import com.ray3k.skincomposer.data.ReferenceIndex;
 import com.ray3k.skincomposer.data.StyleProperty;
 import com.ray3k.skincomposer.utils.Utils;
 import java.util.Comparator;
@@ -375,36 +375,20 @@ public class DialogColors extends Dialog {
                 closeButton.addListener(new ChangeListener() {
                     @Override
                     public void changed(ChangeListener.ChangeEvent event, Actor actor) {
-                        colors.removeValue(deleteColor, true);
+                        main.getJsonData().removeColor(deleteColor);
                         main.getProjectData().setChangesSaved(false);
                         
                         //clear style properties that use this color.
-                        for (Array<StyleData> datas : main.getJsonData().getClassStyleMap().values()) {
-                            for (StyleData data : datas) {
-                                for (StyleProperty property : data.properties.values()) {
-                                    if (property != null && property.type.equals(Color.class) && property.value != null && property.value.equals(deleteColor.getName())) {
-                                        property.value = null;
-                                    }
-                                }
-                            }
-                        }
+                        ReferenceIndex referenceIndex = main.getJsonData().getReferenceIndex();
+                        referenceIndex.clear(Color.class, deleteColor.getName());
                         
-                        //delete tinted drawables based on this color.
-                        for(DrawableData drawableData : new Array<>(main.getProjectData().getAtlasData().getDrawables())) {
-                            if (drawableData.tintName != null && drawableData.tintName.equals(deleteColor.getName())) {
-                                main.getProjectData().getAtlasData().getDrawables().removeValue(drawableData, true);
-                                
-                                //clear any style properties based on this tinted drawable.
-                                for (Array<StyleData> styleDatas : main.getJsonData().getClassStyleMap().values()) {
-                                    for (StyleData styleData : styleDatas) {
-                                        for (StyleProperty styleProperty : styleData.properties.values()) {
-                                            if (styleProperty != null && styleProperty.type.equals(Drawable.class) && styleProperty.value != null && styleProperty.value.equals(drawableData.toString())) {
-                                                styleProperty.value = null;
-                                            }
-                                        }
-                                    }
-                                }
-                            }
+                        //delete tinted drawables based on this color and clear any style properties based on them.
+                        Array<DrawableData> tintedDrawables = referenceIndex.getTintReferences(deleteColor.getName());
+                        for (DrawableData drawableData : tintedDrawables) {
+                            referenceIndex.clear(Drawable.class, drawableData.toString());
+                        }
+                        for (DrawableData drawableData : tintedDrawables) {
+                            main.getProjectData().getAtlasData().removeDrawable(drawableData);
                         }
                         
                         main.getUndoableManager().clearUndoables();
@@ -565,26 +549,11 @@ public class DialogColors extends Dialog {
     }
     
     private void renameColor(ColorData color, String newName) {
-        //style properties
-        for (Array<StyleData> datas : main.getJsonData().getClassStyleMap().values()) {
-            for (StyleData data : datas) {
-                for (StyleProperty property : data.properties.values()) {
-                    if (property != null && property.type.equals(Color.class) && property.value != null && property.value.equals(color.getName())) {
-                        property.value = newName;
-                    }
-                }
-            }
-        }
-        
-        //tinted drawables
-        for (DrawableData drawableData : main.getAtlasData().getDrawables()) {
-            if (drawableData.tintName != null && drawableData.tintName.equals(color.getName())) {
-                drawableData.tintName = newName;
-            }
-        }
+        //style properties and tinted drawables
+        main.getJsonData().getReferenceIndex().rename(Color.class, color.getName(), newName);
         
         try {
-            color.setName(newName);
+            main.getJsonData().renameColor(color, newName);
         } catch (ColorData.NameFormatException ex) {
             Gdx.app.error(getClass().getName(), "Error trying to rename a color.", ex);
             main.getDialogFactory().showDialogError("Name Error...","Error while naming a color.\\nPlease ensure name is formatted appropriately:\\nNo spaces, don't start with a number, - and _ acceptable.\n\nOpen log?");
@@ -604,7 +573,7 @@ public class DialogColors extends Dialog {
         if (ColorData.validate(name)) {
             try {
                 main.getProjectData().setChangesSaved(false);
-                colors.add(new ColorData(name, color));
+                main.getJsonData().addColor(new ColorData(name, color));
                 sortBySelectedMode();
                 refreshTable();
                 return true;
@@ -642,7 +611,7 @@ public class DialogColors extends Dialog {
 
                     if (!hasColor) {
                         main.getProjectData().setChangesSaved(false);
-                        styleProperty.value = null;
+                        styleProperty.setValue(null);
                         main.getRootTable().refreshStyleProperties(true);
                     }
                 }
@@ -29,9 +29,7 @@ import com.badlogic.gdx.Input.Keys;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.Cursor;
-import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.math.MathUtils;
-import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.scenes.scene2d.Action;
 import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.InputEvent;
@@ -57,11 +55,9 @@ import com.badlogic.gdx.scenes.scene2d.utils.ClickListener;
 import com.badlogic.gdx.scenes.scene2d.utils.Drawable;
 import com.badlogic.gdx.scenes.scene2d.utils.NinePatchDrawable;
 import com.badlogic.gdx.scenes.scene2d.utils.SpriteDrawable;
-import com.badlogic.gdx.scenes.scene2d.utils.TiledDrawable;
 import com.badlogic.gdx.utils.Align;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.ObjectMap;
-import com.badlogic.gdx.utils.ObjectMap.Values;
 import com.badlogic.gdx.utils.Scaling;
 import com.badlogic.gdx.utils.Sort;
 import com.ray3k.skincomposer.FilesDroppedListener;
@@ -71,10 +67,12 @@ import com.ray3k.skincomposer.Undoable;
 import com.ray3k.skincomposer.UndoableManager;
 import com.ray3k.skincomposer.UndoableManager.CustomDrawableUndoable;
 import com.ray3k.skincomposer.UndoableManager.DrawableUndoable;
+import com.ray3k.skincomposer.data.AtlasRegistry;
 import com.ray3k.skincomposer.data.ColorData;
 import com.ray3k.skincomposer.data.CustomProperty;
 import com.ray3k.skincomposer.data.DrawableData;
-import com.ray3k.skincomposer.data.StyleData;
+import com.ray3k.skincomposer.data.ImageMetadataCache;
+import com.ray3k.skincomposer.data.ImageMetadataCache.ImageMetadata;
 import com.ray3k.skincomposer.data.StyleProperty;
 import com.ray3k.skincomposer.utils.Utils;
 import java.io.File;
@@ -94,7 +92,7 @@ public class DialogDrawables extends Dialog {
     private CustomProperty customProperty;
     private Array<DrawableData> drawables;
     private ObjectMap<DrawableData, Drawable> drawablePairs;
-    private TextureAtlas atlas;
+    private boolean atlasObtained;
     private HorizontalGroup contentGroup;
     private FilesDroppedListener filesDroppedListener;
     private DialogDrawablesListener listener;
@@ -172,11 +170,13 @@ public class DialogDrawables extends Dialog {
         
         main.getDesktopWorker().addFilesDroppedListener(filesDroppedListener);
 
-        drawablePairs = new ObjectMap<>();
+        main.getAtlasData().getRegistry().obtain();
+        atlasObtained = true;
+        drawablePairs = main.getAtlasData().getRegistry().getDrawablesByData();
         
         gatherDrawables();
         
-        produceAtlas();
+        updateAtlas();
         
         populate();
     }
@@ -194,55 +194,23 @@ public class DialogDrawables extends Dialog {
     }
     
     /**
-     * Writes a TextureAtlas based on drawables list. Creates drawables to be
-     * displayed on screen
+     * Writes a TextureAtlas based on drawables list if the images have
+     * changed. Recreates the drawables to be displayed on screen.
      * @return 
      */
     private boolean produceAtlas() {
+        main.getAtlasData().getRegistry().invalidate();
+        return updateAtlas();
+    }
+    
+    /**
+     * Brings the shared atlas and drawables up to date. Nothing is reloaded if
+     * there were no changes since the last update.
+     * @return 
+     */
+    private boolean updateAtlas() {
         try {
-            if (atlas != null) {
-                atlas.dispose();
-                atlas = null;
-            }
-            if (!main.getAtlasData().atlasCurrent) {
-                main.getAtlasData().writeAtlas();
-                main.getAtlasData().atlasCurrent = true;
-            }
-            atlas = main.getAtlasData().getAtlas();
-
-            for (DrawableData data : main.getAtlasData().getDrawables()) {
-                Drawable drawable;
-                if (data.customized) {
-                    drawable = getSkin().getDrawable("custom-drawable-skincomposer-image");
-                } else if (data.tiled) {
-                    String name = data.file.name();
-                    name = DrawableData.proper(name);
-                    drawable = new TiledDrawable(atlas.findRegion(name));
-                    drawable.setMinWidth(data.minWidth);
-                    drawable.setMinHeight(data.minHeight);
-                    ((TiledDrawable) drawable).getColor().set(main.getJsonData().getColorByName(data.tintName).color);
-                } else if (data.file.name().matches(".*\\.9\\.[a-zA-Z0-9]*$")) {
-                    String name = data.file.name();
-                    name = DrawableData.proper(name);
-                    drawable = new NinePatchDrawable(atlas.createPatch(name));
-                    if (data.tint != null) {
-                        drawable = ((NinePatchDrawable) drawable).tint(data.tint);
-                    } else if (data.tintName != null) {
-                        drawable = ((NinePatchDrawable) drawable).tint(main.getJsonData().getColorByName(data.tintName).color);
-                    }
-                } else {
-                    String name = data.file.name();
-                    name = DrawableData.proper(name);
-                    drawable = new SpriteDrawable(atlas.createSprite(name));
-                    if (data.tint != null) {
-                        drawable = ((SpriteDrawable) drawable).tint(data.tint);
-                    } else if (data.tintName != null) {
-                        drawable = ((SpriteDrawable) drawable).tint(main.getJsonData().getColorByName(data.tintName).color);
-                    }
-                }
-                
-                drawablePairs.put(data, drawable);
-            }
+            main.getAtlasData().getRegistry().update();
             return true;
         } catch (Exception e) {
             Gdx.app.error(getClass().getName(), "Error while attempting to generate drawables.", e);
@@ -504,9 +472,9 @@ public class DialogDrawables extends Dialog {
                         tiledDrawable.file = drawable.file;
                         tiledDrawable.tiled = true;
                         tiledDrawable.visible = true;
-                        Vector2 dimensions = Utils.imageDimensions(drawable.file);
-                        tiledDrawable.minWidth = dimensions.x;
-                        tiledDrawable.minHeight = dimensions.y;
+                        ImageMetadata metadata = ImageMetadataCache.get().getMetadata(drawable.file);
+                        tiledDrawable.minWidth = metadata.width;
+                        tiledDrawable.minHeight = metadata.height;
                         tiledDrawableSettingsDialog("New Tiled Drawable", tiledDrawable);
                         event.setBubbles(false);
                     }
@@ -640,7 +608,7 @@ public class DialogDrawables extends Dialog {
                 tintedDrawable.tintName = colorData.getName();
 
                 //Fix background color for new, tinted drawable
-                Color temp = Utils.averageEdgeColor(tintedDrawable.file, colorData.color);
+                Color temp = ImageMetadataCache.get().getMetadata(tintedDrawable.file).getEdgeColor(colorData.color);
 
                 if (Utils.brightness(temp) > .5f) {
                     tintedDrawable.bgColor = Color.BLACK;
@@ -666,7 +634,7 @@ public class DialogDrawables extends Dialog {
                     protected void result(Object object) {
                         if (object instanceof Boolean && (boolean) object) {
                             tintedDrawable.name = textField.getText();
-                            main.getAtlasData().getDrawables().add(tintedDrawable);
+                            main.getAtlasData().addDrawable(tintedDrawable);
                             main.getProjectData().setChangesSaved(false);
                         }
                     }
@@ -686,7 +654,7 @@ public class DialogDrawables extends Dialog {
                         if (keycode2 == Input.Keys.ENTER) {
                             if (!button.isDisabled()) {
                                 tintedDrawable.name = textField.getText();
-                                main.getAtlasData().getDrawables().add(tintedDrawable);
+                                main.getAtlasData().addDrawable(tintedDrawable);
                                 main.getProjectData().setChangesSaved(false);
                                 approveDialog.hide();
                             }
@@ -807,7 +775,7 @@ public class DialogDrawables extends Dialog {
     
     private void renameDrawable(DrawableData drawable, String name) {
         String oldName = drawable.name;
-        drawable.name = name;
+        main.getAtlasData().renameDrawable(drawable, name);
 
         main.getUndoableManager().clearUndoables();
         updateStyleValuesForRename(oldName, name);
@@ -988,13 +956,17 @@ public class DialogDrawables extends Dialog {
     }
     
     private void tiledDrawableSettings(DrawableData drawable, ColorData colorData, float minWidth, float minHeight, String name) {
-        drawable.name = name;
+        if (main.getAtlasData().getDrawables().contains(drawable, true)) {
+            main.getAtlasData().renameDrawable(drawable, name);
+        } else {
+            drawable.name = name;
+        }
         drawable.tintName = colorData.getName();
         drawable.minWidth = minWidth;
         drawable.minHeight = minHeight;
         
         //Fix background color for new, tinted drawable
-        Color temp = Utils.averageEdgeColor(drawable.file, colorData.color);
+        Color temp = ImageMetadataCache.get().getMetadata(drawable.file).getEdgeColor(colorData.color);
 
         if (Utils.brightness(temp) > .5f) {
             drawable.bgColor = Color.BLACK;
@@ -1003,7 +975,7 @@ public class DialogDrawables extends Dialog {
         }
         
         if (!main.getAtlasData().getDrawables().contains(drawable, false)) {
-            main.getAtlasData().getDrawables().add(drawable);
+            main.getAtlasData().addDrawable(drawable);
         }
         main.getProjectData().setChangesSaved(false);
         gatherDrawables();
@@ -1013,35 +985,16 @@ public class DialogDrawables extends Dialog {
     }
     
     private void updateStyleValuesForRename(String oldName, String newName) {
-        Values<Array<StyleData>> values = main.getJsonData().getClassStyleMap().values();
-        for (Array<StyleData> styles : values) {
-            for (StyleData style : styles) {
-                for (StyleProperty styleProperty : style.properties.values()) {
-                    if (Drawable.class.isAssignableFrom(styleProperty.type)) {
-                        if (styleProperty.value != null && styleProperty.value.equals(oldName)) {
-                            styleProperty.value = newName;
-                        }
-                    }
-                }
-            }
-        }
+        main.getJsonData().getReferenceIndex().rename(Drawable.class, oldName, newName);
     }
     
     private void deleteDrawable(DrawableData drawable) {
         if (!drawable.customized && drawable.tint == null && drawable.tintName == null && checkDuplicateDrawables(drawable.file, 1)) {
             showConfirmDeleteDialog(drawable);
         } else {
-            main.getAtlasData().getDrawables().removeValue(drawable, true);
+            main.getAtlasData().removeDrawable(drawable);
 
-            for (Array<StyleData> datas : main.getJsonData().getClassStyleMap().values()) {
-                for (StyleData data : datas) {
-                    for (StyleProperty styleProperty : data.properties.values()) {
-                        if (styleProperty != null && styleProperty.type.equals(Drawable.class) && styleProperty.value != null && styleProperty.value.equals(drawable.toString())) {
-                            styleProperty.value = null;
-                        }
-                    }
-                }
-            }
+            main.getJsonData().getReferenceIndex().clear(Drawable.class, drawable.toString());
 
             main.getRootTable().refreshStyleProperties(true);
             main.getRootTable().refreshPreview();
@@ -1269,18 +1222,10 @@ public class DialogDrawables extends Dialog {
         for (int i = 0; i < main.getAtlasData().getDrawables().size; i++) {
             DrawableData data = main.getAtlasData().getDrawables().get(i);
             if (name.equals(DrawableData.proper(data.file.name()))) {
-                main.getAtlasData().getDrawables().removeValue(data, true);
+                main.getAtlasData().removeDrawable(data);
                 
                 if (deleteStyleValues) {
-                    for (Array<StyleData> datas : main.getJsonData().getClassStyleMap().values()) {
-                        for (StyleData tempData : datas) {
-                            for (StyleProperty prop : tempData.properties.values()) {
-                                if (prop != null && prop.type.equals(Drawable.class) && prop.value != null && prop.value.equals(data.toString())) {
-                                    prop.value = null;
-                                }
-                            }
-                        }
-                    }
+                    main.getJsonData().getReferenceIndex().replace(Drawable.class, data.toString(), null);
                 }
                 
                 refreshDrawables = true;
@@ -1306,18 +1251,10 @@ public class DialogDrawables extends Dialog {
         for (int i = 0; i < main.getAtlasData().getDrawables().size; i++) {
             DrawableData data = main.getAtlasData().getDrawables().get(i);
             if (data.name != null && name.equals(data.name)) {
-                main.getAtlasData().getDrawables().removeValue(data, true);
+                main.getAtlasData().removeDrawable(data);
                 
                 if (deleteStyleValues) {
-                    for (Array<StyleData> datas : main.getJsonData().getClassStyleMap().values()) {
-                        for (StyleData tempData : datas) {
-                            for (StyleProperty prop : tempData.properties.values()) {
-                                if (prop != null && prop.type.equals(Drawable.class) && prop.value != null && prop.value.equals(data.toString())) {
-                                    prop.value = null;
-                                }
-                            }
-                        }
-                    }
+                    main.getJsonData().getReferenceIndex().replace(Drawable.class, data.toString(), null);
                 }
                 
                 refreshDrawables = true;
@@ -1378,7 +1315,7 @@ public class DialogDrawables extends Dialog {
             @Override
             public void run(String name) {
                 DrawableData drawable = new DrawableData(name);
-                main.getAtlasData().getDrawables().add(drawable);
+                main.getAtlasData().addDrawable(drawable);
                 
                 gatherDrawables();
 
@@ -1386,8 +1323,7 @@ public class DialogDrawables extends Dialog {
                     if (!produceAtlas()) {
                         showDrawableError();
                         Gdx.app.log(getClass().getName(), "Attempting to reload drawables backup...");
-                        main.getAtlasData().getDrawables().clear();
-                        main.getAtlasData().getDrawables().addAll(backup);
+                        main.getAtlasData().setDrawables(backup);
                         gatherDrawables();
                         if (produceAtlas()) {
                             Gdx.app.log(getClass().getName(), "Successfully rolled back changes to drawables");
@@ -1503,34 +1439,75 @@ public class DialogDrawables extends Dialog {
         for (FileHandle file : filesToProcess) {
             DrawableData data = new DrawableData(file);
             if (!checkIfNameExists(data.name)) {
-                main.getAtlasData().getDrawables().add(data);
+                main.getAtlasData().addDrawable(data);
             }
         }        
         
         gatherDrawables();
 
-        main.getDialogFactory().showDialogLoading(() -> {
-            if (!produceAtlas()) {
+        DialogLoading dialog = main.getDialogFactory().showDialogProgress();
+        AtlasRegistry registry = main.getAtlasData().getRegistry();
+        registry.invalidate();
+        AtlasRegistry.AtlasTask task = registry.updateAsync(new AtlasRegistry.AtlasListener() {
+            @Override
+            public void progress(String message) {
+                dialog.setProgress(message);
+            }
+
+            @Override
+            public void completed() {
+                if (main.getProjectData().areResourcesRelative()) {
+                    main.getProjectData().makeResourcesRelative();
+                }
+                
+                main.getProjectData().setChangesSaved(false);
+                
+                sortBySelectedMode();
+                main.getRootTable().refreshPreview();
+                dialog.finish();
+            }
+
+            @Override
+            public void cancelled() {
+                Gdx.app.log(getClass().getName(), "Drawable import cancelled, reloading drawables backup...");
+                rollback();
+            }
+
+            @Override
+            public void failed(Exception e) {
                 showDrawableError();
                 Gdx.app.log(getClass().getName(), "Attempting to reload drawables backup...");
-                main.getAtlasData().getDrawables().clear();
-                main.getAtlasData().getDrawables().addAll(backup);
+                rollback();
+            }
+            
+            @Override
+            public void superseded() {
+                //a newer atlas update packs these drawables, keep the changes
+                if (main.getProjectData().areResourcesRelative()) {
+                    main.getProjectData().makeResourcesRelative();
+                }
+                
+                main.getProjectData().setChangesSaved(false);
+                
+                sortBySelectedMode();
+                dialog.finish();
+            }
+            
+            private void rollback() {
+                main.getAtlasData().setDrawables(backup);
                 gatherDrawables();
                 if (produceAtlas()) {
                     Gdx.app.log(getClass().getName(), "Successfully rolled back changes to drawables");
                 } else {
                     Gdx.app.error(getClass().getName(), "Critical failure, could not roll back changes to drawables");
                 }
-            } else {
-                if (main.getProjectData().areResourcesRelative()) {
-                    main.getProjectData().makeResourcesRelative();
-                }
                 
-                main.getProjectData().setChangesSaved(false);
+                sortBySelectedMode();
+                main.getRootTable().refreshPreview();
+                dialog.finish();
             }
-
-            sortBySelectedMode();
         });
+        dialog.setCancelRunnable(task::cancel);
     }
     
     /**
@@ -1551,7 +1528,7 @@ public class DialogDrawables extends Dialog {
                     tintedDrawable.tint = color;
                     
                     //Fix background color for new, tinted drawable
-                    Color temp = Utils.averageEdgeColor(tintedDrawable.file, tintedDrawable.tint);
+                    Color temp = ImageMetadataCache.get().getMetadata(tintedDrawable.file).getEdgeColor(tintedDrawable.tint);
                     
                     if (Utils.brightness(temp) > .5f) {
                         tintedDrawable.bgColor = Color.BLACK;
@@ -1575,7 +1552,7 @@ public class DialogDrawables extends Dialog {
                         protected void result(Object object) {
                             if (object instanceof Boolean && (boolean) object) {
                                 tintedDrawable.name = textField.getText();
-                                main.getAtlasData().getDrawables().add(tintedDrawable);
+                                main.getAtlasData().addDrawable(tintedDrawable);
                                 main.getProjectData().setChangesSaved(false);
                             }
                         }
@@ -1596,7 +1573,7 @@ public class DialogDrawables extends Dialog {
                             if (keycode2 == Input.Keys.ENTER) {
                                 if (!button.isDisabled()) {
                                     tintedDrawable.name = textField.getText();
-                                    main.getAtlasData().getDrawables().add(tintedDrawable);
+                                    main.getAtlasData().addDrawable(tintedDrawable);
                                     main.getProjectData().setChangesSaved(false);
                                     dialog.hide();
                                 }
@@ -1673,9 +1650,9 @@ public class DialogDrawables extends Dialog {
             main.getDialogFactory().showDialogError("Atlas Error...", "Error creating atlas upon drawable dialog exit.\n\nOpen log?");
         }
         
-        if (atlas != null) {
-            atlas.dispose();
-            atlas = null;
+        if (atlasObtained) {
+            main.getAtlasData().getRegistry().free();
+            atlasObtained = false;
         }
         
         fire(new DialogEvent(DialogEvent.Type.CLOSE));
@@ -1726,7 +1703,7 @@ public class DialogDrawables extends Dialog {
                         if (!hasDrawable) {
                             main.getProjectData().setChangesSaved(false);
                             main.getUndoableManager().clearUndoables();
-                            property.value = null;
+                            property.setValue(null);
                             main.getRootTable().refreshStyleProperties(true);
                         }
                         
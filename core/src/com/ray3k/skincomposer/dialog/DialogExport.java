@@ -43,9 +43,8 @@ import com.badlogic.gdx.scenes.scene2d.ui.TextField;
 import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener;
 import com.badlogic.gdx.utils.Array;
 import com.ray3k.skincomposer.Main;
-import com.ray3k.skincomposer.data.FontData;
-import com.ray3k.skincomposer.data.FreeTypeFontData;
 import com.ray3k.skincomposer.data.JsonData.ExportFormat;
+import com.ray3k.skincomposer.data.SkinExporter;
 
 /**
  *
@@ -142,7 +141,7 @@ public class DialogExport extends Dialog {
         table.add(label);
         
         SelectBox<ExportFormat> selectBox = new SelectBox<ExportFormat>(main.getSkin());
-        selectBox.setItems(ExportFormat.MINIMAL, ExportFormat.JAVASCRIPT, ExportFormat.JSON);
+        selectBox.setItems(ExportFormat.MINIMAL, ExportFormat.JAVASCRIPT, ExportFormat.JSON, ExportFormat.UBJSON);
         selectBox.setSelected(main.getProjectData().getExportFormat());
         table.add(selectBox);
         selectBox.addListener(main.getHandListener());
@@ -171,14 +170,15 @@ public class DialogExport extends Dialog {
     }
     
     private void showFileBrowser() {
-        String[] filterPatterns = {"*.json"};
+        String extension = main.getProjectData().getExportFormat().getExtension();
+        String[] filterPatterns = {"*." + extension};
 
         TextField textField  = findActor("path");
-        File file = main.getDesktopWorker().saveDialog("Export skin...", textField.getText(), filterPatterns, "Json files");
+        File file = main.getDesktopWorker().saveDialog("Export skin...", textField.getText(), filterPatterns, main.getProjectData().getExportFormat().isBinary() ? "UBJSON files" : "Json files");
         if (file != null) {
         	FileHandle fileHandle = new FileHandle(file);
             if (fileHandle.extension().equals("")) {
-                fileHandle = fileHandle.sibling(fileHandle.nameWithoutExtension() + ".json");
+                fileHandle = fileHandle.sibling(fileHandle.nameWithoutExtension() + "." + extension);
             }
             textField.setText(fileHandle.path());
             textField.setCursorPosition(Math.max(0, textField.getText().length() - 1));
@@ -205,38 +205,41 @@ public class DialogExport extends Dialog {
     }
     
     private void writeFile(FileHandle fileHandle) {
-        main.getDialogFactory().showDialogLoading(() -> {
-            Array<String> warnings = new Array<>();
-
-            Array<String> newWarnings = main.getProjectData().getJsonData().writeFile(fileHandle);
-            warnings.addAll(newWarnings);
-
-            if (main.getProjectData().isExportingAtlas()) {
-                try {
-                    newWarnings = main.getProjectData().getAtlasData().writeAtlas(fileHandle.parent().child(fileHandle.nameWithoutExtension() + ".atlas"));
-                    warnings.addAll(newWarnings);
-                } catch (Exception ex) {
-                    Gdx.app.error(getClass().getName(), "Error while writing texture atlas", ex);
-                    main.getDialogFactory().showDialogError("Atlas Error...", "Error while writing texture atlas.\n\nOpen log?");
-                }
+        //binary skins are saved with their own extension so they can sit next to a JSON export
+        if (main.getProjectData().getExportFormat().isBinary() && fileHandle.extension().equalsIgnoreCase("json")) {
+            fileHandle = fileHandle.sibling(fileHandle.nameWithoutExtension() + ".ubj");
+        }
+        
+        //the exporter snapshots the project here, on the GL thread
+        SkinExporter exporter = new SkinExporter(main, fileHandle);
+        DialogLoading dialog = main.getDialogFactory().showDialogProgress();
+        exporter.start(new SkinExporter.ExportListener() {
+            @Override
+            public void progress(String message) {
+                dialog.setProgress(message);
             }
 
-            if (main.getProjectData().isExportingFonts()) {
-                for (FontData font : main.getProjectData().getJsonData().getFonts()) {
-                    if (!font.file.parent().equals(fileHandle.parent())) {
-                        font.file.copyTo(fileHandle.parent());
-                    }
-                }
-
-                for (FreeTypeFontData font : main.getProjectData().getJsonData().getFreeTypeFonts()) {
-                    if (font.useCustomSerializer && !font.file.parent().equals(fileHandle.parent())) {
-                        font.file.copyTo(fileHandle.parent());
-                    }
+            @Override
+            public void failed(String stage, Exception e) {
+                switch (stage) {
+                    case "atlas":
+                        main.getDialogFactory().showDialogError("Atlas Error...", "Error while writing texture atlas.\n\nOpen log?");
+                        break;
+                    case "fonts":
+                        main.getDialogFactory().showDialogError("Font Error...", "Error while copying font files.\n\nOpen log?");
+                        break;
+                    default:
+                        main.getDialogFactory().showDialogError("Export Error...", "Error while writing skin file.\n\nOpen log?");
+                        break;
                 }
             }
 
-            if (warnings.size > 0) {
-                main.getDialogFactory().showWarningDialog(warnings);
+            @Override
+            public void completed(Array<String> warnings) {
+                dialog.finish();
+                if (warnings.size > 0) {
+                    main.getDialogFactory().showWarningDialog(warnings);
+                }
             }
         });
     }
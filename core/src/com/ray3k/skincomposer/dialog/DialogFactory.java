@@ -597,6 +597,18 @@ public class DialogFactory {
         dialog.show(main.getStage());
     }
 
+    /**
+     * Shows a loading dialog for work done on a background thread. The
+     * dialog stays open until {@link DialogLoading#finish()} is called.
+     * @return 
+     */
+    public DialogLoading showDialogProgress() {
+        DialogLoading dialog = new DialogLoading("", null, main);
+        dialog.setWaiting(true);
+        dialog.show(main.getStage());
+        return dialog;
+    }
+
     public Dialog yesNoDialog(String title, String text,
             ConfirmationListener listener, DialogListener dialogListener) {
         Dialog dialog = new Dialog(title, main.getSkin(), "bg") {
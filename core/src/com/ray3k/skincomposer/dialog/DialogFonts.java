@@ -30,8 +30,6 @@ import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.Cursor;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.BitmapFont.BitmapFontData;
-import com.badlogic.gdx.graphics.g2d.TextureAtlas;
-import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.EventListener;
 import com.badlogic.gdx.scenes.scene2d.InputEvent;
@@ -64,7 +62,6 @@ import com.ray3k.skincomposer.data.CustomProperty;
 import com.ray3k.skincomposer.data.DrawableData;
 import com.ray3k.skincomposer.data.FontData;
 import com.ray3k.skincomposer.data.FreeTypeFontData;
-import com.ray3k.skincomposer.data.StyleData;
 import com.ray3k.skincomposer.data.StyleProperty;
 import com.ray3k.skincomposer.utils.Utils;
 import java.io.File;
@@ -80,7 +77,7 @@ public class DialogFonts extends Dialog {
     private Table fontsTable;
     private SelectBox<String> selectBox;
     private ObjectMap<FontData, BitmapFont> fontMap;
-    private TextureAtlas atlas;
+    private boolean atlasObtained;
     private EventListener listener;
     private FilesDroppedListener filesDroppedListener;
     private ScrollPane scrollPane;
@@ -116,7 +113,9 @@ public class DialogFonts extends Dialog {
         drawables = main.getAtlasData().getDrawables();
 
         fontMap = new ObjectMap<>();
-        produceAtlas();
+        main.getAtlasData().getRegistry().obtain();
+        atlasObtained = true;
+        updateAtlas();
         
         filesDroppedListener = (Array<FileHandle> files) -> {
             Iterator<FileHandle> iter = files.iterator();
@@ -265,16 +264,14 @@ public class DialogFonts extends Dialog {
                 FontData font = new FontData(name, file);
                 
                 //remove any existing FontData that shares the same name.
-                if (fonts.contains(font, false)) {
-                    FontData deleteFont = fonts.get(fonts.indexOf(font, false));
-                    
+                FontData deleteFont = main.getJsonData().getFont(name);
+                if (deleteFont != null) {
                     BitmapFontData deleteFontData = new BitmapFontData(deleteFont.file, false);
                     for (String path : deleteFontData.imagePaths) {
-                        FileHandle imagefile = new FileHandle(path);
-                        drawables.removeValue(new DrawableData(imagefile), false);
+                        removeFontPage(new FileHandle(path));
                     }
                     
-                    fonts.removeValue(font, false);
+                    main.getJsonData().removeFont(deleteFont);
                 }
                 
                 BitmapFontData bitmapFontData = new BitmapFontData(file, false);
@@ -283,18 +280,13 @@ public class DialogFonts extends Dialog {
                     drawable.visible = false;
                     if (!drawables.contains(drawable, false)) {
                         main.getAtlasData().atlasCurrent = false;
-                        drawables.add(drawable);
+                        main.getAtlasData().addDrawable(drawable);
                     }
                 }
                 produceAtlas();
-                fonts.add(font);
+                main.getJsonData().addFont(font);
                 
-                Array<TextureRegion> regions = new Array<>();
-                for (String path : bitmapFontData.imagePaths) {
-                    FileHandle imageFile = new FileHandle(path);
-                    regions.add(atlas.findRegion(imageFile.nameWithoutExtension()));
-                }
-                fontMap.put(font, new BitmapFont(bitmapFontData, regions, true));
+                obtainFont(font);
                 
                 
                 
@@ -382,23 +374,14 @@ public class DialogFonts extends Dialog {
                 closeButton.addListener(new ChangeListener() {
                     @Override
                     public void changed(ChangeListener.ChangeEvent event, Actor actor) {
-                        fonts.removeValue(deleteFont, true);
+                        main.getJsonData().removeFont(deleteFont);
                         main.getProjectData().setChangesSaved(false);
                         BitmapFontData bitmapFontData = new BitmapFontData(deleteFont.file, false);
                         for (String path : bitmapFontData.imagePaths) {
-                            FileHandle imagefile = new FileHandle(path);
-                            drawables.removeValue(new DrawableData(imagefile), false);
+                            removeFontPage(new FileHandle(path));
                         }
                         
-                        for (Array<StyleData> datas : main.getJsonData().getClassStyleMap().values()) {
-                            for (StyleData data : datas) {
-                                for (StyleProperty property : data.properties.values()) {
-                                    if (property != null && property.type.equals(BitmapFont.class) && property.value != null && property.value.equals(deleteFont.getName())) {
-                                        property.value = null;
-                                    }
-                                }
-                            }
-                        }
+                        main.getJsonData().getReferenceIndex().clear(BitmapFont.class, deleteFont.getName());
                         
                         main.getUndoableManager().clearUndoables();
                         
@@ -494,15 +477,7 @@ public class DialogFonts extends Dialog {
                         freeTypeFonts.removeValue(deleteFont, true);
                         main.getProjectData().setChangesSaved(false);
                         
-                        for (Array<StyleData> datas : main.getJsonData().getClassStyleMap().values()) {
-                            for (StyleData data : datas) {
-                                for (StyleProperty property : data.properties.values()) {
-                                    if (property != null && property.type.equals(BitmapFont.class) && property.value != null && property.value.equals(deleteFont.name)) {
-                                        property.value = null;
-                                    }
-                                }
-                            }
-                        }
+                        main.getJsonData().getReferenceIndex().clear(BitmapFont.class, deleteFont.name);
                         
                         main.getUndoableManager().clearUndoables();
                         
@@ -644,18 +619,10 @@ public class DialogFonts extends Dialog {
     }
     
     private void renameFont(FontData font, String newName) {
-        for (Array<StyleData> datas : main.getJsonData().getClassStyleMap().values()) {
-            for (StyleData data : datas) {
-                for (StyleProperty property : data.properties.values()) {
-                    if (property != null && property.type.equals(BitmapFont.class) && property.value != null && property.value.equals(font.getName())) {
-                        property.value = newName;
-                    }
-                }
-            }
-        }
+        main.getJsonData().getReferenceIndex().rename(BitmapFont.class, font.getName(), newName);
         
         try {
-            font.setName(newName);
+            main.getJsonData().renameFont(font, newName);
         } catch (FontData.NameFormatException ex) {
             Gdx.app.error(getClass().getName(), "Error trying to rename a font.", ex);
             main.getDialogFactory().showDialogError("Rename Font Error...", "Error trying to rename a font.\n\nOpen log?");
@@ -710,7 +677,7 @@ public class DialogFonts extends Dialog {
                     }
 
                     if (!hasFont) {
-                        styleProperty.value = null;
+                        styleProperty.setValue(null);
                         main.getProjectData().setChangesSaved(false);
                         main.getRootTable().refreshStyleProperties(true);
                     }
@@ -839,44 +806,59 @@ public class DialogFonts extends Dialog {
     public boolean remove() {
         main.getDesktopWorker().removeFilesDroppedListener(filesDroppedListener);
         
-        produceAtlas();
-        
         for (BitmapFont font : fontMap.values()) {
-            font.dispose();
+            main.getProjectData().getFontCache().free(font);
         }
         fontMap.clear();
         
+        if (atlasObtained) {
+            main.getAtlasData().getRegistry().free();
+            atlasObtained = false;
+        }
+        
         fire(new DialogEvent(DialogEvent.Type.CLOSE));
         return super.remove();
     }
 
+    /**
+     * Replaces the displayed font with the one from the project's font cache.
+     * @param font 
+     */
+    /**
+     * Removes the drawable generated for a page of a font.
+     * @param imagefile 
+     */
+    private void removeFontPage(FileHandle imagefile) {
+        int index = drawables.indexOf(new DrawableData(imagefile), false);
+        if (index != -1) {
+            main.getAtlasData().removeDrawable(drawables.get(index));
+        }
+    }
+    
+    private void obtainFont(FontData font) {
+        BitmapFont previous = fontMap.put(font, main.getProjectData().getFontCache().obtain(font.file));
+        if (previous != null) {
+            main.getProjectData().getFontCache().free(previous);
+        }
+    }
+
     private boolean produceAtlas() {
+        main.getAtlasData().getRegistry().invalidate();
+        return updateAtlas();
+    }
+    
+    /**
+     * Brings the shared atlas up to date and obtains the fonts to be displayed
+     * on screen. The atlas is not reloaded if the images have not changed and
+     * fonts already loaded by the preview are reused.
+     * @return 
+     */
+    private boolean updateAtlas() {
         try {
-            if (atlas != null) {
-                atlas.dispose();
-                atlas = null;
-            }
-            
-            if (!main.getAtlasData().atlasCurrent) {
-                main.getAtlasData().writeAtlas();
-                main.getAtlasData().atlasCurrent = true;
-            }
-            atlas = main.getAtlasData().getAtlas();
+            main.getAtlasData().getRegistry().update();
 
             for (FontData font : fonts) {
-                BitmapFontData fontData = new BitmapFontData(font.file, false);
-                Array<TextureRegion> regions = new Array<>();
-                for (String path : fontData.imagePaths) {
-                    FileHandle file = new FileHandle(path);
-                    if (!file.exists()) {
-                        file = fontData.fontFile.sibling(fontData.fontFile.nameWithoutExtension() + ".png");
-                    }
-                    TextureRegion region = atlas.findRegion(file.nameWithoutExtension());
-                    if (region != null) {
-                        regions.add(region);
-                    }
-                }
-                fontMap.put(font, new BitmapFont(fontData, regions, true));
+                obtainFont(font);
             }
             return true;
         } catch (Exception e) {
@@ -1050,7 +1032,15 @@ public class DialogFonts extends Dialog {
                 
                 textField.setFocusTraversal(false);
                 
-                if (!Utils.doesImageFitBox(new FileHandle(bitmapFontData.imagePaths[0]), maxTextureWidth, maxTextureHeight)) {
+                boolean fits = true;
+                for (String imagePath : bitmapFontData.imagePaths) {
+                    if (!Utils.doesImageFitBox(new FileHandle(imagePath), maxTextureWidth, maxTextureHeight)) {
+                        fits = false;
+                        break;
+                    }
+                }
+                
+                if (!fits) {
                     showAddFontSizeError(fileHandle.nameWithoutExtension());
                 } else {
                     nameDialog.show(getStage());
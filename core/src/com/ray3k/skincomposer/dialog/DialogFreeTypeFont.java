@@ -206,19 +206,11 @@ public class DialogFreeTypeFont extends Dialog {
             case GENERATE:
                 if (mode == Mode.EDIT) {
                     if (!originalData.name.equals(data.name)) {
-                        for (Array<StyleData> styleDatas : main.getJsonData().getClassStyleMap().values()) {
-                            for (StyleData styleData : styleDatas) {
-                                for (StyleProperty property : styleData.properties.values()) {
-                                    if (property != null && property.type.equals(BitmapFont.class) && property.value != null && property.value.equals(originalData.name)) {
-                                        property.value = data.name;
-                                    }
-                                }
-                            }
-                        }
+                        main.getJsonData().getReferenceIndex().rename(BitmapFont.class, originalData.name, data.name);
                     }
 
                     originalData.bitmapFont.dispose();
-                    main.getJsonData().getFreeTypeFonts().removeValue(originalData, false);
+                    main.getJsonData().removeFreeTypeFont(originalData);
 
                     main.getUndoableManager().clearUndoables();
 
@@ -226,7 +218,7 @@ public class DialogFreeTypeFont extends Dialog {
                 }
 
                 data.createBitmapFont(main);
-                main.getJsonData().getFreeTypeFonts().add(data);
+                main.getJsonData().addFreeTypeFont(data);
 
                 for (DialogFreeTypeFontListener listener : listeners) {
                     listener.fontAdded(data);
@@ -1408,7 +1400,7 @@ public class DialogFreeTypeFont extends Dialog {
             if (color == null) {
                 try {
                     color = new ColorData(fontSettings.color, new Color(fontSettings.colorValue));
-                    main.getJsonData().getColors().add(color);
+                    main.getJsonData().addColor(color);
                 } catch (ColorData.NameFormatException ex) {
                     Gdx.app.error(getClass().getName(), "Error creating color.", ex);
                 }
@@ -1434,7 +1426,7 @@ public class DialogFreeTypeFont extends Dialog {
                 } catch (ColorData.NameFormatException ex) {
                     Gdx.app.error(getClass().getName(), "Error creating color.", ex);
                 }
-                main.getJsonData().getColors().add(color);
+                main.getJsonData().addColor(color);
             }
             ((TextButton) findActor("borderColorTextButton")).setUserObject(color);
             data.borderColor = fontSettings.borderColor;
@@ -1460,7 +1452,7 @@ public class DialogFreeTypeFont extends Dialog {
                 } catch (ColorData.NameFormatException ex) {
                     Gdx.app.error(getClass().getName(), "Error creating color.", ex);
                 }
-                main.getJsonData().getColors().add(color);
+                main.getJsonData().addColor(color);
             }
             ((TextButton) findActor("shadowColorTextButton")).setUserObject(color);
             data.shadowColor = fontSettings.shadowColor;
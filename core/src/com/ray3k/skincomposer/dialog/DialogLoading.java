@@ -24,6 +24,7 @@
 package com.ray3k.skincomposer.dialog;
 
 import com.badlogic.gdx.scenes.scene2d.Action;
+import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.actions.DelayAction;
 import com.badlogic.gdx.scenes.scene2d.actions.RunnableAction;
@@ -31,12 +32,17 @@ import com.badlogic.gdx.scenes.scene2d.actions.SequenceAction;
 import com.badlogic.gdx.scenes.scene2d.ui.Dialog;
 import com.badlogic.gdx.scenes.scene2d.ui.Label;
 import com.badlogic.gdx.scenes.scene2d.ui.Table;
+import com.badlogic.gdx.scenes.scene2d.ui.TextButton;
+import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener;
 import com.badlogic.gdx.utils.Align;
 import com.ray3k.skincomposer.Main;
 
 public class DialogLoading extends Dialog {
     private Runnable runnable;
     private Main main;
+    private boolean waiting;
+    private Label progressLabel;
+    private TextButton cancelButton;
     
     public DialogLoading(String title, Runnable runnable, Main main) {
         super(title, main.getSkin(), "dialog");
@@ -54,7 +60,9 @@ public class DialogLoading extends Dialog {
             if (runnable != null) {
                 runnable.run();
             }
-            hide();
+            if (!waiting) {
+                hide();
+            }
         });
         Action action = new SequenceAction(new DelayAction(.5f), runnableAction);
         addAction(action);
@@ -71,5 +79,47 @@ public class DialogLoading extends Dialog {
         Table table = new Table(main.getSkin());
         table.setBackground(main.getLoadingAnimation());
         t.add(table);
+        t.row();
+        progressLabel = new Label("", main.getSkin());
+        progressLabel.setAlignment(Align.center);
+        t.add(progressLabel).padTop(10.0f);
+        t.row();
+        cancelButton = new TextButton("Cancel", main.getSkin());
+        cancelButton.setVisible(false);
+        cancelButton.addListener(main.getHandListener());
+        t.add(cancelButton).padTop(10.0f);
+    }
+    
+    /**
+     * Keeps the dialog open after the runnable completes. Call
+     * {@link #finish()} to close it once the background work is done.
+     * @param waiting 
+     */
+    public void setWaiting(boolean waiting) {
+        this.waiting = waiting;
+    }
+    
+    public void setProgress(String text) {
+        progressLabel.setText(text);
+    }
+    
+    /**
+     * Shows a cancel button that runs the given runnable once.
+     * @param cancelRunnable 
+     */
+    public void setCancelRunnable(Runnable cancelRunnable) {
+        cancelButton.setVisible(true);
+        cancelButton.addListener(new ChangeListener() {
+            @Override
+            public void changed(ChangeListener.ChangeEvent event, Actor actor) {
+                cancelButton.setDisabled(true);
+                progressLabel.setText("Cancelling...");
+                cancelRunnable.run();
+            }
+        });
+    }
+    
+    public void finish() {
+        hide();
     }
 }
@@ -44,6 +44,7 @@ import com.ray3k.skincomposer.utils.Utils;
 public class DialogSettings extends Dialog {
     private Integer maxUndos;
     private boolean resourcesRelative;
+    private boolean compactFormat;
     private boolean allowingWelcome;
     private boolean allowingUpdates;
     private final Main main;
@@ -54,6 +55,7 @@ public class DialogSettings extends Dialog {
 
         maxUndos = main.getProjectData().getMaxUndos();
         resourcesRelative = main.getProjectData().areResourcesRelative();
+        compactFormat = main.getProjectData().isUsingCompactFormat();
         allowingWelcome = main.getProjectData().isAllowingWelcome();
         allowingUpdates = main.getProjectData().isCheckingForUpdates();
 
@@ -68,6 +70,7 @@ public class DialogSettings extends Dialog {
             main.getProjectData().setChangesSaved(false);
             main.getProjectData().setMaxUndos(maxUndos);
             main.getProjectData().setResourcesRelative(resourcesRelative);
+            main.getProjectData().setUsingCompactFormat(compactFormat);
             main.getProjectData().setAllowingWelcome(allowingWelcome);
             main.getProjectData().setCheckingForUpdates(allowingUpdates);
             main.getUndoableManager().clearUndoables();
@@ -219,6 +222,18 @@ public class DialogSettings extends Dialog {
         });
         table.add(relativeCheckBox);
         
+        table.row();
+        ImageTextButton compactCheckBox = new ImageTextButton("Save as compact binary project?", getSkin(), "checkbox");
+        compactCheckBox.setChecked(compactFormat);
+        compactCheckBox.addListener(main.getHandListener());
+        compactCheckBox.addListener(new ChangeListener() {
+            @Override
+            public void changed(ChangeListener.ChangeEvent event, Actor actor) {
+                compactFormat = compactCheckBox.isChecked();
+            }
+        });
+        table.add(compactCheckBox);
+        
         table.row();
         ImageTextButton welcomeCheckBox = new ImageTextButton("Show welcome screen?", getSkin(), "checkbox");
         welcomeCheckBox.setChecked(allowingWelcome);
@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * MIT License
+ * 
+ * Copyright (c) 2018 Raymond Buckley
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.ray3k.skincomposer.utils;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.math.GridPoint2;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the dimensions of PNG, JPEG, BMP and GIF images from their headers
+ * without decoding any pixels. Only the first bytes of the file are read,
+ * except for JPEG files where the segments before the frame header are
+ * skipped.
+ */
+public class ImageProbe {
+    private static final int HEADER_SIZE = 32;
+    
+    /**
+     * Reads the width and height of an image.
+     * @param file
+     * @return The dimensions in pixels, including the border of nine patches,
+     * or null if the format is not recognized or the file can't be read.
+     */
+    public static GridPoint2 probe(FileHandle file) {
+        if (file.isDirectory() || !file.exists()) {
+            return null;
+        }
+        
+        try (FileChannel channel = FileChannel.open(file.file().toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(channel, buffer, 0);
+            buffer.flip();
+            
+            if (isPng(buffer)) {
+                return probePng(buffer);
+            } else if (isGif(buffer)) {
+                return probeGif(buffer);
+            } else if (isBmp(buffer)) {
+                return probeBmp(buffer);
+            } else if (isJpeg(buffer)) {
+                return probeJpeg(channel);
+            }
+        } catch (IOException e) {
+            Gdx.app.error(ImageProbe.class.getName(), "Error reading image header of " + file.path(), e);
+        }
+        
+        return null;
+    }
+    
+    private static int readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + total);
+            if (read == -1) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+    
+    private static boolean isPng(ByteBuffer buffer) {
+        return buffer.remaining() >= 24 && (buffer.get(0) & 0xff) == 0x89 && buffer.get(1) == 'P' && buffer.get(2) == 'N' && buffer.get(3) == 'G'
+                && buffer.get(12) == 'I' && buffer.get(13) == 'H' && buffer.get(14) == 'D' && buffer.get(15) == 'R';
+    }
+    
+    private static GridPoint2 probePng(ByteBuffer buffer) {
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        return new GridPoint2(buffer.getInt(16), buffer.getInt(20));
+    }
+    
+    private static boolean isGif(ByteBuffer buffer) {
+        return buffer.remaining() >= 10 && buffer.get(0) == 'G' && buffer.get(1) == 'I' && buffer.get(2) == 'F' && buffer.get(3) == '8';
+    }
+    
+    private static GridPoint2 probeGif(ByteBuffer buffer) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return new GridPoint2(buffer.getShort(6) & 0xffff, buffer.getShort(8) & 0xffff);
+    }
+    
+    private static boolean isBmp(ByteBuffer buffer) {
+        return buffer.remaining() >= 26 && buffer.get(0) == 'B' && buffer.get(1) == 'M';
+    }
+    
+    private static GridPoint2 probeBmp(ByteBuffer buffer) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int headerSize = buffer.getInt(14);
+        if (headerSize == 12) {
+            //OS/2 BITMAPCOREHEADER
+            return new GridPoint2(buffer.getShort(18) & 0xffff, buffer.getShort(20) & 0xffff);
+        } else {
+            //height is negative for top-down bitmaps
+            return new GridPoint2(buffer.getInt(18), Math.abs(buffer.getInt(22)));
+        }
+    }
+    
+    private static boolean isJpeg(ByteBuffer buffer) {
+        return buffer.remaining() >= 4 && (buffer.get(0) & 0xff) == 0xff && (buffer.get(1) & 0xff) == 0xd8;
+    }
+    
+    /**
+     * Walks the JPEG segments until a start of frame marker is found.
+     */
+    private static GridPoint2 probeJpeg(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(9);
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        long position = 2;
+        
+        while (true) {
+            buffer.clear();
+            buffer.limit(2);
+            if (readFully(channel, buffer, position) < 2) {
+                return null;
+            }
+            
+            if ((buffer.get(0) & 0xff) != 0xff) {
+                return null;
+            }
+            
+            int marker = buffer.get(1) & 0xff;
+            if (marker == 0xff) {
+                //fill byte
+                position++;
+                continue;
+            }
+            position += 2;
+            
+            if (marker == 0x01 || (marker >= 0xd0 && marker <= 0xd7)) {
+                //standalone markers have no length
+                continue;
+            }
+            
+            if (marker == 0xd9 || marker == 0xda) {
+                //end of image or start of scan before any frame header
+                return null;
+            }
+            
+            buffer.clear();
+            if (readFully(channel, buffer, position) < 2) {
+                return null;
+            }
+            int length = buffer.getShort(0) & 0xffff;
+            
+            if (marker >= 0xc0 && marker <= 0xcf && marker != 0xc4 && marker != 0xc8 && marker != 0xcc) {
+                if (buffer.position() < 7) {
+                    return null;
+                }
+                return new GridPoint2(buffer.getShort(5) & 0xffff, buffer.getShort(3) & 0xffff);
+            }
+            
+            position += length;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * MIT License
+ * 
+ * Copyright (c) 2018 Raymond Buckley
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.ray3k.skincomposer.utils;
+
+import java.io.IOException;
+
+/**
+ * Receives the skin structure during export, independent of the file format
+ * it is written in.
+ */
+public interface JsonOutput {
+    /**
+     * Starts the root object.
+     * @return
+     * @throws IOException 
+     */
+    public JsonOutput objectStart() throws IOException;
+    
+    public JsonOutput objectStart(String name) throws IOException;
+    
+    public JsonOutput objectEnd() throws IOException;
+    
+    /**
+     * Writes a String, Number, Boolean, Enum or null value. Any other object
+     * is serialized with Json reflection.
+     * @param name
+     * @param value
+     * @return
+     * @throws IOException 
+     */
+    public JsonOutput value(String name, Object value) throws IOException;
+    
+    /**
+     * Writes a value from JSON text.
+     * @param name
+     * @param text
+     * @return
+     * @throws IOException
+     * @throws com.badlogic.gdx.utils.SerializationException if the text is not valid JSON.
+     */
+    public JsonOutput json(String name, String text) throws IOException;
+    
+    public void flush() throws IOException;
+}
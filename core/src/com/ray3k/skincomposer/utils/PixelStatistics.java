@@ -0,0 +1,256 @@
+/*******************************************************************************
+ * MIT License
+ * 
+ * Copyright (c) 2018 Raymond Buckley
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.ray3k.skincomposer.utils;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Pixmap;
+import java.nio.ByteBuffer;
+import java.util.stream.IntStream;
+
+/**
+ * Color statistics of an image computed in a single pass over the pixel
+ * buffer of a Pixmap. The average color covers every visible pixel. The edge
+ * color averages the outermost visible pixel of every row and column, which is
+ * used to pick a contrasting preview background. Sums are kept so tinted
+ * statistics can be derived without touching the pixels again. Large images
+ * are split into bands of rows that are scanned in parallel.
+ */
+public class PixelStatistics {
+    private static final int PARALLEL_THRESHOLD = 256 * 256;
+    private static final int MIN_BAND_HEIGHT = 64;
+    public long sumR, sumG, sumB;
+    public int count;
+    public long edgeSumR, edgeSumG, edgeSumB;
+    public int edgeCount;
+    
+    public PixelStatistics() {
+    }
+    
+    /**
+     * Scans the pixmap. Does not dispose pixmap.
+     * @param pixmap
+     * @param ninePatch If true, the one pixel border is excluded from the edge
+     * statistics.
+     * @return 
+     */
+    public static PixelStatistics compute(Pixmap pixmap, boolean ninePatch) {
+        if (pixmap.getFormat() != Pixmap.Format.RGBA8888) {
+            Pixmap converted = new Pixmap(pixmap.getWidth(), pixmap.getHeight(), Pixmap.Format.RGBA8888);
+            converted.setBlending(Pixmap.Blending.None);
+            converted.drawPixmap(pixmap, 0, 0);
+            PixelStatistics statistics = compute(converted, ninePatch);
+            converted.dispose();
+            return statistics;
+        }
+        
+        int width = pixmap.getWidth();
+        int height = pixmap.getHeight();
+        int border = ninePatch ? 1 : 0;
+        ByteBuffer pixels = pixmap.getPixels();
+        
+        int bands = 1;
+        if (width * height >= PARALLEL_THRESHOLD) {
+            bands = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), height / MIN_BAND_HEIGHT));
+        }
+        
+        Band[] results = new Band[bands];
+        if (bands == 1) {
+            results[0] = new Band(pixels, width, height, border, 0, height);
+        } else {
+            int bandCount = bands;
+            IntStream.range(0, bands).parallel().forEach(i -> {
+                results[i] = new Band(pixels, width, height, border, height * i / bandCount, height * (i + 1) / bandCount);
+            });
+        }
+        
+        //merge the bands, columns use the first and last band with a visible pixel
+        PixelStatistics statistics = new PixelStatistics();
+        for (Band band : results) {
+            statistics.sumR += band.sumR;
+            statistics.sumG += band.sumG;
+            statistics.sumB += band.sumB;
+            statistics.count += band.count;
+            statistics.edgeSumR += band.edgeSumR;
+            statistics.edgeSumG += band.edgeSumG;
+            statistics.edgeSumB += band.edgeSumB;
+            statistics.edgeCount += band.edgeCount;
+        }
+        
+        for (int x = border; x < width - border; x++) {
+            int top = -1;
+            int bottom = -1;
+            for (Band band : results) {
+                if (band.bottom[x] != -1) {
+                    if (top == -1) {
+                        top = band.top[x];
+                    }
+                    bottom = band.bottom[x];
+                }
+            }
+            
+            if (top != -1) {
+                statistics.addEdge(pixels, (top * width + x) * 4);
+            }
+            
+            if (bottom > border) {
+                statistics.addEdge(pixels, (bottom * width + x) * 4);
+            }
+        }
+        
+        return statistics;
+    }
+    
+    private void addEdge(ByteBuffer pixels, int index) {
+        edgeSumR += pixels.get(index) & 0xff;
+        edgeSumG += pixels.get(index + 1) & 0xff;
+        edgeSumB += pixels.get(index + 2) & 0xff;
+        edgeCount++;
+    }
+    
+    public Color getAverageColor() {
+        return getAverageColor(Color.WHITE);
+    }
+    
+    /**
+     * @param tint
+     * @return The average color of the image after multiplying it by tint.
+     */
+    public Color getAverageColor(Color tint) {
+        return average(sumR, sumG, sumB, count, tint);
+    }
+    
+    public Color getEdgeColor() {
+        return getEdgeColor(Color.WHITE);
+    }
+    
+    /**
+     * @param tint
+     * @return The edge color of the image after multiplying it by tint.
+     */
+    public Color getEdgeColor(Color tint) {
+        return average(edgeSumR, edgeSumG, edgeSumB, edgeCount, tint);
+    }
+    
+    private static Color average(long r, long g, long b, int count, Color tint) {
+        if (count == 0) {
+            return new Color(Color.BLACK);
+        } else {
+            float divisor = count * 255.0f;
+            return new Color(r / divisor * tint.r, g / divisor * tint.g, b / divisor * tint.b, tint.a);
+        }
+    }
+    
+    /**
+     * Multiplies the color channels of every pixel by tint, keeping the
+     * original alpha. Works in place on RGBA8888 pixmaps.
+     * @param pixmap
+     * @param tint 
+     */
+    public static void tint(Pixmap pixmap, Color tint) {
+        ByteBuffer pixels = pixmap.getPixels();
+        int width = pixmap.getWidth();
+        int height = pixmap.getHeight();
+        
+        int bands = 1;
+        if (width * height >= PARALLEL_THRESHOLD) {
+            bands = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), height / MIN_BAND_HEIGHT));
+        }
+        
+        int bandCount = bands;
+        IntStream.range(0, bands).parallel().forEach(i -> {
+            int end = height * (i + 1) / bandCount * width * 4;
+            for (int index = height * i / bandCount * width * 4; index < end; index += 4) {
+                pixels.put(index, (byte) ((pixels.get(index) & 0xff) * tint.r));
+                pixels.put(index + 1, (byte) ((pixels.get(index + 1) & 0xff) * tint.g));
+                pixels.put(index + 2, (byte) ((pixels.get(index + 2) & 0xff) * tint.b));
+            }
+        });
+    }
+    
+    /**
+     * The statistics of a range of rows. Tracks the first and last visible
+     * pixel of every column within the band.
+     */
+    private static class Band {
+        long sumR, sumG, sumB;
+        int count;
+        long edgeSumR, edgeSumG, edgeSumB;
+        int edgeCount;
+        final int[] top, bottom;
+
+        Band(ByteBuffer pixels, int width, int height, int border, int startY, int endY) {
+            top = new int[width];
+            bottom = new int[width];
+            for (int x = 0; x < width; x++) {
+                top[x] = -1;
+                bottom[x] = -1;
+            }
+            
+            for (int y = startY; y < endY; y++) {
+                boolean edgeRow = y >= border && y < height - border;
+                int rowIndex = y * width * 4;
+                int first = -1;
+                int last = -1;
+                
+                for (int x = 0; x < width; x++) {
+                    int index = rowIndex + x * 4;
+                    if (pixels.get(index + 3) == 0) {
+                        continue;
+                    }
+                    
+                    sumR += pixels.get(index) & 0xff;
+                    sumG += pixels.get(index + 1) & 0xff;
+                    sumB += pixels.get(index + 2) & 0xff;
+                    count++;
+                    
+                    if (edgeRow && x >= border && x < width - border) {
+                        if (first == -1) {
+                            first = x;
+                        }
+                        last = x;
+                        if (top[x] == -1) {
+                            top[x] = y;
+                        }
+                        bottom[x] = y;
+                    }
+                }
+                
+                //left and right edge of this row
+                if (first != -1) {
+                    addEdge(pixels, rowIndex + first * 4);
+                }
+                if (last > border) {
+                    addEdge(pixels, rowIndex + last * 4);
+                }
+            }
+        }
+        
+        private void addEdge(ByteBuffer pixels, int index) {
+            edgeSumR += pixels.get(index) & 0xff;
+            edgeSumG += pixels.get(index + 1) & 0xff;
+            edgeSumB += pixels.get(index + 2) & 0xff;
+            edgeCount++;
+        }
+    }
+}
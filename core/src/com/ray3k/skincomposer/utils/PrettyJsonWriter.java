@@ -0,0 +1,209 @@
+/*******************************************************************************
+ * MIT License
+ * 
+ * Copyright (c) 2018 Raymond Buckley
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.ray3k.skincomposer.utils;
+
+import com.badlogic.gdx.utils.BooleanArray;
+import com.badlogic.gdx.utils.Json;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.JsonWriter.OutputType;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes pretty printed JSON straight to a Writer. The output matches
+ * Json.prettyPrint() with the default settings, without building the
+ * document in memory and parsing it again first. The Writer is flushed
+ * every time a direct child of the root object is closed.
+ */
+public class PrettyJsonWriter implements JsonOutput {
+    private final Writer writer;
+    private final OutputType outputType;
+    private final BooleanArray hasChildren;
+    private Json json;
+    private JsonReader jsonReader;
+    
+    public PrettyJsonWriter(Writer writer, OutputType outputType) {
+        this.writer = writer;
+        this.outputType = outputType;
+        hasChildren = new BooleanArray();
+    }
+    
+    @Override
+    public PrettyJsonWriter objectStart() throws IOException {
+        writer.write('{');
+        hasChildren.add(false);
+        return this;
+    }
+    
+    @Override
+    public PrettyJsonWriter objectStart(String name) throws IOException {
+        name(name);
+        return objectStart();
+    }
+    
+    @Override
+    public PrettyJsonWriter objectEnd() throws IOException {
+        if (hasChildren.pop()) {
+            writer.write('\n');
+            indent(hasChildren.size - 1);
+        }
+        writer.write('}');
+        if (hasChildren.size == 1) {
+            writer.flush();
+        }
+        return this;
+    }
+    
+    @Override
+    public PrettyJsonWriter value(String name, Object value) throws IOException {
+        if (value == null || value instanceof String || value instanceof Number || value instanceof Boolean) {
+            name(name);
+            scalar(value);
+        } else if (value instanceof Enum) {
+            name(name);
+            scalar(((Enum) value).name());
+        } else {
+            if (json == null) {
+                json = new Json(OutputType.json);
+            }
+            json(name, json.toJson(value));
+        }
+        return this;
+    }
+    
+    @Override
+    public PrettyJsonWriter json(String name, String text) throws IOException {
+        if (jsonReader == null) {
+            jsonReader = new JsonReader();
+        }
+        JsonValue value = jsonReader.parse(text);
+        name(name);
+        value(value, hasChildren.size);
+        return this;
+    }
+    
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+    
+    private void name(String name) throws IOException {
+        if (hasChildren.peek()) {
+            writer.write(outputType == OutputType.minimal ? "\n" : ",\n");
+        } else {
+            writer.write('\n');
+            hasChildren.set(hasChildren.size - 1, true);
+        }
+        indent(hasChildren.size - 1);
+        writer.write(outputType.quoteName(name));
+        writer.write(": ");
+    }
+    
+    private void value(JsonValue value, int indent) throws IOException {
+        if (value.isObject()) {
+            if (value.child == null) {
+                writer.write("{}");
+            } else {
+                writer.write("{\n");
+                for (JsonValue child = value.child; child != null; child = child.next) {
+                    indent(indent);
+                    writer.write(outputType.quoteName(child.name));
+                    writer.write(": ");
+                    value(child, indent + 1);
+                    if (outputType != OutputType.minimal && child.next != null) writer.write(',');
+                    writer.write('\n');
+                }
+                indent(indent - 1);
+                writer.write('}');
+            }
+        } else if (value.isArray()) {
+            if (value.child == null) {
+                writer.write("[]");
+            } else if (isFlat(value) && isNumeric(value)) {
+                writer.write("[ ");
+                for (JsonValue child = value.child; child != null; child = child.next) {
+                    value(child, indent + 1);
+                    writer.write(child.next != null ? ", " : " ");
+                }
+                writer.write(']');
+            } else {
+                writer.write("[\n");
+                for (JsonValue child = value.child; child != null; child = child.next) {
+                    indent(indent);
+                    value(child, indent + 1);
+                    if (outputType != OutputType.minimal && child.next != null) writer.write(',');
+                    writer.write('\n');
+                }
+                indent(indent - 1);
+                writer.write(']');
+            }
+        } else if (value.isString()) {
+            writer.write(outputType.quoteValue(value.asString()));
+        } else if (value.isDouble()) {
+            number(value.asDouble());
+        } else if (value.isLong()) {
+            writer.write(Long.toString(value.asLong()));
+        } else if (value.isBoolean()) {
+            writer.write(Boolean.toString(value.asBoolean()));
+        } else {
+            writer.write("null");
+        }
+    }
+    
+    private void scalar(Object value) throws IOException {
+        if (value instanceof Float || value instanceof Double) {
+            number(Double.parseDouble(value.toString()));
+        } else if (value instanceof Number) {
+            writer.write(Long.toString(((Number) value).longValue()));
+        } else {
+            writer.write(outputType.quoteValue(value));
+        }
+    }
+    
+    private void number(double value) throws IOException {
+        long longValue = (long) value;
+        writer.write(value == longValue ? Long.toString(longValue) : Double.toString(value));
+    }
+    
+    private void indent(int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            writer.write('\t');
+        }
+    }
+    
+    private static boolean isFlat(JsonValue value) {
+        for (JsonValue child = value.child; child != null; child = child.next) {
+            if (child.isObject() || child.isArray()) return false;
+        }
+        return true;
+    }
+    
+    private static boolean isNumeric(JsonValue value) {
+        for (JsonValue child = value.child; child != null; child = child.next) {
+            if (!child.isNumber()) return false;
+        }
+        return true;
+    }
+}
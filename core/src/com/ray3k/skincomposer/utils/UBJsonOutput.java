@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * MIT License
+ * 
+ * Copyright (c) 2018 Raymond Buckley
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ ******************************************************************************/
+package com.ray3k.skincomposer.utils;
+
+import com.badlogic.gdx.utils.Json;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.JsonWriter.OutputType;
+import com.badlogic.gdx.utils.UBJsonWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes the skin structure as UBJSON, which can be read back with
+ * UBJsonReader or {@link com.ray3k.skincomposer.UBJsonSkin}. The Writer is
+ * flushed every time a direct child of the root object is closed.
+ */
+public class UBJsonOutput implements JsonOutput {
+    private final UBJsonWriter writer;
+    private int depth;
+    private Json json;
+    private JsonReader jsonReader;
+
+    /**
+     * @param outputStream Should be buffered. It is not closed by this class.
+     */
+    public UBJsonOutput(OutputStream outputStream) {
+        writer = new UBJsonWriter(outputStream);
+    }
+
+    @Override
+    public UBJsonOutput objectStart() throws IOException {
+        writer.object();
+        depth++;
+        return this;
+    }
+
+    @Override
+    public UBJsonOutput objectStart(String name) throws IOException {
+        writer.object(name);
+        depth++;
+        return this;
+    }
+
+    @Override
+    public UBJsonOutput objectEnd() throws IOException {
+        writer.pop();
+        depth--;
+        if (depth == 1) {
+            writer.flush();
+        }
+        return this;
+    }
+
+    @Override
+    public UBJsonOutput value(String name, Object value) throws IOException {
+        if (value == null) {
+            writer.name(name).value();
+        } else if (value instanceof String) {
+            writer.name(name).value((String) value);
+        } else if (value instanceof Boolean) {
+            writer.name(name).value((boolean) (Boolean) value);
+        } else if (value instanceof Float || value instanceof Double) {
+            writer.name(name).value(Double.parseDouble(value.toString()));
+        } else if (value instanceof Number) {
+            writer.name(name).value(((Number) value).longValue());
+        } else if (value instanceof Enum) {
+            writer.name(name).value(((Enum) value).name());
+        } else {
+            if (json == null) {
+                json = new Json(OutputType.json);
+            }
+            json(name, json.toJson(value));
+        }
+        return this;
+    }
+
+    @Override
+    public UBJsonOutput json(String name, String text) throws IOException {
+        if (jsonReader == null) {
+            jsonReader = new JsonReader();
+        }
+        JsonValue value = jsonReader.parse(text);
+        value.setName(name);
+        writer.value(value);
+        return this;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+}
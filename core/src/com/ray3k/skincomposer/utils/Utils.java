@@ -29,6 +29,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Iterator;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -44,6 +45,7 @@ import com.badlogic.gdx.graphics.Cursor;
 import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.GridPoint2;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
@@ -63,28 +65,7 @@ public class Utils {
      * @return 
      */
     public static Color averageColor(Pixmap pixmap) {
-        Color temp = new Color();
-        float sumR = 0.0f;
-        float sumG = 0.0f;
-        float sumB = 0.0f;
-        int count = 0;
-        for (int y = 0; y < pixmap.getHeight(); y++) {
-            for (int x = 0; x < pixmap.getWidth(); x++) {
-                temp.set(pixmap.getPixel(x, y));
-                if (temp.a > 0) {
-                    sumR += temp.r;
-                    sumG += temp.g;
-                    sumB += temp.b;
-                    count++;
-                }
-            }
-        }
-        
-        if (count == 0) {
-            return new Color(Color.BLACK);
-        } else {
-            return new Color(sumR / count, sumG / count, sumB / count, 1.0f);
-        }
+        return PixelStatistics.compute(pixmap, false).getAverageColor();
     }
     
     public static Color averageEdgeColor(FileHandle file) {
@@ -96,22 +77,34 @@ public class Utils {
     
     public static Color averageEdgeColor(FileHandle file, Color color) {
         Pixmap pixmap = new Pixmap(file);
-        pixmap = tintPixmap(pixmap, color);
-        Color returnValue = averageEdgeColor(pixmap, file.name().matches("(?i).*\\.9\\.png$"));
+        Color returnValue = PixelStatistics.compute(pixmap, file.name().matches("(?i).*\\.9\\.png$")).getEdgeColor(color);
         pixmap.dispose();
         return returnValue;
     }
     
+    /**
+     * Reads the dimensions of an image from its header, excluding the border
+     * of nine patches. Falls back to decoding the image if the format is not
+     * supported by {@link ImageProbe}.
+     * @param file
+     * @return 
+     */
     public static Vector2 imageDimensions(FileHandle file) {
         Vector2 vector = new Vector2();
-        Pixmap pixmap = new Pixmap(file);
-        vector.x = pixmap.getWidth();
-        vector.y = pixmap.getHeight();
+        GridPoint2 size = ImageProbe.probe(file);
+        if (size != null) {
+            vector.x = size.x;
+            vector.y = size.y;
+        } else {
+            Pixmap pixmap = new Pixmap(file);
+            vector.x = pixmap.getWidth();
+            vector.y = pixmap.getHeight();
+            pixmap.dispose();
+        }
         if (file.name().matches("(?i).*\\.9\\.png$")) {
             vector.x = MathUtils.clamp(vector.x - 2, 0.0f, vector.x);
             vector.y = MathUtils.clamp(vector.y - 2, 0.0f, vector.y);
         }
-        pixmap.dispose();
         return vector;
     }
     
@@ -121,18 +114,24 @@ public class Utils {
      * @return 
      */
     public static Pixmap tintPixmap(Pixmap pixmap, Color color) {
+        if (pixmap.getFormat() == Pixmap.Format.RGBA8888) {
+            PixelStatistics.tint(pixmap, color);
+            return pixmap;
+        }
+        
         Color tempColor = new Color();
+        Pixmap.Blending blending = pixmap.getBlending();
+        pixmap.setBlending(Pixmap.Blending.None);
         for (int y = 0; y < pixmap.getHeight(); y++) {
             for (int x = 0; x < pixmap.getWidth(); x++) {
                 tempColor.set(pixmap.getPixel(x, y));
                 float a = tempColor.a;
                 tempColor.mul(color);
                 tempColor.a = a;
-                pixmap.setColor(tempColor);
-                pixmap.drawPixel(x, y);
-                tempColor.set(pixmap.getPixel(x, y));
+                pixmap.drawPixel(x, y, Color.rgba8888(tempColor));
             }
         }
+        pixmap.setBlending(blending);
         return pixmap;
     }
     
@@ -143,78 +142,7 @@ public class Utils {
      * @return 
      */
     public static Color averageEdgeColor(Pixmap pixmap, boolean ninePatch) {
-        int border = 0;
-        if (ninePatch) {
-            border = 1;
-        }
-        
-        Color temp = new Color();
-        float sumR = 0.0f;
-        float sumG = 0.0f;
-        float sumB = 0.0f;
-        int count = 0;
-
-        //left edge
-        for (int y = border; y < pixmap.getHeight() - border; y++) {
-            for (int x = border; x < pixmap.getWidth() - border; x++) {
-                temp.set(pixmap.getPixel(x, y));
-                if (temp.a > 0) {
-                    sumR += temp.r;
-                    sumG += temp.g;
-                    sumB += temp.b;
-                    count++;
-                    break;
-                }
-            }
-        }
-        
-        //right edge
-        for (int y = border; y < pixmap.getHeight() - border; y++) {
-            for (int x = pixmap.getWidth() - 1 - border; x > border; x--) {
-                temp.set(pixmap.getPixel(x, y));
-                if (temp.a > 0) {
-                    sumR += temp.r;
-                    sumG += temp.g;
-                    sumB += temp.b;
-                    count++;
-                    break;
-                }
-            }
-        }
-        
-        //top edge
-        for (int x = border; x < pixmap.getWidth() - border; x++) {
-            for (int y = border; y < pixmap.getHeight() - border; y++) {
-                temp.set(pixmap.getPixel(x, y));
-                if (temp.a > 0) {
-                    sumR += temp.r;
-                    sumG += temp.g;
-                    sumB += temp.b;
-                    count++;
-                    break;
-                }
-            }
-        }
-        
-        //bottom edge
-        for (int x = border; x < pixmap.getWidth() - border; x++) {
-            for (int y = pixmap.getHeight() - 1 - border; y > border; y--) {
-                temp.set(pixmap.getPixel(x, y));
-                if (temp.a > 0) {
-                    sumR += temp.r;
-                    sumG += temp.g;
-                    sumB += temp.b;
-                    count++;
-                    break;
-                }
-            }
-        }
-        
-        if (count == 0) {
-            return new Color(Color.BLACK);
-        } else {
-            return new Color(sumR / count, sumG / count, sumB / count, 1.0f);
-        }
+        return PixelStatistics.compute(pixmap, ninePatch).getEdgeColor();
     }
     
     public static Color inverseColor(Color color) {
@@ -267,6 +195,11 @@ public class Utils {
     }
     
     public static boolean doesImageFitBox(FileHandle fileHandle, float width, float height) {
+        GridPoint2 size = ImageProbe.probe(fileHandle);
+        if (size != null) {
+            return size.x < width && size.y < height;
+        }
+        
         boolean result = false;
         String suffix = fileHandle.extension();
         Iterator<ImageReader> iter = ImageIO.getImageReadersBySuffix(suffix);
@@ -289,6 +222,18 @@ public class Utils {
         return result;
     }
     
+    /**
+     * Computes a checksum of the file's contents. Used to detect if an image
+     * has changed regardless of its path or modification time.
+     * @param file
+     * @return 
+     */
+    public static long checksum(FileHandle file) {
+        CRC32 crc = new CRC32();
+        crc.update(file.readBytes());
+        return crc.getValue();
+    }
+    
     public static void writeWarningsToFile(Array<String> warnings, FileHandle file) {
         for (String warning : warnings) {
             String formatted = warning.replaceAll("(?<!\\[)\\[(?!\\[).*?\\]", "") + "\n";
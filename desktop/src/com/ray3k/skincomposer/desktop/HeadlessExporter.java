@@ -0,0 +1,140 @@
+package com.ray3k.skincomposer.desktop;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.ray3k.skincomposer.Main;
+import com.ray3k.skincomposer.data.ImageMetadataCache;
+import com.ray3k.skincomposer.data.ProjectData;
+import com.ray3k.skincomposer.data.SkinExporter;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Exports the skin JSON, atlas and fonts of one or more .scmp projects
+ * without opening a window. Projects use the export settings saved with them.
+ * Directories are searched for .scmp files, and each project is exported on
+ * its own thread.
+ * Usage: HeadlessExporter [--output directory] [--threads count] project.scmp|directory...
+ * Exit codes: 0 success, 1 exported with warnings, 2 a project failed, 64 bad arguments.
+ */
+public class HeadlessExporter {
+    public static final int EXIT_SUCCESS = 0;
+    public static final int EXIT_WARNINGS = 1;
+    public static final int EXIT_ERROR = 2;
+    public static final int EXIT_USAGE = 64;
+    //Main.main is static and captured while a project is read, so loads are serialized
+    private static final Object LOAD_LOCK = new Object();
+    
+    public static void main(String[] args) {
+        FileHandle outputFolder = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Array<FileHandle> projectFiles = new Array<>();
+        
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--output")) {
+                    outputFolder = new FileHandle(args[++i]);
+                } else if (args[i].equals("--threads")) {
+                    threads = Math.max(1, Integer.parseInt(args[++i]));
+                } else {
+                    FileHandle fileHandle = new FileHandle(args[i]);
+                    if (fileHandle.isDirectory()) {
+                        for (FileHandle child : fileHandle.list()) {
+                            if (isProject(child)) {
+                                projectFiles.add(child);
+                            }
+                        }
+                    } else if (isProject(fileHandle)) {
+                        projectFiles.add(fileHandle);
+                    } else {
+                        System.err.println("Not a Skin Composer project: " + args[i]);
+                        System.exit(EXIT_USAGE);
+                    }
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            projectFiles.clear();
+        }
+        
+        if (projectFiles.size == 0) {
+            System.err.println("Usage: HeadlessExporter [--output directory] [--threads count] project.scmp|directory...");
+            System.exit(EXIT_USAGE);
+        }
+        
+        CountDownLatch created = new CountDownLatch(1);
+        HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+        new HeadlessApplication(new ApplicationAdapter() {
+            @Override
+            public void create() {
+                created.countDown();
+            }
+        }, config);
+        
+        int exitCode = EXIT_SUCCESS;
+        try {
+            created.await();
+            Main.appFolder = Gdx.files.external(".skincomposer/");
+            
+            DesktopLauncher desktopWorker = new DesktopLauncher();
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, projectFiles.size));
+            Array<Future<Array<String>>> futures = new Array<>();
+            for (FileHandle projectFile : projectFiles) {
+                FileHandle targetFolder = outputFolder == null ? projectFile.parent() : outputFolder;
+                futures.add(executor.submit(() -> export(projectFile, targetFolder, desktopWorker)));
+            }
+            executor.shutdown();
+            
+            for (int i = 0; i < projectFiles.size; i++) {
+                FileHandle projectFile = projectFiles.get(i);
+                try {
+                    Array<String> warnings = futures.get(i).get();
+                    System.out.println("Exported " + projectFile.path() + " (" + warnings.size + " warnings)");
+                    for (String warning : warnings) {
+                        System.out.println("    " + warning.replaceAll("\\[[A-Z#0-9]*\\]", ""));
+                    }
+                    if (warnings.size > 0) {
+                        exitCode = Math.max(exitCode, EXIT_WARNINGS);
+                    }
+                } catch (ExecutionException e) {
+                    System.err.println("Failed to export " + projectFile.path());
+                    e.getCause().printStackTrace();
+                    exitCode = EXIT_ERROR;
+                }
+            }
+            
+            ImageMetadataCache.get().save();
+        } catch (InterruptedException e) {
+            exitCode = EXIT_ERROR;
+        }
+        
+        System.exit(exitCode);
+    }
+    
+    private static boolean isProject(FileHandle fileHandle) {
+        return !fileHandle.isDirectory() && fileHandle.extension().toLowerCase(Locale.ROOT).equals("scmp");
+    }
+    
+    private static Array<String> export(FileHandle projectFile, FileHandle targetFolder, DesktopLauncher desktopWorker) throws Exception {
+        Main main;
+        ProjectData projectData;
+        synchronized (LOAD_LOCK) {
+            main = new Main(new String[0]);
+            main.setDesktopWorker(desktopWorker);
+            projectData = new ProjectData();
+            projectData.setMain(main);
+            main.setProjectData(projectData);
+            projectData.load(projectFile);
+        }
+        
+        FileHandle skinFile = targetFolder.child(projectFile.nameWithoutExtension() + "." + projectData.getExportFormat().getExtension());
+        return SkinExporter.export(main, skinFile);
+    }
+}
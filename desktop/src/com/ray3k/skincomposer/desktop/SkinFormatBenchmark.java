@@ -0,0 +1,77 @@
+package com.ray3k.skincomposer.desktop;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.UBJsonReader;
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Compares how long it takes to parse a skin exported as JSON and the same
+ * skin exported as UBJSON, and how much memory is allocated while doing so.
+ * Files are read into memory first so only parsing is measured.
+ * Usage: SkinFormatBenchmark skin.json skin.ubj [iterations]
+ */
+public class SkinFormatBenchmark {
+    private static final int WARMUP_ITERATIONS = 200;
+    
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: SkinFormatBenchmark skin.json skin.ubj [iterations]");
+            System.exit(1);
+        }
+        
+        byte[] jsonBytes = new FileHandle(args[0]).readBytes();
+        byte[] ubjsonBytes = new FileHandle(args[1]).readBytes();
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        
+        JsonReader jsonReader = new JsonReader();
+        UBJsonReader ubjsonReader = new UBJsonReader();
+        Parser jsonParser = () -> jsonReader.parse(new ByteArrayInputStream(jsonBytes));
+        Parser ubjsonParser = () -> ubjsonReader.parse(new ByteArrayInputStream(ubjsonBytes));
+        
+        run(jsonParser, WARMUP_ITERATIONS);
+        run(ubjsonParser, WARMUP_ITERATIONS);
+        
+        Result json = run(jsonParser, iterations);
+        Result ubjson = run(ubjsonParser, iterations);
+        
+        System.out.println("Iterations: " + iterations);
+        print("JSON", jsonBytes.length, json, iterations);
+        print("UBJSON", ubjsonBytes.length, ubjson, iterations);
+        System.out.println(String.format("UBJSON parse time: %.1f%% of JSON", 100.0 * ubjson.nanos / json.nanos));
+    }
+    
+    private static Result run(Parser parser, int iterations) {
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        
+        Result result = new Result();
+        long allocated = threadBean.getThreadAllocatedBytes(threadId);
+        long time = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            JsonValue value = parser.parse();
+            if (value.child == null) {
+                throw new IllegalStateException("Skin file is empty.");
+            }
+        }
+        result.nanos = System.nanoTime() - time;
+        result.bytes = threadBean.getThreadAllocatedBytes(threadId) - allocated;
+        return result;
+    }
+    
+    private static void print(String name, int fileSize, Result result, int iterations) {
+        System.out.println(String.format("%-7s file: %8d bytes   parse: %8.1f us   allocated: %10d bytes",
+                name, fileSize, result.nanos / 1000.0 / iterations, result.bytes / iterations));
+    }
+    
+    private static interface Parser {
+        public JsonValue parse();
+    }
+    
+    private static class Result {
+        long nanos;
+        long bytes;
+    }
+}